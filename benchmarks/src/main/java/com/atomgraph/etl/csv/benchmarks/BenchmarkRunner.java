@@ -0,0 +1,64 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that the results include allocation rates.
+ * Arguments are JMH options, e.g. <code>-p rows=1000000</code>, and benchmark name patterns; all benchmarks are run if there are no patterns.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class BenchmarkRunner
+{
+
+    public static void main(String[] args) throws RunnerException, IOException
+    {
+        CommandLineOptions cmdOptions;
+        try
+        {
+            cmdOptions = new CommandLineOptions(args);
+        }
+        catch (CommandLineOptionException ex)
+        {
+            System.err.println("Error parsing command line: " + ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        if (cmdOptions.shouldHelp())
+        {
+            cmdOptions.showHelp();
+            return;
+        }
+        
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class);
+        if (cmdOptions.getIncludes().isEmpty()) options.include(BenchmarkRunner.class.getPackageName() + ".*");
+        Runner runner = new Runner(options.build());
+        if (cmdOptions.shouldList()) runner.list();
+        else runner.run();
+    }
+    
+}
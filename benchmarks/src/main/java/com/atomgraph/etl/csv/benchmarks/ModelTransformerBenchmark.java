@@ -0,0 +1,99 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+import com.atomgraph.etl.csv.ModelTransformer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Executes a mapping query over pre-built row models using {@link ModelTransformer}, which reuses the query plan across rows,
+ * and using a new {@link QueryExecution} per row, which generates and optimizes the algebra every time.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ModelTransformerBenchmark
+{
+
+    @Param({ "10", "50" })
+    public int columns;
+    
+    @Param({ "identity", "bgp", "bind", "optional" })
+    public String shape;
+    
+    private final ModelTransformer transformer = new ModelTransformer();
+    private Query query;
+    private List<Model> models;
+    private int modelNo;
+    
+    @Setup
+    public void setup()
+    {
+        query = Queries.create(shape);
+        models = new ArrayList<>();
+        
+        String[] header = SyntheticCSV.header(columns);
+        for (int row = 0; row < 1000; row++)
+        {
+            Model model = ModelFactory.createDefaultModel();
+            Resource subject = model.createResource();
+            subject.addProperty(model.createProperty(SyntheticCSV.BASE, "#" + header[0]), String.valueOf(row));
+            for (int column = 1; column < columns; column++)
+                subject.addProperty(model.createProperty(SyntheticCSV.BASE, "#" + header[column]), String.valueOf((row * 31 + column) % 100000));
+            models.add(model);
+        }
+    }
+    
+    @Benchmark
+    public Model apply()
+    {
+        return transformer.apply(query, models.get(modelNo++ % models.size()));
+    }
+    
+    @Benchmark
+    public Model queryExecution()
+    {
+        try (QueryExecution qex = QueryExecution.create(query, models.get(modelNo++ % models.size())))
+        {
+            return qex.execConstruct();
+        }
+    }
+    
+}
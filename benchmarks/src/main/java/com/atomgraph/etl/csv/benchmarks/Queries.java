@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+
+/**
+ * Mapping query shapes used by the benchmarks. All queries are over the first four columns of {@link SyntheticCSV}.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class Queries
+{
+
+    private static final String PREFIXES = "PREFIX schema: <https://schema.org/>\n" +
+        "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+    
+    /**
+     * Creates a query of the given shape:
+     * <ul>
+     *   <li><code>identity</code> - returns the generic CSV/RDF as it is</li>
+     *   <li><code>bgp</code> - maps column properties to domain properties</li>
+     *   <li><code>bind</code> - builds a resource URI and casts values using <code>BIND</code></li>
+     *   <li><code>optional</code> - like <code>bind</code> but with an <code>OPTIONAL</code> column, which is always evaluated using SPARQL</li>
+     * </ul>
+     * 
+     * @param shape query shape
+     * @return query
+     */
+    public static Query create(String shape)
+    {
+        String queryString = switch (shape)
+        {
+            case "identity" -> "CONSTRUCT WHERE { ?s ?p ?o }";
+            case "bgp" -> PREFIXES +
+                "CONSTRUCT { ?row schema:identifier ?id ; schema:name ?name ; schema:category ?code ; schema:position ?number }\n" +
+                "WHERE { ?row <#id> ?id ; <#col1> ?name ; <#col2> ?code ; <#col3> ?number }";
+            case "bind" -> PREFIXES +
+                "CONSTRUCT { ?item a schema:Thing ; schema:identifier ?id ; schema:name ?name ; schema:category ?category ; schema:position ?number }\n" +
+                "WHERE { ?row <#id> ?id ; <#col1> ?name ; <#col2> ?code ; <#col3> ?numberString\n" +
+                "BIND(URI(CONCAT(STR(<>), 'items/', ?id)) AS ?item)\n" +
+                "BIND(URI(CONCAT(STR(<>), 'categories/', ?code)) AS ?category)\n" +
+                "BIND(xsd:integer(?numberString) AS ?number) }";
+            case "optional" -> PREFIXES +
+                "CONSTRUCT { ?item a schema:Thing ; schema:identifier ?id ; schema:name ?name ; schema:position ?number }\n" +
+                "WHERE { ?row <#id> ?id ; <#col1> ?name OPTIONAL { ?row <#col3> ?numberString }\n" +
+                "BIND(URI(CONCAT(STR(<>), 'items/', ?id)) AS ?item)\n" +
+                "BIND(xsd:integer(?numberString) AS ?number) }";
+            default -> throw new IllegalArgumentException("Unknown query shape: " + shape);
+        };
+        
+        return QueryFactory.create(queryString, SyntheticCSV.BASE);
+    }
+    
+}
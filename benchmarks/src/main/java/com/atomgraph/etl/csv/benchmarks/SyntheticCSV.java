@@ -0,0 +1,77 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+/**
+ * Generates synthetic CSV data of configurable width and row count.
+ * Columns cycle through identifiers, free text, low-cardinality codes and numbers, similarly to real exports.
+ * The output is deterministic.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class SyntheticCSV
+{
+
+    public static final String BASE = "https://localhost/";
+    
+    /**
+     * Returns the header of the given width. The first column is <code>id</code>, the rest are <code>col1</code>, <code>col2</code> etc.
+     * 
+     * @param columns number of columns
+     * @return header names
+     */
+    public static String[] header(int columns)
+    {
+        String[] header = new String[columns];
+        header[0] = "id";
+        for (int i = 1; i < columns; i++) header[i] = "col" + i;
+        return header;
+    }
+    
+    /**
+     * Generates CSV data with a header row.
+     * 
+     * @param columns number of columns
+     * @param rows number of data rows
+     * @return CSV string
+     */
+    public static String generate(int columns, int rows)
+    {
+        StringBuilder csv = new StringBuilder(columns * rows * 8);
+        csv.append(String.join(",", header(columns))).append('\n');
+        
+        for (int row = 0; row < rows; row++)
+        {
+            csv.append(row);
+            for (int column = 1; column < columns; column++)
+            {
+                csv.append(',');
+                switch (column % 4)
+                {
+                    case 1 -> csv.append("\"Value ").append(row).append(", column ").append(column).append('"'); // quoted free text
+                    case 2 -> csv.append("CODE").append((row + column) % 7); // low cardinality
+                    case 3 -> csv.append((row * 31 + column) % 100000); // integer
+                    default -> csv.append(row % 100).append('.').append(column % 100); // decimal
+                }
+            }
+            csv.append('\n');
+        }
+        
+        return csv.toString();
+    }
+    
+}
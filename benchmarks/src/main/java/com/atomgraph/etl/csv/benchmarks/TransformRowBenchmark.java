@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+import com.atomgraph.etl.csv.stream.CSVStreamRDFProcessor;
+import com.univocity.parsers.common.ParsingContext;
+import com.univocity.parsers.common.processor.AbstractRowProcessor;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms a single pre-parsed row using {@link CSVStreamRDFProcessor#transformRow(String[], ParsingContext)},
+ * or streams its triples using {@link CSVStreamRDFProcessor#transformRow(String[], long, ParsingContext, StreamRDF)}.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TransformRowBenchmark
+{
+
+    @Param({ "10", "50" })
+    public int columns;
+    
+    @Param({ "identity", "bgp", "bind", "optional" })
+    public String shape;
+    
+    @Param({ "true", "false" })
+    public boolean compiled;
+    
+    private CSVStreamRDFProcessor processor;
+    private ParsingContext context;
+    private List<String[]> rows;
+    private int rowNo;
+    private final StreamRDF sink = StreamRDFLib.sinkNull();
+    
+    @Setup
+    public void setup()
+    {
+        processor = new CSVStreamRDFProcessor(StreamRDFLib.sinkNull(), SyntheticCSV.BASE, Queries.create(shape));
+        if (!compiled) processor.setCompiledRowMapping(null);
+        rows = new ArrayList<>();
+        
+        // parse upfront and keep the parsing context, which provides the headers
+        CsvParserSettings parserSettings = new CsvParserSettings();
+        parserSettings.setHeaderExtractionEnabled(true);
+        parserSettings.setProcessor(new AbstractRowProcessor()
+        {
+            
+            @Override
+            public void processStarted(ParsingContext parsingContext)
+            {
+                context = parsingContext;
+                processor.processStarted(parsingContext);
+            }
+            
+            @Override
+            public void rowProcessed(String[] row, ParsingContext parsingContext)
+            {
+                rows.add(row);
+            }
+            
+        });
+        new CsvParser(parserSettings).parse(new StringReader(SyntheticCSV.generate(columns, 1000)));
+    }
+    
+    @Benchmark
+    public Model transformRow()
+    {
+        String[] row = rows.get(rowNo++ % rows.size());
+        return processor.transformRow(row, context);
+    }
+    
+    /**
+     * Streams the triples of a row to a sink, without building a result model.
+     */
+    @Benchmark
+    public void streamRow()
+    {
+        String[] row = rows.get(rowNo++ % rows.size());
+        processor.transformRow(row, rowNo, context, sink);
+    }
+    
+}
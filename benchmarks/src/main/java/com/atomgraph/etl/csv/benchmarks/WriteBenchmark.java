@@ -0,0 +1,81 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.benchmarks;
+
+import com.atomgraph.etl.csv.stream.CSVStreamRDFOutput;
+import com.atomgraph.etl.csv.stream.OutputFormat;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts a whole CSV document end-to-end using {@link CSVStreamRDFOutput}, discarding the serialized output.
+ * 
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class WriteBenchmark
+{
+
+    @Param({ "10", "50" })
+    public int columns;
+    
+    @Param({ "10000" })
+    public int rows;
+    
+    @Param({ "identity", "bind" })
+    public String shape;
+    
+    @Param({ "NTRIPLES", "TURTLE", "THRIFT", "PROTOBUF" })
+    public OutputFormat format;
+    
+    private String csv;
+    private Query query;
+    
+    @Setup
+    public void setup()
+    {
+        csv = SyntheticCSV.generate(columns, rows);
+        query = Queries.create(shape);
+    }
+    
+    @Benchmark
+    public void write()
+    {
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv), SyntheticCSV.BASE, query, ',', null);
+        output.write(OutputStream.nullOutputStream(), format, StandardCharsets.UTF_8);
+    }
+    
+}
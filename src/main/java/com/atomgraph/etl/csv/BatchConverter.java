@@ -0,0 +1,372 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+
+/**
+ * Converts multiple CSV files concurrently on a work-stealing pool.
+ * The files share the parsed query and the warm JVM, and a failure of one file does not affect the others.
+ * The outputs are written to a file per input, or appended to a single merged stream, one file at a time in the order in which they complete.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class BatchConverter
+{
+
+    /**
+     * Converts a single input file.
+     */
+    @FunctionalInterface
+    public interface FileConverter
+    {
+
+        void convert(Path input, OutputStream out) throws IOException;
+
+    }
+
+    private static final String GLOB_CHARS = "*?[{";
+
+    private final FileConverter converter;
+    private final int parallelism;
+
+    public BatchConverter(FileConverter converter, int parallelism)
+    {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive");
+        this.converter = converter;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Resolves input arguments into files. An argument can be a file, a directory (its regular files, not recursively) or a glob pattern such as <code>data/*.csv</code>.
+     *
+     * @param inputs input arguments
+     * @return distinct input files, sorted within each directory or pattern
+     * @throws IOException if a directory cannot be listed
+     */
+    public static List<Path> resolve(List<String> inputs) throws IOException
+    {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String input : inputs)
+        {
+            int globStart = indexOfGlob(input);
+            if (globStart >= 0)
+            {
+                int separator = input.lastIndexOf('/', globStart); // glob patterns use forward slashes on all platforms
+                Path dir = Path.of(separator >= 0 ? input.substring(0, separator + 1) : "");
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+                if (!Files.isDirectory(dir.toAbsolutePath())) throw new IllegalArgumentException("Input directory not found: " + input);
+
+                try (Stream<Path> paths = Files.walk(dir))
+                {
+                    paths.filter(Files::isRegularFile).filter(matcher::matches).sorted().forEach(files::add);
+                }
+            }
+            else
+            {
+                Path path = Path.of(input);
+                if (Files.isDirectory(path))
+                    try (Stream<Path> paths = Files.list(path))
+                    {
+                        paths.filter(Files::isRegularFile).filter(file -> !file.getFileName().toString().startsWith(".")).sorted().forEach(files::add);
+                    }
+                else if (Files.isRegularFile(path)) files.add(path);
+                else throw new IllegalArgumentException("Input file not found: " + input);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static int indexOfGlob(String input)
+    {
+        for (int i = 0; i < input.length(); i++)
+            if (GLOB_CHARS.indexOf(input.charAt(i)) >= 0) return i;
+
+        return -1;
+    }
+
+    /**
+     * Converts every input into its own output file. A failed conversion does not leave a partial output file.
+     *
+     * @param inputs input files
+     * @param outputs maps input files to output files, which have to be distinct
+     * @return results in the input order
+     * @throws IOException if interrupted
+     */
+    public List<FileResult> convert(List<Path> inputs, Function<Path, Path> outputs) throws IOException
+    {
+        Map<Path, Path> outputFiles = new HashMap<>();
+        for (Path input : inputs)
+        {
+            Path output = outputs.apply(input);
+            Path other = outputFiles.put(output.toAbsolutePath().normalize(), input);
+            if (other != null) throw new IllegalArgumentException("Inputs " + other + " and " + input + " would be written to the same output: " + output);
+        }
+
+        return run(inputs, input ->
+        {
+            Path output = outputs.apply(input);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output)))
+            {
+                converter.convert(input, out);
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                Files.deleteIfExists(output);
+                throw ex;
+            }
+            return output;
+        });
+    }
+
+    /**
+     * Converts every input and appends its output to a single stream. Outputs are buffered in temporary files, so that they are not interleaved.
+     * The output format has to be concatenable.
+     *
+     * @param inputs input files
+     * @param out merged output
+     * @param tempSuffix suffix of the temporary files
+     * @return results in the input order
+     * @throws IOException if interrupted
+     */
+    public List<FileResult> convert(List<Path> inputs, OutputStream out, String tempSuffix) throws IOException
+    {
+        return run(inputs, input ->
+        {
+            Path temp = Files.createTempFile("csv2rdf-", tempSuffix);
+            try
+            {
+                try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp)))
+                {
+                    converter.convert(input, os);
+                }
+
+                synchronized (out)
+                {
+                    Files.copy(temp, out);
+                }
+                return null;
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        });
+    }
+
+    /**
+     * Runs the conversions, largest input files first so that a large file does not start last.
+     *
+     * @param inputs input files
+     * @param task conversion of a single file, returning the output file
+     * @return results in the input order
+     */
+    private List<FileResult> run(List<Path> inputs, Task task) throws IOException
+    {
+        List<Path> scheduled = new ArrayList<>(inputs);
+        scheduled.sort(Comparator.comparingLong(BatchConverter::size).reversed());
+
+        ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+        try
+        {
+            Map<Path, Future<FileResult>> futures = new HashMap<>();
+            for (Path input : scheduled)
+                futures.put(input, pool.submit(() ->
+                {
+                    long started = System.nanoTime();
+                    try
+                    {
+                        Path output = task.run(input);
+                        return new FileResult(input, output, (System.nanoTime() - started) / 1_000_000, null);
+                    }
+                    catch (Exception ex)
+                    {
+                        return new FileResult(input, null, (System.nanoTime() - started) / 1_000_000, ex);
+                    }
+                }));
+
+            List<FileResult> results = new ArrayList<>(inputs.size());
+            for (Path input : inputs) results.add(futures.get(input).get());
+            return results;
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while converting files");
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IllegalStateException(ex.getCause()); // results are always returned, so this is unexpected
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long size(Path file)
+    {
+        try
+        {
+            return Files.size(file);
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns a summary line of the results.
+     *
+     * @param results conversion results
+     * @return summary
+     */
+    public static String toSummary(List<FileResult> results)
+    {
+        long failed = results.stream().filter(result -> !result.isSucceeded()).count();
+        return String.format("converted=%d failed=%d files=%d", results.size() - failed, failed, results.size());
+    }
+
+    /**
+     * Returns the results as JSON.
+     *
+     * @param results conversion results
+     * @return JSON array with an object per file
+     */
+    public static JsonArray toJSON(List<FileResult> results)
+    {
+        JsonArray array = new JsonArray();
+        for (FileResult result : results)
+        {
+            JsonObject json = new JsonObject();
+            json.put("input", result.getInput().toString());
+            if (result.getOutput() != null) json.put("output", result.getOutput().toString());
+            json.put("succeeded", result.isSucceeded());
+            json.put("elapsedMillis", result.getElapsedMillis());
+            if (result.getError() != null) json.put("error", result.getErrorMessage());
+            array.add(json);
+        }
+        return array;
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    @FunctionalInterface
+    private interface Task
+    {
+
+        Path run(Path input) throws IOException;
+
+    }
+
+    /**
+     * Result of converting a single file.
+     */
+    public static class FileResult
+    {
+
+        private final Path input, output;
+        private final long elapsedMillis;
+        private final Throwable error;
+
+        public FileResult(Path input, Path output, long elapsedMillis, Throwable error)
+        {
+            this.input = input;
+            this.output = output;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        public Path getInput()
+        {
+            return input;
+        }
+
+        /**
+         * Returns the output file.
+         *
+         * @return output file, or null if the output was merged or the conversion failed
+         */
+        public Path getOutput()
+        {
+            return output;
+        }
+
+        public long getElapsedMillis()
+        {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the failure of the conversion.
+         *
+         * @return error, or null if the conversion succeeded
+         */
+        public Throwable getError()
+        {
+            return error;
+        }
+
+        /**
+         * Returns the first line of the error, as parser errors include the full parser configuration.
+         *
+         * @return error message, or null if the conversion succeeded
+         */
+        public String getErrorMessage()
+        {
+            if (error == null) return null;
+
+            String message = error.toString();
+            int newline = message.indexOf('\n');
+            return newline >= 0 ? message.substring(0, newline).strip() : message;
+        }
+
+        public boolean isSucceeded()
+        {
+            return error == null;
+        }
+
+    }
+
+}
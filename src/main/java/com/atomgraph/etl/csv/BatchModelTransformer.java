@@ -0,0 +1,183 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.apache.jena.sparql.modify.TemplateLib;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementBind;
+import org.apache.jena.sparql.syntax.ElementData;
+import org.apache.jena.sparql.syntax.ElementFilter;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementMinus;
+import org.apache.jena.sparql.syntax.ElementOptional;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementTriplesBlock;
+import org.apache.jena.sparql.syntax.ElementUnion;
+
+/**
+ * Transforms a batch of rows with a single query execution.
+ * The batch graph contains the triples of multiple rows, each with its own subject.
+ * The query pattern is evaluated once over the whole batch and the solutions are grouped by row subject,
+ * so that the template is instantiated for each row separately, with the same result as executing the query for each row.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class BatchModelTransformer
+{
+
+    /**
+     * Checks whether rows can be transformed in batches with the given query.
+     * Rows cannot join across each other if every triple pattern in the query is about the same subject variable,
+     * and the top-level group contains at least one such pattern, which binds every solution to a single row subject.
+     *
+     * @param query mapping query
+     * @return true if the query can transform batches
+     */
+    public static boolean isBatchable(Query query)
+    {
+        if (!query.isConstructType() || query.isConstructQuad() || query.hasDatasetDescription() ||
+            query.hasLimit() || query.hasOffset() || query.hasGroupBy() || query.hasHaving() ||
+            query.hasAggregators() || query.hasValues()) return false;
+        if (!(query.getQueryPattern() instanceof ElementGroup group)) return false;
+
+        Var subject = getRowSubject(query);
+        return subject != null && isAbout(group, subject);
+    }
+
+    /**
+     * Returns the row subject variable, which is the subject of the first mandatory triple pattern in the top-level group.
+     *
+     * @param query mapping query
+     * @return subject variable or null
+     */
+    protected static Var getRowSubject(Query query)
+    {
+        if (!(query.getQueryPattern() instanceof ElementGroup group)) return null;
+
+        for (Element element : group.getElements())
+        {
+            if (element instanceof ElementPathBlock pathBlock && !pathBlock.isEmpty())
+                return pathBlock.getPattern().get(0).getSubject().isVariable() ? Var.alloc(pathBlock.getPattern().get(0).getSubject()) : null;
+            if (element instanceof ElementTriplesBlock triplesBlock && !triplesBlock.isEmpty())
+                return triplesBlock.getPattern().get(0).getSubject().isVariable() ? Var.alloc(triplesBlock.getPattern().get(0).getSubject()) : null;
+        }
+
+        return null;
+    }
+
+    private static boolean isAbout(Element element, Var subject)
+    {
+        if (element instanceof ElementGroup group) return group.getElements().stream().allMatch(e -> isAbout(e, subject));
+        if (element instanceof ElementOptional optional) return isAbout(optional.getOptionalElement(), subject);
+        if (element instanceof ElementUnion union) return union.getElements().stream().allMatch(e -> isAbout(e, subject));
+        if (element instanceof ElementMinus minus) return isAbout(minus.getMinusElement(), subject);
+        if (element instanceof ElementFilter filter) return isAbout(filter.getExpr(), subject);
+        if (element instanceof ElementBind bind) return isAbout(bind.getExpr(), subject);
+        if (element instanceof ElementData) return true;
+        if (element instanceof ElementTriplesBlock triplesBlock) return triplesBlock.getPattern().getList().stream().allMatch(t -> subject.equals(t.getSubject()));
+        if (element instanceof ElementPathBlock pathBlock)
+        {
+            for (TriplePath path : pathBlock.getPattern().getList())
+                if (!path.isTriple() || !subject.equals(path.getSubject())) return false;
+            return true;
+        }
+
+        return false; // sub-queries, GRAPH, SERVICE etc.
+    }
+
+    private static boolean isAbout(Expr expr, Var subject)
+    {
+        boolean[] about = { true };
+        Walker.walk(expr, new ExprVisitorBase()
+        {
+
+            @Override
+            public void visit(ExprFunctionOp funcOp)
+            {
+                if (!isAbout(funcOp.getElement(), subject)) about[0] = false; // EXISTS/NOT EXISTS patterns
+            }
+
+        });
+        return about[0];
+    }
+
+    /**
+     * Transforms a batch of rows.
+     *
+     * @param construct batchable mapping query
+     * @param batch graph with the triples of all rows
+     * @param subjects row subjects, in row order
+     * @return transformed RDF of each row, in row order
+     */
+    public List<Model> apply(Query construct, Model batch, List<Node> subjects)
+    {
+        Var subject = getRowSubject(construct);
+        Query select = construct.cloneQuery();
+        select.setQuerySelectType();
+        select.setQueryResultStar(true);
+
+        Map<Node, Model> models = new HashMap<>(subjects.size() * 2);
+        List<Model> results = new ArrayList<>(subjects.size());
+        for (Node node : subjects)
+        {
+            Model model = ModelFactory.createDefaultModel();
+            models.put(node, model);
+            results.add(model);
+        }
+
+        List<Triple> template = construct.getConstructTemplate().getTriples();
+        try (QueryExecution qex = QueryExecution.create(select, batch))
+        {
+            ResultSet resultSet = qex.execSelect();
+            while (resultSet.hasNext())
+            {
+                Binding binding = resultSet.nextBinding();
+                Model model = models.get(binding.get(subject));
+                if (model == null) continue;
+
+                // blank nodes in the template are fresh for each solution, invalid triples are skipped
+                Map<Node, Node> bNodeMap = new HashMap<>();
+                for (Triple triple : template)
+                {
+                    Triple t = TemplateLib.subst(triple, binding, bNodeMap);
+                    if (t.isConcrete() && (t.getSubject().isURI() || t.getSubject().isBlank()) && t.getPredicate().isURI()) model.getGraph().add(t);
+                }
+            }
+        }
+
+        return results;
+    }
+
+}
@@ -16,24 +16,54 @@
  */
 package com.atomgraph.etl.csv;
 
+import com.atomgraph.etl.csv.io.Compression;
+import com.atomgraph.etl.csv.io.ParallelCompressorOutputStream;
+import com.atomgraph.etl.csv.lookup.HashLookupTable;
+import com.atomgraph.etl.csv.lookup.LookupFunction;
+import com.atomgraph.etl.csv.lookup.MappedLookupTable;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import com.atomgraph.etl.csv.metrics.ProgressReporter;
 import com.atomgraph.etl.csv.stream.CSVStreamRDFOutput;
+import com.atomgraph.etl.csv.stream.Checkpoint;
+import com.atomgraph.etl.csv.stream.ChunkedCSVStreamRDFOutput;
+import com.atomgraph.etl.csv.stream.HttpStreamRDF;
+import com.atomgraph.etl.csv.stream.OutputFormat;
+import com.atomgraph.etl.csv.stream.RDFPatchStreamRDF;
+import com.atomgraph.etl.csv.stream.RowStreamRDF;
+import com.atomgraph.etl.csv.stream.ShardedStreamRDF;
+import com.atomgraph.etl.csv.stream.TDB2StreamRDF;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.tdb2.DatabaseMgr;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -58,6 +88,61 @@ public class CSV2RDF
     @Parameters(paramLabel = "base", index = "1", description = "Base URI of the RDF output data\nExample: https://localhost/")
     private URI baseURI;
 
+    @Option(names = { "-i", "--input" }, description = "CSV input file, which is split into chunks that are transformed in parallel (default: stdin). " +
+        "Can be repeated, and can be a directory or a glob pattern (e.g. 'data/*.csv'); multiple files are converted concurrently")
+    private List<String> inputs;
+
+    @Option(names = { "-o", "--output" }, description = "RDF output file (default: stdout). The outputs of multiple input files are merged into it")
+    private Path outputFile;
+
+    @Option(names = { "--output-dir" }, description = "Directory to which the output of each input file is written, named after the input file")
+    private Path outputDir;
+
+    @Option(names = { "--tdb2" }, paramLabel = "dir", description = "TDB2 dataset directory into which the RDF output is bulk loaded, instead of writing it out")
+    private Path tdb2Dir;
+
+    @Option(names = { "--endpoint" }, description = "SPARQL Graph Store Protocol or Update endpoint to which the RDF output is sent in batches, instead of writing it out")
+    private URI endpoint;
+
+    @Option(names = { "--endpoint-protocol" }, description = "Protocol of the --endpoint: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private HttpStreamRDF.Protocol endpointProtocol = HttpStreamRDF.Protocol.GSP;
+
+    @Option(names = { "--endpoint-batch-size" }, description = "Maximum number of triples sent to the --endpoint in a single request (default: ${DEFAULT-VALUE})")
+    private int endpointBatchSize = HttpStreamRDF.DEFAULT_BATCH_SIZE;
+
+    @Option(names = { "--endpoint-max-delay" }, paramLabel = "millis", description = "Maximum time a batch is held before it is sent to the --endpoint (default: ${DEFAULT-VALUE})")
+    private long endpointMaxDelay = HttpStreamRDF.DEFAULT_MAX_DELAY;
+
+    @Option(names = { "--endpoint-max-in-flight" }, description = "Maximum number of concurrent requests to the --endpoint (default: ${DEFAULT-VALUE})")
+    private int endpointMaxInFlight = HttpStreamRDF.DEFAULT_MAX_IN_FLIGHT;
+
+    @Option(names = { "--endpoint-max-retries" }, description = "Number of times a failed request to the --endpoint is retried (default: ${DEFAULT-VALUE})")
+    private int endpointMaxRetries = HttpStreamRDF.DEFAULT_MAX_RETRIES;
+
+    @Option(names = { "--graph" }, description = "Named graph into which the RDF output is loaded with --tdb2 or --endpoint (default: the default graph)")
+    private URI graph;
+
+    @Option(names = { "--shards" }, description = "Number of files in the --output-dir into which the RDF output of all inputs is split and written in parallel, with a manifest.json listing them")
+    private Integer shards;
+
+    @Option(names = { "--shard-by" }, description = "How triples are assigned to --shards: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private ShardedStreamRDF.Mode shardBy = ShardedStreamRDF.Mode.SUBJECT;
+
+    @Option(names = { "--shard-rows" }, description = "Number of consecutive rows written to the same shard with --shard-by ROW_RANGE (default: ${DEFAULT-VALUE})")
+    private int shardRows = ShardedStreamRDF.DEFAULT_RANGE_ROWS;
+
+    @Option(names = { "--parallel-files" }, description = "Number of input files converted concurrently (default: number of processors)")
+    private int parallelFiles = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = { "--input-compression" }, description = "Input compression: ${COMPLETION-CANDIDATES} (default: detected from the --input file extension)")
+    private Compression inputCompression;
+
+    @Option(names = { "--output-compression" }, description = "Output compression: ${COMPLETION-CANDIDATES} (default: detected from the --output file extension)")
+    private Compression outputCompression;
+
+    @Option(names = { "--compression-threads" }, description = "Number of threads that compress the output in parallel (default: number of processors)")
+    private int compressionThreads = Runtime.getRuntime().availableProcessors();
+
     @Option(names = { "-d", "--delimiter" }, description = "Field delimiter character used in the input data (default: ${DEFAULT-VALUE})")
     private char delimiter = DEFAULT_DELIMITER;
 
@@ -67,9 +152,89 @@ public class CSV2RDF
     @Option(names = { "--output-charset" }, description = "Output charset (default: ${DEFAULT-VALUE})")
     private Charset outputCharset = StandardCharsets.UTF_8;
 
+    @Option(names = { "--output-format" }, description = "RDF output format: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private OutputFormat outputFormat = OutputFormat.NTRIPLES;
+
     @Option(names = { "--max-chars-per-column" }, description = "Maximum number of characters allowed for any given value being written/read. Used to avoid OutOfMemoryErrors (default: 4096)")
     private Integer maxCharsPerColumn;
 
+    @Option(names = { "--threads" }, description = "Number of threads that transform rows in parallel (default: ${DEFAULT-VALUE})")
+    private int threads = 1;
+
+    @Option(names = { "--unordered" }, description = "Do not preserve the input row order in the output when transforming in parallel (faster)")
+    private boolean unordered;
+
+    @Option(names = { "--no-compile" }, description = "Evaluate the query using SPARQL for every row, even if it can be compiled into a direct row mapping")
+    private boolean noCompile;
+
+    @Option(names = { "--no-projection" }, description = "Parse all columns, even if the query only references some of them")
+    private boolean noProjection;
+
+    @Option(names = { "--no-distinct" }, description = "Write every triple instantiated by the query, even if a row instantiates it more than once (faster)")
+    private boolean noDistinct;
+
+    @Option(names = { "--batch-size" }, description = "Number of rows transformed with a single query execution, if rows cannot join across each other in the query (default: ${DEFAULT-VALUE})")
+    private int batchSize = 1;
+
+    @Option(names = { "--cache-size" }, description = "Maximum number of cached RDF terms per column and per compiled BIND expression, 0 to disable caching (default: ${DEFAULT-VALUE})")
+    private int cacheSize = 0;
+
+    @Option(names = { "--row-subject" }, description = "How row subjects are minted: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}). ROW_* subjects are numbered, KEY_* subjects are hashed from the --key-columns")
+    private RowSubjects.Strategy rowSubject = RowSubjects.Strategy.BLANK;
+
+    @Option(names = { "--key-columns" }, split = ",", description = "Headers of the columns whose values identify a row, used by the KEY_IRI and KEY_BLANK --row-subject strategies")
+    private List<String> keyColumns;
+
+    @Option(names = { "--dedup" }, description = "Drop duplicate triples using an EXACT set of triple fingerprints, or an approximate BLOOM filter (default: no deduplication)")
+    private FingerprintSet.Mode dedup;
+
+    @Option(names = { "--dedup-memory" }, paramLabel = "MB", description = "Off-heap memory budget of --dedup in megabytes (default: ${DEFAULT-VALUE})")
+    private long dedupMemory = 256;
+
+    @Option(names = { "--dedup-bits" }, description = "Size of the triple fingerprints of an EXACT --dedup: 64 or 128 bits (default: ${DEFAULT-VALUE})")
+    private int dedupBits = 128;
+
+    @Option(names = { "--lookup" }, paramLabel = "name=file", description = "CSV reference table with headers, whose rows are looked up by their first column with the csv2rdf:lookup(name, key[, column]) function in the query. Uses the --delimiter and --input-charset. Can be repeated")
+    private Map<String, Path> lookups;
+
+    @Option(names = { "--lookup-mapped" }, description = "Memory-map the --lookup tables and index their records, instead of loading them onto the heap")
+    private boolean lookupMapped;
+
+    @Option(names = { "--schema" }, description = "CSVW-style JSON schema with column datatypes, which are parsed into typed literals before the transformation")
+    private Path schemaFile;
+
+    @Option(names = { "--reject-policy" }, description = "What happens to rows with values that are invalid for the --schema: ${COMPLETION-CANDIDATES} (default: SKIP with --reject-file, otherwise FAIL)")
+    private ColumnSchema.RejectPolicy rejectPolicy;
+
+    @Option(names = { "--reject-file" }, description = "CSV file to which rows with invalid values are written, with the reason in an additional error column")
+    private Path rejectFile;
+
+    @Option(names = { "--checkpoint" }, paramLabel = "file", description = "File in which the input offset and the output length are periodically recorded, so that the conversion of a single --input file to an --output file can be resumed")
+    private Path checkpointFile;
+
+    @Option(names = { "--checkpoint-interval" }, paramLabel = "seconds", description = "Minimum time between checkpoints (default: ${DEFAULT-VALUE})")
+    private long checkpointInterval = TimeUnit.MILLISECONDS.toSeconds(ChunkedCSVStreamRDFOutput.DEFAULT_CHECKPOINT_INTERVAL);
+
+    @Option(names = { "--resume" }, description = "Resume the conversion from the last --checkpoint, truncating the --output to the checkpoint length")
+    private boolean resume;
+
+    @Option(names = { "--delta-index" }, paramLabel = "file", description = "File with the row index of the previous conversion, which is replaced with the index of this one. Only rows inserted or changed since then are transformed, and the difference is written as an RDF Patch. " +
+        "Rows are identified by the --key-columns, which requires a KEY_IRI or KEY_BLANK --row-subject")
+    private Path deltaIndexFile;
+
+    @Option(names = { "--progress" }, arity = "0..1", fallbackValue = "10", paramLabel = "seconds", description = "Print a progress line with conversion metrics to stderr every N seconds (default: 10 when enabled)")
+    private Integer progressInterval;
+
+    @Option(names = { "--stats-file" }, description = "File to which conversion metrics are written as JSON at the end")
+    private Path statsFile;
+
+    private ColumnSchema schema;
+    private RowSubjects rowSubjects;
+    private boolean numberedInputs; // numbered row subjects include the input file name
+    private FingerprintSet fingerprints;
+    private Checkpoint resumeFrom;
+    private FileChannel outputChannel;
+
     public static void main(String[] args) throws IOException, URISyntaxException
     {
         CSV2RDF csv2rdf = new CSV2RDF(System.in, System.out);
@@ -94,19 +259,442 @@ public class CSV2RDF
     
     public void convert() throws IOException
     {
-        if (csvIn.available() == 0) throw new IllegalStateException("CSV input not provided");
+        List<Path> inputFiles = inputs != null ? BatchConverter.resolve(inputs) : List.of();
+        if (inputs != null && inputFiles.isEmpty()) throw new IllegalStateException("No CSV input files found");
+        if (inputs == null && csvIn.available() == 0) throw new IllegalStateException("CSV input not provided");
         
         byte[] encoded = Files.readAllBytes(queryFile);
         String queryString = new String(encoded, StandardCharsets.UTF_8);
         Query query = QueryFactory.create(queryString, baseURI.toString());
         if (!(query.isConstructType())) throw new IllegalStateException("Only CONSTRUCT queries are supported");
 
-        try (Reader reader =  new BufferedReader(new InputStreamReader(csvIn, inputCharset)))
+        if (rejectFile != null && schemaFile == null) throw new IllegalStateException("--reject-file requires --schema");
+        if (rowSubject.isKeyed() && keyColumns == null) throw new IllegalStateException("--row-subject " + rowSubject + " requires --key-columns");
+        if (rowSubject != RowSubjects.Strategy.BLANK) rowSubjects = new RowSubjects(rowSubject, keyColumns);
+        if (dedup != null) fingerprints = new FingerprintSet(dedup, dedupMemory * 1024 * 1024, dedupBits);
+        if (lookupMapped && lookups == null) throw new IllegalStateException("--lookup-mapped requires --lookup");
+        if (lookupMapped && !ChunkedCSVStreamRDFOutput.isSupported(inputCharset, delimiter)) throw new IllegalStateException("--lookup-mapped requires an ASCII-compatible --input-charset");
+        if (lookups != null)
+            for (Map.Entry<String, Path> lookup : lookups.entrySet())
+                LookupFunction.register(lookup.getKey(), lookupMapped ? new MappedLookupTable(lookup.getValue(), inputCharset, delimiter) : HashLookupTable.read(lookup.getValue(), inputCharset, delimiter));
+        if (graph != null && tdb2Dir == null && endpoint == null) throw new IllegalStateException("--graph requires --tdb2 or --endpoint");
+        if (tdb2Dir != null && endpoint != null) throw new IllegalStateException("--tdb2 cannot be combined with --endpoint");
+        if ((tdb2Dir != null || endpoint != null) && (outputFile != null || outputDir != null)) throw new IllegalStateException("--tdb2 and --endpoint cannot be combined with --output or --output-dir");
+
+        if (shards != null && (shards < 1 || outputDir == null)) throw new IllegalStateException("--shards requires a positive shard count and an --output-dir");
+        if (shards != null && (tdb2Dir != null || endpoint != null)) throw new IllegalStateException("--shards cannot be combined with --tdb2 or --endpoint");
+
+        boolean batch = inputFiles.size() > 1 || outputDir != null;
+        if (batch && outputDir == null && !outputFormat.isConcatenable()) throw new IllegalStateException("Output format " + outputFormat + " cannot be merged, use --output-dir");
+        if (rowSubjects != null && !rowSubject.isKeyed() && inputFiles.size() > 1 && (outputDir == null || shards != null)) // inputs merged into one output
+        {
+            if (inputFiles.stream().map(Path::getFileName).distinct().count() < inputFiles.size()) throw new IllegalStateException("--row-subject " + rowSubject + " requires distinct input file names when inputs are merged into one output");
+            numberedInputs = true;
+        }
+        if (outputCompression == null) outputCompression = outputFile != null ? Compression.fromFile(outputFile) : Compression.NONE;
+        if (resume && checkpointFile == null) throw new IllegalStateException("--resume requires --checkpoint");
+        if (checkpointFile != null)
+        {
+            if (inputFiles.size() != 1 || outputFile == null || outputDir != null) throw new IllegalStateException("--checkpoint requires a single --input file and an --output file");
+            if (!isChunked(inputFiles.get(0))) throw new IllegalStateException("--checkpoint requires an uncompressed input in an ASCII-compatible charset and a concatenable output format");
+            if (unordered || outputCompression != Compression.NONE) throw new IllegalStateException("--checkpoint cannot be combined with --unordered or output compression");
+            if (resume && Files.exists(checkpointFile)) resumeFrom = Checkpoint.read(checkpointFile);
+        }
+        if (deltaIndexFile != null)
         {
-            CSVStreamRDFOutput rdfOutput = new CSVStreamRDFOutput(reader, baseURI.toString(), query, delimiter, maxCharsPerColumn);
-            Writer out = new BufferedWriter(new OutputStreamWriter(rdfOut, outputCharset));
-            rdfOutput.write(out);
+            if (!rowSubject.isKeyed()) throw new IllegalStateException("--delta-index requires a KEY_IRI or KEY_BLANK --row-subject");
+            if (batch) throw new IllegalStateException("--delta-index requires a single input and cannot be combined with --output-dir");
+            if (tdb2Dir != null || endpoint != null) throw new IllegalStateException("--delta-index cannot be combined with --tdb2 or --endpoint");
+            if (dedup != null || checkpointFile != null) throw new IllegalStateException("--delta-index cannot be combined with --dedup or --checkpoint");
         }
+        
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = cacheSize > 0 ? new TermCache(cacheSize, metrics) : null;
+        List<BatchConverter.FileResult> results = null;
+        if (schemaFile != null) schema = ColumnSchema.read(schemaFile);
+        RejectWriter rejects = rejectFile != null ? new RejectWriter(Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) : null;
+        if (schema != null)
+        {
+            schema.setRejectPolicy(rejectPolicy != null ? rejectPolicy : rejects != null ? ColumnSchema.RejectPolicy.SKIP : ColumnSchema.RejectPolicy.FAIL);
+            schema.setRejectHandler(rejects);
+        }
+        
+        try
+        {
+            if (tdb2Dir != null)
+                try (ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    Files.createDirectories(tdb2Dir);
+                    TDB2StreamRDF loader = new TDB2StreamRDF(DatabaseMgr.connectDatasetGraph(tdb2Dir.toString()), getGraphName());
+                    loader.start();
+                    try
+                    {
+                        load(inputFiles, query, metrics, termCache, loader);
+                    }
+                    catch (IOException | RuntimeException ex)
+                    {
+                        loader.abort(ex);
+                        throw ex;
+                    }
+                    loader.finish();
+                }
+            else if (endpoint != null)
+                try (ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    HttpStreamRDF sender = new HttpStreamRDF(HttpClient.newHttpClient(), endpoint, endpointProtocol, getGraphName(), baseURI.resolve(".well-known/genid/").toString());
+                    sender.setBatchSize(endpointBatchSize);
+                    sender.setMaxDelay(endpointMaxDelay);
+                    sender.setMaxInFlight(endpointMaxInFlight);
+                    sender.setMaxRetries(endpointMaxRetries);
+                    sender.start();
+                    load(inputFiles, query, metrics, termCache, sender);
+                    sender.finish();
+                    System.err.println("Sent " + sender.getSentBatches() + " batches with " + sender.getRetries() + " retries");
+                }
+            else if (shards != null)
+                try (ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    Files.createDirectories(outputDir);
+                    List<Path> shardFiles = new ArrayList<>();
+                    List<OutputStream> outputs = new ArrayList<>();
+                    for (int i = 0; i < shards; i++)
+                    {
+                        Path shardFile = outputDir.resolve(String.format("part-%05d", i) + outputFormat.getFileExtension() + outputCompression.getFileExtension());
+                        OutputStream os = Files.newOutputStream(shardFile);
+                        outputs.add(outputCompression != Compression.NONE ? outputCompression.compress(os, Math.max(1, compressionThreads / shards)) : new BufferedOutputStream(os));
+                        shardFiles.add(shardFile);
+                    }
+                    ShardedStreamRDF sharder = new ShardedStreamRDF(outputs, outputFormat, outputCharset, shardBy);
+                    sharder.setRangeRows(shardRows);
+                    sharder.start();
+                    try
+                    {
+                        load(inputFiles, query, metrics, termCache, sharder);
+                    }
+                    catch (IOException | RuntimeException ex)
+                    {
+                        sharder.abort(ex);
+                        throw ex;
+                    }
+                    sharder.finish();
+                    writeManifest(sharder, shardFiles);
+                }
+            else if (deltaIndexFile != null)
+                try (DeltaIndex index = new DeltaIndex(deltaIndexFile, keyColumns, query);
+                    ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    OutputStream out = outputFile != null ? new BufferedOutputStream(Files.newOutputStream(outputFile)) : rdfOut;
+                    try
+                    {
+                        ParallelCompressorOutputStream compressed = outputCompression != Compression.NONE ? outputCompression.compress(out, compressionThreads) : null;
+                        RDFPatchStreamRDF patch = new RDFPatchStreamRDF(compressed != null ? compressed : out, index.getId(), index.getPreviousId());
+                        Path inputFile = inputFiles.isEmpty() ? null : inputFiles.get(0);
+                        InputStream in = getInputCompression(inputFile).decompress(inputFile != null ? Files.newInputStream(inputFile) : csvIn);
+                        try (Reader reader = new BufferedReader(new InputStreamReader(in, inputCharset)))
+                        {
+                            CSVStreamRDFOutput rdfOutput = createOutput(inputFile, reader, query, metrics, termCache);
+                            rdfOutput.setDeltaIndex(index);
+                            rdfOutput.write(patch);
+                        }
+                        
+                        if (compressed != null) compressed.finish();
+                        out.flush();
+                    }
+                    finally
+                    {
+                        if (outputFile != null) out.close();
+                    }
+                    index.commit(); // only once the patch is complete, otherwise the next conversion starts from the previous index again
+                    System.err.println("inserted=" + index.getInsertedCount() + " changed=" + index.getChangedCount() + " unchanged=" + index.getUnchangedCount() + " deleted=" + index.getDeletedCount());
+                }
+            else if (batch && outputDir != null)
+            {
+                Files.createDirectories(outputDir);
+                try (ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    BatchConverter converter = new BatchConverter((input, out) -> convertCompressed(input, query.cloneQuery(), metrics, termCache, out), parallelFiles);
+                    results = converter.convert(inputFiles, this::getOutputFile);
+                }
+            }
+            else
+            {
+                OutputStream out = checkpointFile != null ? openCheckpointedOutput() : outputFile != null ? new BufferedOutputStream(Files.newOutputStream(outputFile)) : rdfOut;
+                try (ProgressReporter progress = progressInterval != null ? new ProgressReporter(metrics, System.err, progressInterval) : null)
+                {
+                    ParallelCompressorOutputStream compressed = outputCompression != Compression.NONE ? outputCompression.compress(out, compressionThreads) : null;
+                    OutputStream target = compressed != null ? compressed : out;
+                    if (batch)
+                    {
+                        BatchConverter converter = new BatchConverter((input, os) -> convert(input, query.cloneQuery(), metrics, termCache, os), parallelFiles);
+                        results = converter.convert(inputFiles, target, outputFormat.getFileExtension());
+                    }
+                    else convert(inputFiles.isEmpty() ? null : inputFiles.get(0), query, metrics, termCache, target);
+                
+                    if (compressed != null) compressed.finish();
+                    out.flush();
+                }
+                finally
+                {
+                    if (outputFile != null) out.close();
+                }
+            }
+        }
+        finally
+        {
+            if (rejects != null) rejects.close();
+        }
+        if (metrics.getRejectedRows() > 0) System.err.println("Rejected " + metrics.getRejectedRows() + " rows with invalid values");
+        if (fingerprints != null)
+        {
+            System.err.println("Dropped " + metrics.getDuplicateTriples() + " duplicate triples");
+            if (fingerprints.getMissed() > 0) System.err.println("The --dedup-memory was exhausted, duplicates of " + fingerprints.getMissed() + " triples may have been kept");
+        }
+        
+        if (results != null)
+        {
+            results.stream().filter(result -> !result.isSucceeded()).forEach(result -> System.err.println("Failed to convert " + result.getInput() + ": " + result.getErrorMessage()));
+            System.err.println(BatchConverter.toSummary(results));
+        }
+        
+        if (statsFile != null)
+            try (OutputStream os = Files.newOutputStream(statsFile))
+            {
+                JsonObject json = metrics.toJSON();
+                if (results != null) json.put("files", BatchConverter.toJSON(results));
+                JSON.write(os, json);
+            }
+        
+        if (results != null && results.stream().anyMatch(result -> !result.isSucceeded())) throw new IllegalStateException("Not all input files could be converted");
+    }
+    
+    /**
+     * Returns the output file of an input file in the output directory.
+     * The CSV and compression extensions of the input are replaced with the output format and compression extensions.
+     * 
+     * @param inputFile input file
+     * @return output file
+     */
+    private Path getOutputFile(Path inputFile)
+    {
+        String name = getInputCompression(inputFile).stripExtension(inputFile.getFileName().toString());
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) name = name.substring(0, dot);
+        return outputDir.resolve(name + outputFormat.getFileExtension() + outputCompression.getFileExtension());
+    }
+    
+    private Compression getInputCompression(Path inputFile)
+    {
+        if (inputCompression != null) return inputCompression;
+        return inputFile != null ? Compression.fromFile(inputFile) : Compression.NONE;
+    }
+    
+    private void convertCompressed(Path inputFile, Query query, ConversionMetrics metrics, TermCache termCache, OutputStream out) throws IOException
+    {
+        if (outputCompression == Compression.NONE)
+        {
+            convert(inputFile, query, metrics, termCache, out);
+            return;
+        }
+        
+        ParallelCompressorOutputStream compressed = outputCompression.compress(out, compressionThreads);
+        try
+        {
+            convert(inputFile, query, metrics, termCache, compressed);
+        }
+        finally
+        {
+            compressed.finish();
+        }
+    }
+    
+    /**
+     * Writes the RDF output of the inputs into a started sink, which is not finished. Input files are read one after another,
+     * rows are transformed in parallel if more than one thread is configured.
+     * 
+     * @param inputFiles input files, or an empty list to read stdin
+     * @param query transformation query
+     * @param metrics conversion metrics
+     * @param termCache term cache, or null
+     * @param sink RDF sink that spans all inputs
+     * @throws IOException if an input cannot be read
+     */
+    private void load(List<Path> inputFiles, Query query, ConversionMetrics metrics, TermCache termCache, StreamRDF sink) throws IOException
+    {
+        StreamRDF stream = new SpanningStreamRDF(sink);
+        for (Path inputFile : inputFiles.isEmpty() ? Collections.<Path>singletonList(null) : inputFiles)
+        {
+            InputStream in = getInputCompression(inputFile).decompress(inputFile != null ? Files.newInputStream(inputFile) : csvIn);
+            try (Reader reader = new BufferedReader(new InputStreamReader(in, inputCharset)))
+            {
+                createOutput(inputFile, reader, query, metrics, termCache).write(stream);
+            }
+        }
+    }
+    
+    /**
+     * Writes the manifest of the shards into the output directory.
+     * 
+     * @param sharder sharded sink that has finished
+     * @param shardFiles shard files
+     * @throws IOException if the manifest cannot be written
+     */
+    private void writeManifest(ShardedStreamRDF sharder, List<Path> shardFiles) throws IOException
+    {
+        JsonObject manifest = new JsonObject();
+        manifest.put("mode", sharder.getMode().toString());
+        if (sharder.getMode() == ShardedStreamRDF.Mode.ROW_RANGE) manifest.put("rangeRows", sharder.getRangeRows());
+        manifest.put("format", outputFormat.getContentType());
+        JsonArray array = new JsonArray();
+        long triples = 0;
+        for (int i = 0; i < shardFiles.size(); i++)
+        {
+            JsonObject shard = new JsonObject();
+            shard.put("file", shardFiles.get(i).getFileName().toString());
+            shard.put("triples", sharder.getTripleCount(i));
+            array.add(shard);
+            triples += sharder.getTripleCount(i);
+        }
+        manifest.put("triples", triples);
+        manifest.put("shards", array);
+        
+        try (OutputStream os = Files.newOutputStream(outputDir.resolve("manifest.json")))
+        {
+            JSON.write(os, manifest);
+        }
+    }
+    
+    /**
+     * Opens the output file for a conversion with checkpoints. When resuming, the output written after the checkpoint is truncated.
+     *
+     * @return output stream
+     * @throws IOException if the output cannot be opened
+     */
+    private OutputStream openCheckpointedOutput() throws IOException
+    {
+        outputChannel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        long length = resumeFrom != null ? resumeFrom.getOutputLength() : 0;
+        if (outputChannel.size() < length)
+        {
+            outputChannel.close();
+            throw new IllegalStateException("Output file is shorter than the checkpoint length " + length);
+        }
+        outputChannel.truncate(length).position(length);
+        return new BufferedOutputStream(Channels.newOutputStream(outputChannel));
+    }
+    
+    /**
+     * Records a checkpoint once the output up to it is durable.
+     * 
+     * @param checkpoint checkpoint
+     * @throws IOException if the output cannot be synced or the checkpoint written
+     */
+    private void checkpoint(Checkpoint checkpoint) throws IOException
+    {
+        outputChannel.force(false);
+        checkpoint.write(checkpointFile);
+    }
+    
+    private boolean isChunked(Path inputFile)
+    {
+        return inputFile != null && getInputCompression(inputFile) == Compression.NONE && ChunkedCSVStreamRDFOutput.isSupported(inputCharset, delimiter) && outputFormat.isConcatenable();
+    }
+    
+    /**
+     * Returns the row subjects of an input. Numbered subjects of inputs that are merged into one output include the input file name,
+     * because row numbers restart in every input.
+     * 
+     * @param inputFile input file, or null for stdin
+     * @return row subjects, or null for fresh blank nodes
+     */
+    private RowSubjects getRowSubjects(Path inputFile)
+    {
+        if (numberedInputs && inputFile != null) return rowSubjects.forInput(inputFile.getFileName().toString());
+        return rowSubjects;
+    }
+    
+    private Node getGraphName()
+    {
+        return graph != null ? NodeFactory.createURI(graph.toString()) : null;
+    }
+    
+    private void convert(Path inputFile, Query query, ConversionMetrics metrics, TermCache termCache, OutputStream out) throws IOException
+    {
+        if (isChunked(inputFile))
+        {
+            ChunkedCSVStreamRDFOutput rdfOutput = new ChunkedCSVStreamRDFOutput(inputFile, inputCharset, baseURI.toString(), query, delimiter, maxCharsPerColumn);
+            rdfOutput.setThreads(threads);
+            rdfOutput.setOrdered(!unordered);
+            rdfOutput.setCompiled(!noCompile);
+            rdfOutput.setProjected(!noProjection);
+            rdfOutput.setDistinct(!noDistinct);
+            rdfOutput.setBatchSize(batchSize);
+            rdfOutput.setMetrics(metrics);
+            rdfOutput.setTermCache(termCache);
+            rdfOutput.setSchema(schema);
+            rdfOutput.setRowSubjects(getRowSubjects(inputFile));
+            rdfOutput.setFingerprints(fingerprints);
+            if (checkpointFile != null)
+            {
+                rdfOutput.setResumeFrom(resumeFrom);
+                rdfOutput.setCheckpointHandler(this::checkpoint);
+                rdfOutput.setCheckpointInterval(TimeUnit.SECONDS.toMillis(checkpointInterval));
+            }
+            rdfOutput.write(out, outputFormat, outputCharset);
+            return;
+        }
+        
+        // compressed input, other charsets and formats are read sequentially
+        InputStream in = getInputCompression(inputFile).decompress(inputFile != null ? Files.newInputStream(inputFile) : csvIn);
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, inputCharset)))
+        {
+            createOutput(inputFile, reader, query, metrics, termCache).write(out, outputFormat, outputCharset);
+        }
+    }
+    
+    private CSVStreamRDFOutput createOutput(Path inputFile, Reader reader, Query query, ConversionMetrics metrics, TermCache termCache)
+    {
+        CSVStreamRDFOutput rdfOutput = new CSVStreamRDFOutput(reader, baseURI.toString(), query, delimiter, maxCharsPerColumn);
+        rdfOutput.setThreads(threads);
+        rdfOutput.setOrdered(!unordered);
+        rdfOutput.setCompiled(!noCompile);
+        rdfOutput.setProjected(!noProjection);
+        rdfOutput.setDistinct(!noDistinct);
+        rdfOutput.setBatchSize(batchSize);
+        rdfOutput.setMetrics(metrics);
+        rdfOutput.setTermCache(termCache);
+        rdfOutput.setSchema(schema);
+        rdfOutput.setRowSubjects(getRowSubjects(inputFile));
+        rdfOutput.setFingerprints(fingerprints);
+        return rdfOutput;
+    }
+    
+    /**
+     * Sink that spans the outputs of several inputs, which therefore do not start or finish it.
+     */
+    private static class SpanningStreamRDF extends StreamRDFWrapper implements RowStreamRDF
+    {
+        
+        SpanningStreamRDF(StreamRDF sink)
+        {
+            super(sink);
+        }
+        
+        @Override
+        public void start()
+        {
+        }
+        
+        @Override
+        public void finish()
+        {
+        }
+        
+        @Override
+        public void row()
+        {
+            RowStreamRDF.row(get());
+        }
+        
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jena.atlas.lib.IRILib;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementBind;
+import org.apache.jena.sparql.syntax.ElementFilter;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementSubQuery;
+import org.apache.jena.sparql.syntax.ElementTriplesBlock;
+import org.apache.jena.sparql.syntax.ElementVisitorBase;
+import org.apache.jena.sparql.syntax.ElementWalker;
+
+/**
+ * Column properties that a <code>CONSTRUCT</code> query references in its <code>WHERE</code> clause, including subqueries and <code>EXISTS</code> patterns.
+ * Only the referenced columns have to be parsed and added to the row graphs, because the query cannot match the other ones.
+ * Queries with variable predicates or property paths can match any column, and are not projected.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ColumnProjection
+{
+
+    private final Set<Node> properties;
+
+    /**
+     * Creates a projection.
+     *
+     * @param properties referenced properties
+     */
+    public ColumnProjection(Set<Node> properties)
+    {
+        this.properties = Set.copyOf(properties);
+    }
+
+    /**
+     * Extracts the projection of a query.
+     *
+     * @param query <code>CONSTRUCT</code> query
+     * @return projection, or null if the query can match any column
+     */
+    public static ColumnProjection of(Query query)
+    {
+        if (!query.isConstructType() || query.getQueryPattern() == null) return null;
+
+        Set<Node> properties = new HashSet<>();
+        return collect(query.getQueryPattern(), properties) ? new ColumnProjection(properties) : null;
+    }
+
+    /**
+     * Collects the predicates of the triple patterns of an element.
+     *
+     * @return false if a predicate is not a constant URI
+     */
+    private static boolean collect(Element element, Set<Node> properties)
+    {
+        boolean[] constant = { true };
+        ElementWalker.walk(element, new ElementVisitorBase()
+        {
+
+            @Override
+            public void visit(ElementTriplesBlock el)
+            {
+                for (Triple triple : el.getPattern()) add(triple.getPredicate());
+            }
+
+            @Override
+            public void visit(ElementPathBlock el)
+            {
+                for (TriplePath path : el.getPattern())
+                    if (path.isTriple()) add(path.getPredicate());
+                    else constant[0] = false;
+            }
+
+            @Override
+            public void visit(ElementFilter el)
+            {
+                walk(el.getExpr());
+            }
+
+            @Override
+            public void visit(ElementBind el)
+            {
+                walk(el.getExpr());
+            }
+
+            @Override
+            public void visit(ElementSubQuery el)
+            {
+                Query subQuery = el.getQuery();
+                if (subQuery.getQueryPattern() != null && !collect(subQuery.getQueryPattern(), properties)) constant[0] = false;
+            }
+
+            private void add(Node predicate)
+            {
+                if (predicate.isURI()) properties.add(predicate);
+                else constant[0] = false;
+            }
+
+            private void walk(Expr expr)
+            {
+                Walker.walk(expr, new ExprVisitorBase()
+                {
+
+                    @Override
+                    public void visit(ExprFunctionOp funcOp)
+                    {
+                        if (funcOp.getElement() != null && !collect(funcOp.getElement(), properties)) constant[0] = false; // EXISTS/NOT EXISTS
+                    }
+
+                });
+            }
+
+        });
+        return constant[0];
+    }
+
+    /**
+     * Returns true if a column property is referenced.
+     *
+     * @param property column property
+     * @return true if referenced
+     */
+    public boolean contains(Node property)
+    {
+        return properties.contains(property);
+    }
+
+    /**
+     * Returns the headers of the referenced columns, i.e. the decoded fragments of the referenced properties in the base namespace.
+     *
+     * @param base base URI of the column properties
+     * @return column headers
+     */
+    public List<String> getHeaders(String base)
+    {
+        String namespace = base + "#";
+        List<String> headers = new ArrayList<>();
+        for (Node property : properties)
+            if (property.getURI().startsWith(namespace)) headers.add(IRILib.decodeHex(property.getURI().substring(namespace.length())));
+        return headers;
+    }
+
+    public Set<Node> getProperties()
+    {
+        return properties;
+    }
+
+}
@@ -0,0 +1,459 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.atlas.json.JsonValue;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * Datatypes of CSV columns, so that cells are parsed once into typed literals before the query runs, instead of being cast in the query for every row.
+ * The schema is read from a <a href="https://www.w3.org/TR/tabular-metadata/">CSVW</a>-style JSON document whose columns declare a <code>datatype</code>
+ * and are matched to the CSV headers by their <code>titles</code> or <code>name</code>. Columns without a datatype remain plain string literals.
+ * <p>
+ * Cells are validated by specialized parsers that scan the lexical form without allocating.
+ * A row with an invalid value fails the conversion, is skipped, or keeps the invalid value as a string literal, depending on the {@link RejectPolicy}.
+ * Rejected rows are passed to the {@link RejectHandler}.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ColumnSchema
+{
+
+    /**
+     * Supported column datatypes.
+     */
+    public enum Datatype
+    {
+
+        STRING(XSDDatatype.XSDstring),
+        INTEGER(XSDDatatype.XSDinteger),
+        INT(XSDDatatype.XSDint),
+        LONG(XSDDatatype.XSDlong),
+        DECIMAL(XSDDatatype.XSDdecimal),
+        DOUBLE(XSDDatatype.XSDdouble),
+        BOOLEAN(XSDDatatype.XSDboolean),
+        DATE(XSDDatatype.XSDdate);
+
+        private final RDFDatatype rdfDatatype;
+
+        Datatype(RDFDatatype rdfDatatype)
+        {
+            this.rdfDatatype = rdfDatatype;
+        }
+
+        /**
+         * Returns the datatype of a CSVW datatype name or XSD datatype URI.
+         *
+         * @param name datatype name, e.g. <code>integer</code> or <code>http://www.w3.org/2001/XMLSchema#integer</code>
+         * @return datatype
+         * @throws IllegalArgumentException if the datatype is not supported
+         */
+        public static Datatype fromName(String name)
+        {
+            String localName = name.startsWith(XSDDatatype.XSD + "#") ? name.substring(XSDDatatype.XSD.length() + 1) : name;
+            for (Datatype datatype : values())
+                if (datatype.rdfDatatype.getURI().equals(XSDDatatype.XSD + "#" + localName)) return datatype;
+
+            throw new IllegalArgumentException("Unsupported column datatype: " + name);
+        }
+
+        /**
+         * Returns the typed literal of a cell.
+         *
+         * @param value cell value
+         * @return literal, or null if the value is not valid for this datatype
+         */
+        public Node parse(String value)
+        {
+            return isValid(value) ? NodeFactory.createLiteralDT(value, rdfDatatype) : null;
+        }
+
+        /**
+         * Validates the lexical form of a value.
+         *
+         * @param value cell value
+         * @return true if the value is valid
+         */
+        public boolean isValid(String value)
+        {
+            return switch (this)
+            {
+                case STRING -> true;
+                case INTEGER -> isInteger(value, 0, value.length(), 0);
+                case INT -> isInteger(value, 0, value.length(), 10) && isInRange(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                case LONG -> isInteger(value, 0, value.length(), 19) && isInRange(value, Long.MIN_VALUE, Long.MAX_VALUE);
+                case DECIMAL -> isDecimal(value, 0, value.length());
+                case DOUBLE -> isDouble(value);
+                case BOOLEAN -> value.equals("true") || value.equals("false") || value.equals("1") || value.equals("0");
+                case DATE -> isDate(value);
+            };
+        }
+
+        public RDFDatatype getRDFDatatype()
+        {
+            return rdfDatatype;
+        }
+
+    }
+
+    /**
+     * What happens to rows with invalid values.
+     */
+    public enum RejectPolicy
+    {
+
+        /** the conversion fails */
+        FAIL,
+        /** the row is skipped */
+        SKIP,
+        /** invalid values become string literals */
+        STRING
+
+    }
+
+    /**
+     * Receives rejected rows. Can be called by multiple threads.
+     */
+    @FunctionalInterface
+    public interface RejectHandler
+    {
+
+        /**
+         * Handles a row with an invalid value.
+         *
+         * @param headers CSV headers
+         * @param row row values
+         * @param column index of the first invalid column
+         * @param message reason of the rejection
+         */
+        void reject(String[] headers, String[] row, int column, String message);
+
+    }
+
+    private final Map<String, Datatype> datatypes;
+    private RejectPolicy rejectPolicy = RejectPolicy.FAIL;
+    private RejectHandler rejectHandler;
+
+    /**
+     * Creates a schema.
+     *
+     * @param datatypes column datatypes by header
+     */
+    public ColumnSchema(Map<String, Datatype> datatypes)
+    {
+        this.datatypes = Map.copyOf(datatypes);
+    }
+
+    /**
+     * Reads a CSVW-style JSON schema. The columns are read from <code>tableSchema.columns</code>, or from <code>columns</code> at the top level.
+     * A datatype is either a name or an object with a <code>base</code> name.
+     *
+     * @param file JSON file
+     * @return schema
+     * @throws IOException if the file cannot be read
+     */
+    public static ColumnSchema read(Path file) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a CSVW-style JSON schema.
+     *
+     * @param in JSON input
+     * @return schema
+     * @see #read(java.nio.file.Path)
+     */
+    public static ColumnSchema read(InputStream in)
+    {
+        JsonObject json = JSON.parse(in);
+        JsonObject tableSchema = json.hasKey("tableSchema") ? json.get("tableSchema").getAsObject() : json;
+        if (!tableSchema.hasKey("columns")) throw new IllegalArgumentException("Schema does not contain columns");
+
+        Map<String, Datatype> datatypes = new HashMap<>();
+        for (JsonValue value : tableSchema.get("columns").getAsArray())
+        {
+            JsonObject column = value.getAsObject();
+            if (!column.hasKey("datatype")) continue;
+
+            JsonValue datatypeValue = column.get("datatype");
+            String datatypeName = datatypeValue.isObject() ? datatypeValue.getAsObject().getString("base") : datatypeValue.getAsString().value();
+            Datatype datatype = Datatype.fromName(datatypeName);
+
+            List<String> titles = getTitles(column);
+            if (titles.isEmpty()) throw new IllegalArgumentException("Schema column does not have titles or a name");
+            for (String title : titles) datatypes.put(title, datatype);
+        }
+        return new ColumnSchema(datatypes);
+    }
+
+    private static List<String> getTitles(JsonObject column)
+    {
+        List<String> titles = new ArrayList<>();
+        if (column.hasKey("titles"))
+        {
+            JsonValue value = column.get("titles");
+            if (value.isArray()) for (JsonValue title : (JsonArray)value) titles.add(title.getAsString().value());
+            else titles.add(value.getAsString().value());
+        }
+        if (column.hasKey("name")) titles.add(column.getString("name"));
+        return titles;
+    }
+
+    /**
+     * Returns the datatypes of the columns of a header array.
+     *
+     * @param headers CSV headers
+     * @return datatype of each column (null for strings), or null if no column is typed
+     */
+    public Datatype[] resolve(String[] headers)
+    {
+        Datatype[] resolved = new Datatype[headers.length];
+        boolean typed = false;
+        for (int i = 0; i < headers.length; i++)
+            if (headers[i] != null)
+            {
+                Datatype datatype = datatypes.get(headers[i]);
+                if (datatype != null && datatype != Datatype.STRING)
+                {
+                    resolved[i] = datatype;
+                    typed = true;
+                }
+            }
+
+        return typed ? resolved : null;
+    }
+
+    /**
+     * Parses the typed cells of a row.
+     *
+     * @param headers CSV headers
+     * @param columnTypes column datatypes, as returned by {@link #resolve(java.lang.String[])}
+     * @param row row values
+     * @return typed literals (null for string and empty cells), or null if the row is skipped
+     * @throws IllegalArgumentException if a value is invalid and the reject policy is {@link RejectPolicy#FAIL}
+     */
+    public Node[] parse(String[] headers, Datatype[] columnTypes, String[] row)
+    {
+        Node[] cells = new Node[columnTypes.length];
+        for (int i = 0; i < columnTypes.length && i < row.length; i++)
+            if (columnTypes[i] != null && row[i] != null)
+            {
+                cells[i] = columnTypes[i].parse(row[i]);
+                if (cells[i] == null && !reject(headers, row, i, columnTypes[i])) return null;
+            }
+
+        return cells;
+    }
+
+    /**
+     * Rejects a row.
+     *
+     * @return true if the row is kept
+     */
+    private boolean reject(String[] headers, String[] row, int column, Datatype datatype)
+    {
+        String message = "Invalid " + datatype.name().toLowerCase(Locale.ROOT) + " value in column '" + headers[column] + "': " + row[column];
+        if (getRejectPolicy() == RejectPolicy.FAIL) throw new IllegalArgumentException(message);
+
+        if (getRejectHandler() != null) getRejectHandler().reject(headers, row, column, message);
+        return getRejectPolicy() == RejectPolicy.STRING;
+    }
+
+    /**
+     * Validates an integer in the range of the value between the start and end indexes.
+     *
+     * @param maxDigits maximum number of significant digits, or 0 for any number
+     */
+    private static boolean isInteger(String value, int start, int end, int maxDigits)
+    {
+        int i = start;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) i++;
+        if (i == end) return false;
+
+        int digits = 0;
+        for (; i < end; i++)
+        {
+            char c = value.charAt(i);
+            if (!isDigit(c)) return false;
+            if (digits > 0 || c != '0') digits++; // leading zeros do not count
+        }
+        return maxDigits == 0 || digits <= maxDigits;
+    }
+
+    private static boolean isInRange(String value, long min, long max)
+    {
+        try
+        {
+            long number = Long.parseLong(value, value.charAt(0) == '+' ? 1 : 0, value.length(), 10);
+            return number >= min && number <= max;
+        }
+        catch (NumberFormatException ex)
+        {
+            return false; // out of the long range
+        }
+    }
+
+    private static boolean isDecimal(String value, int start, int end)
+    {
+        int i = start, digits = 0;
+        if (i < end && (value.charAt(i) == '+' || value.charAt(i) == '-')) i++;
+
+        boolean point = false;
+        for (; i < end; i++)
+        {
+            char c = value.charAt(i);
+            if (isDigit(c)) digits++;
+            else if (c == '.' && !point) point = true;
+            else return false;
+        }
+        return digits > 0;
+    }
+
+    private static boolean isDouble(String value)
+    {
+        if (value.equals("INF") || value.equals("+INF") || value.equals("-INF") || value.equals("NaN")) return true;
+
+        int exponent = Math.max(value.indexOf('e'), value.indexOf('E'));
+        if (exponent < 0) return isDecimal(value, 0, value.length());
+        return isDecimal(value, 0, exponent) && isInteger(value, exponent + 1, value.length(), 0);
+    }
+
+    /**
+     * Validates a date in the <code>YYYY-MM-DD</code> format, with an optional timezone.
+     */
+    private static boolean isDate(String value)
+    {
+        int length = value.length(), i = 0;
+        if (length > 0 && value.charAt(0) == '-') i++; // BCE year
+        int yearStart = i;
+        while (i < length && isDigit(value.charAt(i))) i++;
+        int yearDigits = i - yearStart;
+        if (yearDigits < 4 || (yearDigits > 4 && value.charAt(yearStart) == '0')) return false;
+        if (length < i + 6 || value.charAt(i) != '-' || value.charAt(i + 3) != '-') return false;
+        if (!isDigit(value.charAt(i + 1)) || !isDigit(value.charAt(i + 2)) || !isDigit(value.charAt(i + 4)) || !isDigit(value.charAt(i + 5))) return false;
+
+        int month = (value.charAt(i + 1) - '0') * 10 + (value.charAt(i + 2) - '0');
+        int day = (value.charAt(i + 4) - '0') * 10 + (value.charAt(i + 5) - '0');
+        if (month < 1 || month > 12 || day < 1 || day > getMonthLength(value, yearStart, i, month)) return false;
+
+        return isTimezone(value, i + 6);
+    }
+
+    private static int getMonthLength(String value, int yearStart, int yearEnd, int month)
+    {
+        if (month != 2) return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+
+        // only the last four digits of the year decide whether it is a leap year
+        int year = Integer.parseInt(value, Math.max(yearStart, yearEnd - 4), yearEnd, 10);
+        boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        return leap ? 29 : 28;
+    }
+
+    private static boolean isTimezone(String value, int start)
+    {
+        int length = value.length();
+        if (start == length) return true;
+        if (value.charAt(start) == 'Z') return start + 1 == length;
+        if (length != start + 6 || (value.charAt(start) != '+' && value.charAt(start) != '-') || value.charAt(start + 3) != ':') return false;
+        if (!isDigit(value.charAt(start + 1)) || !isDigit(value.charAt(start + 2)) || !isDigit(value.charAt(start + 4)) || !isDigit(value.charAt(start + 5))) return false;
+
+        int hours = (value.charAt(start + 1) - '0') * 10 + (value.charAt(start + 2) - '0');
+        int minutes = (value.charAt(start + 4) - '0') * 10 + (value.charAt(start + 5) - '0');
+        return minutes < 60 && (hours < 14 || (hours == 14 && minutes == 0));
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Returns the datatype of a column.
+     *
+     * @param header column header
+     * @return datatype, or null if the column is not typed
+     */
+    public Datatype getDatatype(String header)
+    {
+        return datatypes.get(header);
+    }
+
+    /**
+     * Returns the headers of the columns that are parsed into typed literals.
+     *
+     * @return column headers
+     */
+    public Set<String> getTypedHeaders()
+    {
+        Set<String> headers = new HashSet<>();
+        for (Map.Entry<String, Datatype> datatype : datatypes.entrySet())
+            if (datatype.getValue() != Datatype.STRING) headers.add(datatype.getKey());
+        return headers;
+    }
+
+    public RejectPolicy getRejectPolicy()
+    {
+        return rejectPolicy;
+    }
+
+    /**
+     * Sets what happens to rows with invalid values.
+     *
+     * @param rejectPolicy reject policy, {@link RejectPolicy#FAIL} by default
+     */
+    public void setRejectPolicy(RejectPolicy rejectPolicy)
+    {
+        this.rejectPolicy = rejectPolicy;
+    }
+
+    public RejectHandler getRejectHandler()
+    {
+        return rejectHandler;
+    }
+
+    /**
+     * Sets the handler of rows with invalid values, unless the reject policy is {@link RejectPolicy#FAIL}.
+     *
+     * @param rejectHandler reject handler, or null
+     */
+    public void setRejectHandler(RejectHandler rejectHandler)
+    {
+        this.rejectHandler = rejectHandler;
+    }
+
+}
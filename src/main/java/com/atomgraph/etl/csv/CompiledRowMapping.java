@@ -0,0 +1,403 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.atomgraph.etl.csv.lookup.LookupFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.Query;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingBuilder;
+import org.apache.jena.sparql.expr.E_Call;
+import org.apache.jena.sparql.expr.E_Function;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.ExprFunction0;
+import org.apache.jena.sparql.expr.ExprFunction1;
+import org.apache.jena.sparql.expr.ExprFunctionN;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.apache.jena.sparql.expr.Unstable;
+import org.apache.jena.sparql.function.FunctionEnv;
+import org.apache.jena.sparql.function.FunctionEnvBase;
+import org.apache.jena.sparql.modify.TemplateLib;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementBind;
+import org.apache.jena.sparql.syntax.ElementFilter;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementTriplesBlock;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.vocabulary.XSD;
+
+/**
+ * Row transformation compiled from a <code>CONSTRUCT</code> query, without SPARQL evaluation per row.
+ * Supports queries whose <code>WHERE</code> clause is a flat group of triple patterns about a single row subject,
+ * with constant column properties, and of <code>BIND</code>s and <code>FILTER</code>s over their variables.
+ * Cell values are bound straight to the pattern variables, the expressions are evaluated in order and the template is instantiated.
+ * Results of deterministic <code>BIND</code> expressions can be cached, keyed on the values of the variables they mention.
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class CompiledRowMapping
+{
+
+    private final List<Object> steps; // Triple patterns and Binds, in query order
+    private final List<Triple> patterns;
+    private final List<Expr> filters;
+    private final List<Triple> template;
+    private final Var subject;
+    private final Context context;
+
+    protected CompiledRowMapping(List<Object> steps, List<Triple> patterns, List<Expr> filters, List<Triple> template, Var subject, Context context)
+    {
+        this.steps = steps;
+        this.patterns = patterns;
+        this.filters = filters;
+        this.template = template;
+        this.subject = subject;
+        this.context = context;
+    }
+
+    /**
+     * Compiles a <code>CONSTRUCT</code> query into a row mapping.
+     *
+     * @param query mapping query
+     * @return compiled mapping, or null if the query is outside the supported subset
+     */
+    public static CompiledRowMapping compile(Query query)
+    {
+        if (!query.isConstructType() || query.isConstructQuad() || query.hasDatasetDescription() ||
+            query.hasLimit() || query.hasOffset() || query.hasOrderBy() || query.hasGroupBy() ||
+            query.hasHaving() || query.hasAggregators() || query.hasValues()) return null;
+        if (!(query.getQueryPattern() instanceof ElementGroup group)) return null;
+
+        Context context = ARQ.getContext().copy();
+        Context.setCurrentDateTime(context); // NOW() is the same for all rows
+
+        List<Object> steps = new ArrayList<>();
+        List<Triple> patterns = new ArrayList<>();
+        List<Expr> filters = new ArrayList<>();
+        Var subject = null;
+
+        for (Element element : group.getElements())
+        {
+            List<Triple> triples = new ArrayList<>();
+            if (element instanceof ElementPathBlock pathBlock)
+            {
+                for (TriplePath path : pathBlock.getPattern().getList())
+                {
+                    if (!path.isTriple()) return null;
+                    triples.add(path.asTriple());
+                }
+            }
+            else if (element instanceof ElementTriplesBlock triplesBlock) triples.addAll(triplesBlock.getPattern().getList());
+            else if (element instanceof ElementBind bind)
+            {
+                if (!isSupported(bind.getExpr(), context)) return null;
+                int index = (int)steps.stream().filter(Bind.class::isInstance).count();
+                List<Var> key = isDeterministic(bind.getExpr()) ? new ArrayList<>(bind.getExpr().getVarsMentioned()) : null;
+                steps.add(new Bind(bind.getVar(), bind.getExpr(), index, key));
+            }
+            else if (element instanceof ElementFilter filter)
+            {
+                if (!isSupported(filter.getExpr(), context)) return null;
+                filters.add(filter.getExpr());
+            }
+            else return null;
+
+            for (Triple triple : triples)
+            {
+                // every pattern has to be about the same row subject, using a constant column property
+                if (!triple.getSubject().isVariable() || !triple.getPredicate().isURI()) return null;
+                if (subject == null) subject = Var.alloc(triple.getSubject());
+                if (!subject.equals(triple.getSubject()) || subject.equals(triple.getObject())) return null;
+
+                steps.add(triple);
+                patterns.add(triple);
+            }
+        }
+
+        return new CompiledRowMapping(steps, patterns, filters, query.getConstructTemplate().getTriples(), subject, context);
+    }
+
+    /**
+     * Checks that the expression can be evaluated without a graph, and binds its functions upfront so that evaluation does not modify it.
+     *
+     * @param expr expression
+     * @param context function context
+     * @return true if supported
+     */
+    private static boolean isSupported(Expr expr, Context context)
+    {
+        boolean[] supported = { true };
+        Walker.walk(expr, new ExprVisitorBase()
+        {
+
+            @Override
+            public void visit(ExprFunctionOp funcOp)
+            {
+                supported[0] = false; // EXISTS/NOT EXISTS need the row graph
+            }
+
+            @Override
+            public void visit(ExprFunctionN func)
+            {
+                if (func instanceof E_Function function) function.buildFunction(context);
+            }
+
+        });
+        return supported[0];
+    }
+
+    /**
+     * Checks that the expression always returns the same result for the same variable values,
+     * i.e. it does not create blank nodes or random values and does not call extension functions other than XSD casts and lookups.
+     *
+     * @param expr expression
+     * @return true if results can be cached
+     */
+    private static boolean isDeterministic(Expr expr)
+    {
+        boolean[] deterministic = { true };
+        Walker.walk(expr, new ExprVisitorBase()
+        {
+
+            @Override
+            public void visit(ExprFunction0 func)
+            {
+                if (func instanceof Unstable) deterministic[0] = false; // RAND(), UUID(), STRUUID(), BNODE()
+            }
+
+            @Override
+            public void visit(ExprFunction1 func)
+            {
+                if (func instanceof Unstable) deterministic[0] = false; // BNODE(str)
+            }
+
+            @Override
+            public void visit(ExprFunctionN func)
+            {
+                if (func instanceof E_Function function && function.getFunctionIRI().startsWith(XSD.getURI())) return; // casts
+                if (func instanceof E_Function function && function.getFunctionIRI().equals(LookupFunction.URI)) return; // lookup tables are read-only
+                if (func instanceof E_Function || func instanceof E_Call) deterministic[0] = false; // extension functions can have side effects
+            }
+
+        });
+        return deterministic[0];
+    }
+
+    /**
+     * Resolves the column of each triple pattern.
+     *
+     * @param properties column properties, as used in the row graph (null for columns without header)
+     * @return column index of each pattern (-1 if the property is not a column), or null if a pattern property matches more than one column
+     */
+    public int[] resolve(Node[] properties)
+    {
+        int[] columns = new int[patterns.size()];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = -1;
+            for (int j = 0; j < properties.length; j++)
+                if (patterns.get(i).getPredicate().equals(properties[j]))
+                {
+                    if (columns[i] != -1) return null; // duplicate column properties produce multiple solutions
+                    columns[i] = j;
+                }
+        }
+        return columns;
+    }
+
+    /**
+     * Transforms a row.
+     *
+     * @param subject row subject
+     * @param columns pattern columns, as returned by {@link #resolve(org.apache.jena.graph.Node[])}
+     * @param row row values
+     * @return transformed RDF
+     */
+    public Model apply(Node subject, int[] columns, String[] row)
+    {
+        return apply(subject, columns, row, null);
+    }
+
+    /**
+     * Transforms a row, reusing cached cell literals and expression results.
+     *
+     * @param subject row subject
+     * @param columns pattern columns, as returned by {@link #resolve(org.apache.jena.graph.Node[])}
+     * @param row row values
+     * @param termCache term cache, or null
+     * @return transformed RDF
+     */
+    public Model apply(Node subject, int[] columns, String[] row, TermCache termCache)
+    {
+        return apply(subject, columns, row, null, termCache);
+    }
+
+    /**
+     * Transforms a row whose typed cells have already been parsed.
+     *
+     * @param subject row subject
+     * @param columns pattern columns, as returned by {@link #resolve(org.apache.jena.graph.Node[])}
+     * @param row row values
+     * @param cells typed literals (null for string cells), or null if the row has no typed cells
+     * @param termCache term cache, or null
+     * @return transformed RDF
+     * @see ColumnSchema
+     */
+    public Model apply(Node subject, int[] columns, String[] row, Node[] cells, TermCache termCache)
+    {
+        Model model = ModelFactory.createDefaultModel();
+        apply(subject, columns, row, cells, termCache, StreamRDFLib.graph(model.getGraph()));
+        return model;
+    }
+
+    /**
+     * Transforms a row and sends the triples to a stream, without building a result model.
+     *
+     * @param subject row subject
+     * @param columns pattern columns, as returned by {@link #resolve(org.apache.jena.graph.Node[])}
+     * @param row row values
+     * @param cells typed literals (null for string cells), or null if the row has no typed cells
+     * @param termCache term cache, or null
+     * @param stream stream that receives the triples
+     */
+    public void apply(Node subject, int[] columns, String[] row, Node[] cells, TermCache termCache, StreamRDF stream)
+    {
+        Binding binding = bind(subject, columns, row, cells, termCache);
+        if (binding != null) construct(binding, stream);
+    }
+
+    /**
+     * Evaluates the <code>WHERE</code> clause for a row.
+     *
+     * @param rowSubject row subject
+     * @param columns pattern columns
+     * @param row row values
+     * @param cells typed literals, or null
+     * @param termCache term cache, or null
+     * @return solution, or null if the row does not match
+     */
+    protected Binding bind(Node rowSubject, int[] columns, String[] row, Node[] cells, TermCache termCache)
+    {
+        FunctionEnv env = new FunctionEnvBase(context);
+        BindingBuilder builder = BindingBuilder.create();
+        if (subject != null) builder.add(subject, rowSubject);
+
+        int patternNo = 0;
+        for (Object step : steps)
+        {
+            if (step instanceof Triple pattern)
+            {
+                int column = columns[patternNo++];
+                String cell = column >= 0 && column < row.length ? row[column] : null;
+                if (cell == null) return null;
+
+                Node value;
+                if (cells != null && cells[column] != null) value = cells[column];
+                else value = termCache != null ? termCache.getLiteral(column, cell) : NodeFactory.createLiteralString(cell);
+                Node object = pattern.getObject();
+                if (object.isVariable())
+                {
+                    Node bound = builder.get(Var.alloc(object));
+                    if (bound == null) builder.add(Var.alloc(object), value);
+                    else if (!bound.equals(value)) return null;
+                }
+                else if (!object.equals(value)) return null;
+            }
+            else
+            {
+                Bind bind = (Bind)step;
+                try
+                {
+                    Binding current = builder.snapshot();
+                    Node value;
+                    if (termCache != null && bind.key() != null)
+                    {
+                        Node[] key = new Node[bind.key().size()];
+                        for (int i = 0; i < key.length; i++) key[i] = current.get(bind.key().get(i));
+                        value = termCache.getValue(bind.index(), Arrays.asList(key), k -> bind.expr().eval(current, env).asNode());
+                    }
+                    else value = bind.expr().eval(current, env).asNode();
+                    builder.add(bind.var(), value);
+                }
+                catch (ExprEvalException ex)
+                {
+                    // evaluation errors leave the variable unbound
+                }
+            }
+        }
+
+        Binding binding = builder.build();
+        for (Expr filter : filters)
+        {
+            try
+            {
+                if (!filter.isSatisfied(binding, env)) return null;
+            }
+            catch (ExprEvalException ex)
+            {
+                return null;
+            }
+        }
+        return binding;
+    }
+
+    /**
+     * Instantiates the template with a solution. Blank nodes in the template are fresh for each solution, invalid triples are skipped.
+     *
+     * @param binding solution
+     * @param stream stream the triples are sent to
+     */
+    protected void construct(Binding binding, StreamRDF stream)
+    {
+        Map<Node, Node> bNodeMap = new HashMap<>();
+        for (Triple triple : template)
+        {
+            Triple t = TemplateLib.subst(triple, binding, bNodeMap);
+            if (t.isConcrete() && (t.getSubject().isURI() || t.getSubject().isBlank()) && t.getPredicate().isURI()) stream.triple(t);
+        }
+    }
+
+    /**
+     * <code>BIND</code> step.
+     *
+     * @param var bound variable
+     * @param expr expression
+     * @param index expression index in the term cache
+     * @param key variables whose values key the cached results, or null if the expression is not deterministic
+     */
+    private record Bind(Var var, Expr expr, int index, List<Var> key) {}
+
+}
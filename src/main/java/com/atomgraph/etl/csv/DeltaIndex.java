@@ -0,0 +1,586 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.apache.jena.query.Query;
+
+/**
+ * On-disk index of the rows of the previous conversion, used to convert only the rows that have changed since then.
+ * Rows are identified by the fingerprint of their key column values and compared by the fingerprint of all their values.
+ * The values of every row are stored as well, so that the triples of changed and deleted rows can be transformed again in order to remove them.
+ * The index also counts the rows that produce each triple, by its fingerprint, so that a triple is only removed when no row produces it anymore.
+ * <p>
+ * The previous index is read into arrays of fingerprints and file offsets; the values are only read back for rows that have changed or were deleted.
+ * The triple counts and the keys of the current conversion are kept in memory as well.
+ * The index of the current conversion is written to a temporary file, which replaces the previous index when it is committed.
+ * The index is only valid for the query it was created with, and for the same headers and key columns.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class DeltaIndex implements Closeable
+{
+
+    private static final int MAGIC = 0x43535644, VERSION = 1;
+    private static final int RECORD_HEADER = Long.BYTES * 3; // key fingerprint and row hash before the values
+    private static final int MIN_SIZE = Integer.BYTES * 2 + Long.BYTES * 2; // magic, version, triple count and row count
+    private static final int MAX_ROWS = 1 << 29; // the row table is at most half full and its capacity fits in an int
+
+    /**
+     * Status of a row compared with the previous conversion.
+     */
+    public enum Status
+    {
+        /** Key was not in the previous conversion */
+        INSERTED,
+        /** Key was in the previous conversion with different values */
+        CHANGED,
+        /** Key was in the previous conversion with the same values */
+        UNCHANGED
+    }
+
+    /**
+     * Change of a row.
+     *
+     * @param status status
+     * @param previousRow values of the row in the previous conversion, if it has changed
+     */
+    public record Change(Status status, String[] previousRow)
+    {
+    }
+
+    private static final Change INSERTED = new Change(Status.INSERTED, null), UNCHANGED = new Change(Status.UNCHANGED, null);
+
+    private final Path file, temp;
+    private final List<String> keyColumns;
+    private final Fingerprint queryFingerprint;
+    private final String id = "uuid:" + UUID.randomUUID();
+    private String previousId;
+    private String[] previousHeaders;
+    private FileChannel previous;
+    private long[] keyHighs, keyLows, rowHashes, offsets; // open-addressing table of the previous rows, offsets are shifted by one so that 0 is an empty slot
+    private BitSet seen;
+    private int[] keys;
+    private final FingerprintTable currentKeys = new FingerprintTable(), tripleCounts = new FingerprintTable();
+    private DataOutputStream writer;
+    private long records, inserted, changed, unchanged, deleted;
+    private boolean unique = true, committed;
+
+    /**
+     * Opens an index. The previous index is read if the file exists.
+     *
+     * @param file index file
+     * @param keyColumns headers of the columns that identify a row
+     * @param query query that transforms the rows
+     * @throws IOException if the previous index cannot be read
+     * @throws IllegalStateException if the previous index was created with other key columns or another query
+     */
+    public DeltaIndex(Path file, List<String> keyColumns, Query query) throws IOException
+    {
+        if (keyColumns == null || keyColumns.isEmpty()) throw new IllegalArgumentException("Delta index requires key columns");
+        this.file = file;
+        this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+        this.keyColumns = List.copyOf(keyColumns);
+        this.queryFingerprint = Fingerprint.of(query.toString());
+        if (Files.exists(file)) read();
+    }
+
+    private void read() throws IOException
+    {
+        previous = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            if (previous.size() < MIN_SIZE) throw new IOException("Invalid delta index file: " + file);
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            previous.read(trailer, previous.size() - Long.BYTES);
+            long count = trailer.flip().getLong();
+            if (count < 0) throw new IOException("Invalid delta index file: " + file);
+            if (count > MAX_ROWS) throw new IOException("Too many rows in delta index file: " + file);
+
+            int capacity = Integer.highestOneBit((int)Math.max(count * 2, 8) - 1) << 1; // a power of two at most half full
+            keyHighs = new long[capacity];
+            keyLows = new long[capacity];
+            rowHashes = new long[capacity];
+            offsets = new long[capacity];
+            seen = new BitSet(capacity);
+
+            CountingInput in = new CountingInput(Channels.newInputStream(previous.position(0)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Invalid delta index file: " + file);
+            previousId = in.readString();
+            Fingerprint previousQuery = new Fingerprint(in.readLong(), in.readLong());
+            List<String> previousKeyColumns = Arrays.asList(in.readStrings());
+            previousHeaders = in.readStrings();
+            if (!previousKeyColumns.equals(getKeyColumns())) throw new IllegalStateException("Delta index was created with key columns " + previousKeyColumns + ", run a full conversion");
+            if (!previousQuery.equals(queryFingerprint)) throw new IllegalStateException("Delta index was created with another query, run a full conversion");
+
+            for (long i = 0; i < count; i++)
+            {
+                long offset = in.getOffset(), keyHigh = in.readLong(), keyLow = in.readLong(), rowHash = in.readLong();
+                int slot = find(keyHigh, keyLow);
+                if (offsets[slot] != 0) throw new IOException("Duplicate key in delta index file: " + file);
+                keyHighs[slot] = keyHigh;
+                keyLows[slot] = keyLow;
+                rowHashes[slot] = rowHash;
+                offsets[slot] = offset + 1;
+                in.skipStrings();
+            }
+
+            long triples = in.readLong();
+            for (long i = 0; i < triples; i++) tripleCounts.add(in.readLong(), in.readLong(), in.readInt());
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            previous.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the slot of a key, or the empty slot where it belongs.
+     */
+    private int find(long keyHigh, long keyLow)
+    {
+        int mask = offsets.length - 1;
+        int slot = (int)(keyLow ^ keyLow >>> 32) & mask;
+        while (offsets[slot] != 0 && (keyHighs[slot] != keyHigh || keyLows[slot] != keyLow)) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Starts the conversion of rows with the given headers.
+     *
+     * @param headers CSV headers
+     * @throws IllegalArgumentException if a key column is missing
+     * @throws IllegalStateException if the previous index was created with other headers
+     */
+    public void start(String[] headers)
+    {
+        if (previousHeaders != null && !Arrays.equals(previousHeaders, headers)) throw new IllegalStateException("Delta index was created with headers " + Arrays.toString(previousHeaders) + ", run a full conversion");
+
+        keys = new int[getKeyColumns().size()];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = Arrays.asList(headers).indexOf(getKeyColumns().get(i));
+            if (keys[i] < 0) throw new IllegalArgumentException("Key column '" + getKeyColumns().get(i) + "' not found in headers");
+        }
+
+        try
+        {
+            writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writeString(getId());
+            writer.writeLong(queryFingerprint.getHigh());
+            writer.writeLong(queryFingerprint.getLow());
+            writeStrings(getKeyColumns().toArray(String[]::new));
+            writeStrings(headers);
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Records a row in the new index and compares it with the previous conversion.
+     *
+     * @param row row values
+     * @return change of the row
+     * @throws IllegalStateException if the key of the row is not unique, in which case the index cannot be committed
+     */
+    public Change update(String[] row)
+    {
+        String[] key = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) key[i] = keys[i] < row.length ? row[keys[i]] : null;
+        Fingerprint keyFingerprint = Fingerprint.of(key);
+        if (currentKeys.add(keyFingerprint.getHigh(), keyFingerprint.getLow(), 1) > 1)
+        {
+            unique = false;
+            throw new IllegalStateException("Key " + Arrays.toString(key) + " is not unique");
+        }
+        long rowHash = Fingerprint.of(row).getHigh();
+
+        try
+        {
+            writer.writeLong(keyFingerprint.getHigh());
+            writer.writeLong(keyFingerprint.getLow());
+            writer.writeLong(rowHash);
+            writeStrings(row);
+            records++;
+
+            int slot = offsets != null ? find(keyFingerprint.getHigh(), keyFingerprint.getLow()) : -1;
+            if (slot < 0 || offsets[slot] == 0)
+            {
+                inserted++;
+                return INSERTED;
+            }
+            seen.set(slot);
+            if (rowHashes[slot] == rowHash)
+            {
+                unchanged++;
+                return UNCHANGED;
+            }
+            changed++;
+            return new Change(Status.CHANGED, readRow(offsets[slot] - 1));
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Passes the values of the previous rows whose keys have not been seen in this conversion.
+     *
+     * @param action action that receives the row values
+     */
+    public void forEachDeleted(Consumer<String[]> action)
+    {
+        if (offsets == null) return;
+
+        try
+        {
+            for (int slot = 0; slot < offsets.length; slot++)
+                if (offsets[slot] != 0 && !seen.get(slot))
+                {
+                    deleted++;
+                    action.accept(readRow(offsets[slot] - 1));
+                }
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Counts a row that produces a triple.
+     *
+     * @param triple fingerprint of the triple
+     * @return true if no other row produces the triple, i.e. it has to be added
+     */
+    public boolean acquire(Fingerprint triple)
+    {
+        return tripleCounts.add(triple.getHigh(), triple.getLow(), 1) == 1;
+    }
+
+    /**
+     * Uncounts a row that no longer produces a triple.
+     *
+     * @param triple fingerprint of the triple
+     * @return true if no row produces the triple anymore, i.e. it has to be removed
+     */
+    public boolean release(Fingerprint triple)
+    {
+        if (tripleCounts.get(triple.getHigh(), triple.getLow()) == 0) return true; // not counted, e.g. when the query changed
+        return tripleCounts.add(triple.getHigh(), triple.getLow(), -1) == 0;
+    }
+
+    private String[] readRow(long offset) throws IOException
+    {
+        CountingInput in = new CountingInput(Channels.newInputStream(previous.position(offset + RECORD_HEADER)));
+        return in.readStrings();
+    }
+
+    /**
+     * Completes the new index and replaces the previous index with it.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    public void commit() throws IOException
+    {
+        if (writer == null) throw new IllegalStateException("Delta index has not been started");
+        if (!unique) throw new IllegalStateException("Delta index cannot be committed with duplicate keys");
+        if (records > MAX_ROWS) throw new IllegalStateException("Delta index cannot hold more than " + MAX_ROWS + " rows");
+        writer.writeLong(tripleCounts.count());
+        tripleCounts.forEach((high, low, count) ->
+        {
+            writer.writeLong(high);
+            writer.writeLong(low);
+            writer.writeInt(count);
+        });
+        writer.writeLong(records);
+        writer.close();
+        if (previous != null) previous.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    /**
+     * Closes the index. If it has not been committed, the previous index is kept.
+     *
+     * @throws IOException if the files cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (committed) return;
+        if (writer != null) writer.close();
+        if (previous != null) previous.close();
+        Files.deleteIfExists(temp);
+    }
+
+    private void writeStrings(String[] values) throws IOException
+    {
+        writer.writeInt(values.length);
+        for (String value : values) writeString(value);
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        if (value == null)
+        {
+            writer.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writer.writeInt(bytes.length);
+        writer.write(bytes);
+    }
+
+    /**
+     * Returns the IRI that identifies this conversion.
+     *
+     * @return id
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the IRI that identifies the previous conversion.
+     *
+     * @return id, or null if there is no previous index
+     */
+    public String getPreviousId()
+    {
+        return previousId;
+    }
+
+    public List<String> getKeyColumns()
+    {
+        return keyColumns;
+    }
+
+    public long getInsertedCount()
+    {
+        return inserted;
+    }
+
+    public long getChangedCount()
+    {
+        return changed;
+    }
+
+    public long getUnchangedCount()
+    {
+        return unchanged;
+    }
+
+    public long getDeletedCount()
+    {
+        return deleted;
+    }
+
+    /**
+     * Open-addressing table of fingerprints with an integer value each, which grows as needed.
+     * Entries whose value drops to zero are kept until the table is written.
+     */
+    private static class FingerprintTable
+    {
+
+        private long[] highs = new long[16], lows = new long[16];
+        private int[] values = new int[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        /**
+         * Visits the entries of a table.
+         */
+        interface Visitor
+        {
+
+            void visit(long high, long low, int value) throws IOException;
+
+        }
+
+        int get(long high, long low)
+        {
+            int slot = find(high, low);
+            return used[slot] ? values[slot] : 0;
+        }
+
+        /**
+         * Adds a delta to the value of a fingerprint.
+         *
+         * @return new value
+         */
+        int add(long high, long low, int delta)
+        {
+            int slot = find(high, low);
+            if (!used[slot])
+            {
+                if (size * 2 >= used.length)
+                {
+                    grow();
+                    slot = find(high, low);
+                }
+                used[slot] = true;
+                highs[slot] = high;
+                lows[slot] = low;
+                size++;
+            }
+            return values[slot] += delta;
+        }
+
+        private int find(long high, long low)
+        {
+            int mask = used.length - 1;
+            int slot = (int)(low ^ low >>> 32) & mask;
+            while (used[slot] && (highs[slot] != high || lows[slot] != low)) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private void grow()
+        {
+            long[] oldHighs = highs, oldLows = lows;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            highs = new long[oldUsed.length * 2];
+            lows = new long[oldUsed.length * 2];
+            values = new int[oldUsed.length * 2];
+            used = new boolean[oldUsed.length * 2];
+            for (int i = 0; i < oldUsed.length; i++)
+                if (oldUsed[i])
+                {
+                    int slot = find(oldHighs[i], oldLows[i]);
+                    used[slot] = true;
+                    highs[slot] = oldHighs[i];
+                    lows[slot] = oldLows[i];
+                    values[slot] = oldValues[i];
+                }
+        }
+
+        /**
+         * Returns the number of entries with a positive value.
+         */
+        long count()
+        {
+            long count = 0;
+            for (int i = 0; i < used.length; i++)
+                if (used[i] && values[i] > 0) count++;
+            return count;
+        }
+
+        void forEach(Visitor visitor) throws IOException
+        {
+            for (int i = 0; i < used.length; i++)
+                if (used[i] && values[i] > 0) visitor.visit(highs[i], lows[i], values[i]);
+        }
+
+    }
+
+    /**
+     * Input that counts the bytes it has read, so that the offsets of the records are known.
+     */
+    private static class CountingInput
+    {
+
+        private final DataInputStream in;
+        private long offset;
+
+        CountingInput(InputStream in)
+        {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+        }
+
+        int readInt() throws IOException
+        {
+            offset += Integer.BYTES;
+            return in.readInt();
+        }
+
+        long readLong() throws IOException
+        {
+            offset += Long.BYTES;
+            return in.readLong();
+        }
+
+        String readString() throws IOException
+        {
+            int length = readInt();
+            if (length < 0) return null;
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            offset += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] readStrings() throws IOException
+        {
+            int count = readInt();
+            if (count < 0) throw new EOFException("Invalid value count");
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) values.add(readString());
+            return values.toArray(String[]::new);
+        }
+
+        void skipStrings() throws IOException
+        {
+            int count = readInt();
+            for (int i = 0; i < count; i++)
+            {
+                int length = readInt();
+                if (length > 0)
+                {
+                    in.skipNBytes(length);
+                    offset += length;
+                }
+            }
+        }
+
+        long getOffset()
+        {
+            return offset;
+        }
+
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 128-bit <a href="https://github.com/aappleby/smhasher/wiki/MurmurHash3">MurmurHash3</a> (x64 variant) of a sequence of values.
+ * Fingerprints are stable across runs and machines, so they can identify rows or triples without coordination.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public final class Fingerprint
+{
+
+    private static final long C1 = 0x87c37b91114253d5L, C2 = 0x4cf5ad432745937fL;
+
+    private final long high, low;
+
+    public Fingerprint(long high, long low)
+    {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Computes the fingerprint of values. Every value is prefixed with its length, so that different sequences of values
+     * never have the same encoding, and null values differ from empty strings.
+     *
+     * @param values values, which can be null
+     * @return fingerprint
+     */
+    public static Fingerprint of(String... values)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String value : values)
+        {
+            byte[] encoded = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+            int length = encoded != null ? encoded.length : -1;
+            bytes.write(length >>> 24);
+            bytes.write(length >>> 16);
+            bytes.write(length >>> 8);
+            bytes.write(length);
+            if (encoded != null) bytes.writeBytes(encoded);
+        }
+        return hash(bytes.toByteArray(), 0);
+    }
+
+    /**
+     * Computes the MurmurHash3 x64 128-bit hash of bytes.
+     *
+     * @param data bytes
+     * @param seed hash seed
+     * @return fingerprint
+     */
+    public static Fingerprint hash(byte[] data, int seed)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        long h1 = seed & 0xFFFFFFFFL, h2 = seed & 0xFFFFFFFFL;
+
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++)
+        {
+            long k1 = buffer.getLong(i * 16), k2 = buffer.getLong(i * 16 + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0, k2 = 0;
+        int tail = blocks * 16;
+        for (int i = data.length - tail - 1; i >= 8; i--) k2 = (k2 << 8) | (data[tail + i] & 0xFF);
+        for (int i = Math.min(data.length - tail, 8) - 1; i >= 0; i--) k1 = (k1 << 8) | (data[tail + i] & 0xFF);
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return new Fingerprint(h1, h2);
+    }
+
+    private static long mixK1(long k1)
+    {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2)
+    {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public long getHigh()
+    {
+        return high;
+    }
+
+    public long getLow()
+    {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        return obj instanceof Fingerprint other && high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(high ^ low);
+    }
+
+    /**
+     * Returns the fingerprint as 32 hexadecimal digits.
+     *
+     * @return hexadecimal string
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%016x%016x", high, low);
+    }
+
+}
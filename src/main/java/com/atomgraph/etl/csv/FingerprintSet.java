@@ -0,0 +1,207 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set of fingerprints in off-heap memory of a fixed size, used to detect duplicates.
+ * The memory is split into stripes that are locked separately, so that the set can be shared by parallel conversions.
+ * <p>
+ * In the exact mode the stripes are open-addressing hash tables of 64-bit or 128-bit fingerprints.
+ * A stripe that is 75% full stops storing new fingerprints, and they are reported as not seen before, so duplicates can be missed but are never invented.
+ * In the Bloom filter mode the stripes are Bloom filters, which never fill up but report a small fraction of new fingerprints as seen before.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class FingerprintSet
+{
+
+    public static final int STRIPES = 64;
+
+    private static final int BLOOM_HASHES = 7; // about 1% false positives at 10 bits per fingerprint
+    private static final double MAX_LOAD = 0.75;
+    private static final long MAX_STRIPE_BYTES = 1L << 30;
+
+    /**
+     * Kind of the set.
+     */
+    public enum Mode
+    {
+        /** Hash table of fingerprints */
+        EXACT,
+        /** Bloom filter */
+        BLOOM
+    }
+
+    private final Mode mode;
+    private final boolean wide;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder size = new LongAdder(), missed = new LongAdder();
+
+    /**
+     * Creates a set.
+     *
+     * @param mode exact or Bloom filter
+     * @param memory memory budget in bytes
+     * @param bits fingerprint size in the exact mode: 64 or 128 bits
+     */
+    public FingerprintSet(Mode mode, long memory, int bits)
+    {
+        if (bits != 64 && bits != 128) throw new IllegalArgumentException("Fingerprints have 64 or 128 bits");
+        this.mode = mode;
+        this.wide = bits == 128;
+
+        long stripeBytes = Long.highestOneBit(Math.max(Math.min(memory / STRIPES, MAX_STRIPE_BYTES), Long.BYTES * 2)); // a power of two
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe(ByteBuffer.allocateDirect((int)stripeBytes).asLongBuffer());
+    }
+
+    /**
+     * Adds a fingerprint.
+     *
+     * @param fingerprint fingerprint
+     * @return true if the fingerprint has not been seen before
+     */
+    public boolean add(Fingerprint fingerprint)
+    {
+        Stripe stripe = stripes[(int)(fingerprint.getHigh() >>> 58)]; // the top bits select the stripe, the other bits the slots
+        synchronized (stripe)
+        {
+            boolean added = getMode() == Mode.EXACT ? stripe.addExact(fingerprint) : stripe.addBloom(fingerprint);
+            if (added) size.increment();
+            return added;
+        }
+    }
+
+    /**
+     * Returns the number of fingerprints that were added, i.e. reported as not seen before.
+     *
+     * @return fingerprint count
+     */
+    public long size()
+    {
+        return size.sum();
+    }
+
+    /**
+     * Returns the number of fingerprints that could not be stored because their stripe was full.
+     * Their duplicates are not detected. Always 0 in the Bloom filter mode.
+     *
+     * @return missed fingerprint count
+     */
+    public long getMissed()
+    {
+        return missed.sum();
+    }
+
+    /**
+     * Returns the allocated off-heap memory.
+     *
+     * @return memory in bytes
+     */
+    public long getMemory()
+    {
+        return (long)stripes[0].table.capacity() * Long.BYTES * STRIPES;
+    }
+
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Fingerprint size in the exact mode.
+     *
+     * @return 64 or 128
+     */
+    public int getBits()
+    {
+        return wide ? 128 : 64;
+    }
+
+    /**
+     * Part of the set, which is accessed while holding its lock.
+     */
+    private class Stripe
+    {
+
+        private final LongBuffer table;
+        private final int mask; // slot mask in the exact mode, word mask in the Bloom filter mode
+        private final int maxCount;
+        private int count;
+
+        Stripe(LongBuffer table)
+        {
+            this.table = table;
+            int slots = wide ? table.capacity() / 2 : table.capacity();
+            this.mask = (getMode() == Mode.EXACT ? slots : table.capacity()) - 1;
+            this.maxCount = (int)(slots * MAX_LOAD);
+        }
+
+        boolean addExact(Fingerprint fingerprint)
+        {
+            long high = fingerprint.getHigh(), low = wide ? fingerprint.getLow() : 0;
+            if (wide ? (high == 0 && low == 0) : high == 0) high = 1; // the empty slot is all zeros
+
+            for (int slot = (int)high & mask; ; slot = (slot + 1) & mask)
+            {
+                long storedHigh = wide ? table.get(slot * 2) : table.get(slot), storedLow = wide ? table.get(slot * 2 + 1) : 0;
+                if (storedHigh == high && storedLow == low) return false;
+                if (storedHigh == 0 && storedLow == 0)
+                {
+                    if (count >= maxCount)
+                    {
+                        missed.increment();
+                        return true;
+                    }
+
+                    if (wide)
+                    {
+                        table.put(slot * 2, high);
+                        table.put(slot * 2 + 1, low);
+                    }
+                    else table.put(slot, high);
+                    count++;
+                    return true;
+                }
+            }
+        }
+
+        boolean addBloom(Fingerprint fingerprint)
+        {
+            long hash = fingerprint.getHigh(), step = fingerprint.getLow() | 1; // double hashing
+            long bitMask = ((long)mask + 1) * Long.SIZE - 1;
+            boolean added = false;
+            for (int i = 0; i < BLOOM_HASHES; i++, hash += step)
+            {
+                long bit = hash & bitMask;
+                int word = (int)(bit >>> 6);
+                long value = table.get(word), flag = 1L << bit;
+                if ((value & flag) == 0)
+                {
+                    table.put(word, value | flag);
+                    added = true;
+                }
+            }
+            return added;
+        }
+
+    }
+
+}
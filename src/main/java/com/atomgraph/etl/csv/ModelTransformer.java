@@ -16,27 +16,153 @@
  */
 package com.atomgraph.etl.csv;
 
+import java.util.Iterator;
 import java.util.function.BiFunction;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVisitorBase;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterRoot;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.expr.E_Function;
+import org.apache.jena.sparql.expr.ExprFunctionN;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.apache.jena.sparql.modify.TemplateLib;
+import org.apache.jena.sparql.util.Context;
 
 /**
  * Transforms an RDF graph using a SPARQL query.
+ * <code>CONSTRUCT</code> queries are compiled into an optimized algebra plan once, which is then evaluated directly against every graph,
+ * instead of generating and optimizing the algebra for every execution. The plan of the last query is kept per thread, so a query must not be modified after it has been applied.
+ * Other queries are executed using {@link QueryExecution}.
+ * Instances are thread-safe.
  * 
  * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
  */
 public class ModelTransformer implements BiFunction<Query, Model, Model>
 {
     
+    private final ThreadLocal<Plan> plan = new ThreadLocal<>(); // workers of a parallel conversion apply their own Query instances
+    
     @Override
     public Model apply(Query construct, Model model)
     {
-        // execute CONSTRUCT to map from CSV/RDF to domain RDF vocab
+        Plan current = getPlan(construct);
+        if (current.op() == null)
+            // execute CONSTRUCT to map from CSV/RDF to domain RDF vocab
+            try (QueryExecution qex = QueryExecution.create(construct, model))
+            {
+                return qex.execConstruct();
+            }
+        
+        Model result = ModelFactory.createDefaultModel();
+        result.setNsPrefixes(construct.getPrefixMapping());
+        current.execute(model, StreamRDFLib.graph(result.getGraph()));
+        return result;
+    }
+    
+    /**
+     * Transforms an RDF graph using a <code>CONSTRUCT</code> query and sends the template triples to a stream as they are instantiated,
+     * without building a result model. Unlike in a model, triples that are instantiated more than once are sent more than once.
+     * 
+     * @param construct query
+     * @param model RDF graph
+     * @param stream stream that receives the triples
+     */
+    public void apply(Query construct, Model model, StreamRDF stream)
+    {
+        Plan current = getPlan(construct);
+        if (current.op() != null)
+        {
+            current.execute(model, stream);
+            return;
+        }
+        
         try (QueryExecution qex = QueryExecution.create(construct, model))
         {
-            return qex.execConstruct();
+            qex.execConstructTriples().forEachRemaining(stream::triple);
         }
     }
+    
+    private Plan getPlan(Query construct)
+    {
+        Plan current = plan.get();
+        if (current == null || current.query() != construct)
+        {
+            current = Plan.compile(construct);
+            plan.set(current);
+        }
+        return current;
+    }
+    
+    /**
+     * Optimized algebra of a query, with the context it is evaluated in.
+     */
+    private record Plan(Query query, Op op, Context context)
+    {
+        
+        /**
+         * Compiles the pattern of a <code>CONSTRUCT</code> query in the same way as a query execution, without projecting its variables.
+         * 
+         * @param query query
+         * @return plan, without algebra if the query has to be executed using {@link QueryExecution}
+         */
+        static Plan compile(Query query)
+        {
+            if (!query.isConstructType() || query.isConstructQuad() || query.hasDatasetDescription()) return new Plan(query, null, null);
+            
+            Context context = ARQ.getContext().copy();
+            Context.setCurrentDateTime(context); // NOW() is the same for all rows
+            Query pattern = query.cloneQuery();
+            pattern.setQueryResultStar(true); // the template can use any variable of the pattern
+            Op op = Algebra.optimize(Algebra.compile(pattern), context);
+            
+            Walker.walk(op, new OpVisitorBase(), new ExprVisitorBase()
+            {
+                
+                @Override
+                public void visit(ExprFunctionN func)
+                {
+                    if (func instanceof E_Function function) function.buildFunction(context); // bind functions upfront so that evaluation does not modify the plan
+                }
+            
+            });
+            return new Plan(query, op, context);
+        }
         
+        /**
+         * Evaluates the plan against a graph and instantiates the template with the solutions.
+         * 
+         * @param model RDF graph
+         * @param stream stream that receives the triples
+         */
+        void execute(Model model, StreamRDF stream)
+        {
+            Graph graph = model.getGraph();
+            ExecutionContext execCxt = ExecutionContext.createForGraph(graph, context().copy());
+            QueryIterator solutions = QC.execute(op(), QueryIterRoot.create(execCxt), execCxt);
+            try
+            {
+                Iterator<Triple> triples = TemplateLib.calcTriples(query().getConstructTemplate().getTriples(), solutions);
+                while (triples.hasNext()) stream.triple(triples.next());
+            }
+            finally
+            {
+                solutions.close();
+            }
+        }
+        
+    }
+
 }
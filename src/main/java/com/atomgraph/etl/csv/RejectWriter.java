@@ -0,0 +1,69 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.univocity.parsers.csv.CsvWriter;
+import com.univocity.parsers.csv.CsvWriterSettings;
+import java.io.Closeable;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes rejected rows as CSV, with the reason of the rejection in an additional <code>error</code> column.
+ * A header row is written before the first row and whenever the headers change, e.g. at the start of another input file.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class RejectWriter implements ColumnSchema.RejectHandler, Closeable
+{
+
+    public static final String ERROR_HEADER = "error";
+
+    private final CsvWriter writer;
+    private String[] headers;
+
+    public RejectWriter(Writer writer)
+    {
+        this.writer = new CsvWriter(writer, new CsvWriterSettings());
+    }
+
+    @Override
+    public synchronized void reject(String[] headers, String[] row, int column, String message)
+    {
+        if (this.headers != headers)
+        {
+            writer.writeRow(append(headers, ERROR_HEADER));
+            this.headers = headers;
+        }
+
+        writer.writeRow(append(Arrays.copyOf(row, headers.length), message));
+    }
+
+    private static String[] append(String[] values, String value)
+    {
+        String[] appended = Arrays.copyOf(values, values.length + 1);
+        appended[values.length] = value;
+        return appended;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        writer.close();
+    }
+
+}
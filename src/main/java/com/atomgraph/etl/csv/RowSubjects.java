@@ -0,0 +1,167 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.jena.atlas.lib.IRILib;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * Mints the subjects of rows, which are bound to the row variable of the query.
+ * By default every row gets a fresh blank node. Deterministic subjects are derived from the row number or from a hash of key columns,
+ * so that the same row always gets the same subject and outputs produced independently can be merged or reloaded idempotently.
+ * Row numbers start at 1 with the first record after the headers, and are counted in each input separately.
+ * Numbered subjects of inputs that are merged into one output therefore include the name of the input, e.g. <code>&lt;base#row-{input}-{n}&gt;</code>.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class RowSubjects
+{
+
+    public static final String ROW_PREFIX = "row-", KEY_PREFIX = "key-";
+
+    /**
+     * Strategy of minting row subjects.
+     */
+    public enum Strategy
+    {
+        /** Fresh blank node (default) */
+        BLANK,
+        /** <code>&lt;base#row-{n}&gt;</code> IRI */
+        ROW_IRI,
+        /** <code>_:row-{n}</code> blank node */
+        ROW_BLANK,
+        /** <code>&lt;base#key-{hash}&gt;</code> IRI */
+        KEY_IRI,
+        /** <code>_:key-{hash}</code> blank node */
+        KEY_BLANK;
+
+        public boolean isKeyed()
+        {
+            return this == KEY_IRI || this == KEY_BLANK;
+        }
+    }
+
+    private final Strategy strategy;
+    private final List<String> keyColumns;
+    private final String input;
+
+    /**
+     * Creates row subjects.
+     *
+     * @param strategy minting strategy
+     * @param keyColumns headers of the key columns, required by the key strategies
+     */
+    public RowSubjects(Strategy strategy, List<String> keyColumns)
+    {
+        this(strategy, keyColumns, null);
+    }
+
+    /**
+     * Creates row subjects of one of several inputs.
+     *
+     * @param strategy minting strategy
+     * @param keyColumns headers of the key columns, required by the key strategies
+     * @param input name of the input that is added to numbered subjects, or null
+     */
+    public RowSubjects(Strategy strategy, List<String> keyColumns, String input)
+    {
+        if (strategy.isKeyed() && (keyColumns == null || keyColumns.isEmpty())) throw new IllegalArgumentException("Strategy " + strategy + " requires key columns");
+        this.strategy = strategy;
+        this.keyColumns = keyColumns != null ? List.copyOf(keyColumns) : List.of();
+        this.input = input;
+    }
+
+    /**
+     * Returns the row subjects of an input that is merged with other inputs into one output.
+     * Row numbers restart in every input, so numbered subjects include the input name to stay distinct. Key subjects do not change.
+     *
+     * @param input input name, e.g. the file name
+     * @return row subjects
+     */
+    public RowSubjects forInput(String input)
+    {
+        return new RowSubjects(getStrategy(), getKeyColumns(), input);
+    }
+
+    /**
+     * Resolves the key columns against the headers.
+     *
+     * @param headers CSV headers
+     * @return indexes of the key columns, or null if the strategy does not use keys
+     * @throws IllegalArgumentException if a key column is missing from the headers
+     */
+    public int[] resolve(String[] headers)
+    {
+        if (!getStrategy().isKeyed()) return null;
+
+        List<String> headerList = Arrays.asList(headers);
+        int[] keys = new int[keyColumns.size()];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = headerList.indexOf(keyColumns.get(i));
+            if (keys[i] < 0) throw new IllegalArgumentException("Key column '" + keyColumns.get(i) + "' not found in the headers " + headerList);
+        }
+        return keys;
+    }
+
+    /**
+     * Creates the subject of a row.
+     *
+     * @param base base URI
+     * @param rowNumber row number, starting at 1
+     * @param keys indexes of the key columns
+     * @param row row values
+     * @return subject node
+     */
+    public Node create(String base, long rowNumber, int[] keys, String[] row)
+    {
+        return switch (getStrategy())
+        {
+            case BLANK -> NodeFactory.createBlankNode();
+            case ROW_IRI -> NodeFactory.createURI(base + "#" + ROW_PREFIX + (getInput() != null ? IRILib.encodeUriComponent(getInput()) + "-" : "") + rowNumber);
+            case ROW_BLANK -> NodeFactory.createBlankNode(ROW_PREFIX + (getInput() != null ? getInput() + "-" : "") + rowNumber);
+            case KEY_IRI -> NodeFactory.createURI(base + "#" + KEY_PREFIX + hash(keys, row));
+            case KEY_BLANK -> NodeFactory.createBlankNode(KEY_PREFIX + hash(keys, row));
+        };
+    }
+
+    private static Fingerprint hash(int[] keys, String[] row)
+    {
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) values[i] = keys[i] < row.length ? row[keys[i]] : null;
+        return Fingerprint.of(values);
+    }
+
+    public Strategy getStrategy()
+    {
+        return strategy;
+    }
+
+    public List<String> getKeyColumns()
+    {
+        return keyColumns;
+    }
+
+    public String getInput()
+    {
+        return input;
+    }
+
+}
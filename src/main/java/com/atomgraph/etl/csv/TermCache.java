@@ -0,0 +1,175 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.jena.atlas.lib.Cache;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+/**
+ * Size-bounded caches of RDF terms, so that repeated values of low-cardinality columns share the same nodes.
+ * There is a cache of cell literals per column and a cache of <code>BIND</code> results per expression of a compiled mapping,
+ * keyed on the values of the variables the expression mentions.
+ * Caches are thread-safe and can be shared by the processors of a conversion. Hits and misses are recorded in the conversion metrics.
+ * A cache whose hit ratio is below {@link #MIN_HIT_RATIO} after {@link #SAMPLE_SIZE} lookups is bypassed,
+ * so that high-cardinality columns such as identifiers do not pay for the lookups.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class TermCache
+{
+
+    public static final int SAMPLE_SIZE = 10_000;
+    public static final double MIN_HIT_RATIO = 0.2;
+
+    private final int capacity;
+    private final ConversionMetrics metrics;
+    private volatile Entry<String>[] literals = newEntries(0);
+    private volatile Entry<List<Node>>[] expressions = newEntries(0);
+
+    /**
+     * Creates term caches.
+     *
+     * @param capacity maximum number of terms in each column or expression cache
+     * @param metrics metrics that record the cache hits and misses
+     */
+    public TermCache(int capacity, ConversionMetrics metrics)
+    {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity must be positive");
+        this.capacity = capacity;
+        this.metrics = metrics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Entry<K>[] newEntries(int length)
+    {
+        return new Entry[length];
+    }
+
+    /**
+     * Returns the plain literal of a cell value.
+     *
+     * @param column column index
+     * @param value cell value
+     * @return literal node
+     */
+    public Node getLiteral(int column, String value)
+    {
+        Entry<String>[] entries = literals;
+        if (column >= entries.length || entries[column] == null) entries = growLiterals(column);
+
+        return get(entries[column], value, NodeFactory::createLiteralString);
+    }
+
+    /**
+     * Returns the cached result of an expression, or evaluates it.
+     * Only deterministic expressions can be cached. Evaluation errors are not cached.
+     *
+     * @param expression expression index
+     * @param key values of the variables that the expression mentions
+     * @param evaluator evaluates the expression on a cache miss
+     * @return expression result
+     */
+    public Node getValue(int expression, List<Node> key, Function<List<Node>, Node> evaluator)
+    {
+        Entry<List<Node>>[] entries = expressions;
+        if (expression >= entries.length || entries[expression] == null) entries = growExpressions(expression);
+
+        return get(entries[expression], key, evaluator);
+    }
+
+    private <K> Node get(Entry<K> entry, K key, Function<K, Node> creator)
+    {
+        if (entry.bypassed) return creator.apply(key);
+
+        metrics.addCacheLookups(1);
+        Node node = entry.cache.getIfPresent(key);
+        boolean hit = node != null;
+        if (!hit)
+        {
+            node = creator.apply(key);
+            entry.cache.put(key, node);
+            metrics.addCacheMisses(1);
+        }
+        if (entry.record(hit)) entry.cache.clear();
+        return node;
+    }
+
+    private synchronized Entry<String>[] growLiterals(int column)
+    {
+        return literals = grow(literals, column); // re-read under the lock, another thread might have grown the array
+    }
+
+    private synchronized Entry<List<Node>>[] growExpressions(int expression)
+    {
+        return expressions = grow(expressions, expression);
+    }
+
+    private <K> Entry<K>[] grow(Entry<K>[] entries, int index)
+    {
+        if (index < entries.length && entries[index] != null) return entries;
+
+        Entry<K>[] grown = Arrays.copyOf(entries, Math.max(entries.length, index + 1));
+        grown[index] = new Entry<>(CacheFactory.createCache(capacity));
+        return grown;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Cache of a single column or expression.
+     * The miss count is only approximate under concurrent access, which is good enough to decide whether to bypass it.
+     */
+    private static class Entry<K>
+    {
+
+        private final Cache<K, Node> cache;
+        private int lookups, hits;
+        private volatile boolean bypassed;
+
+        Entry(Cache<K, Node> cache)
+        {
+            this.cache = cache;
+        }
+
+        /**
+         * Counts a lookup and decides whether to bypass the cache once the sample is complete.
+         *
+         * @param hit true if the term was cached
+         * @return true if the cache has just been bypassed
+         */
+        boolean record(boolean hit)
+        {
+            if (lookups >= SAMPLE_SIZE) return false;
+            if (hit) hits++;
+            if (++lookups < SAMPLE_SIZE || hits >= SAMPLE_SIZE * MIN_HIT_RATIO) return false;
+
+            bypassed = true;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+
+/**
+ * Compression formats of the input and output streams.
+ * Compressed output is written by {@link ParallelCompressorOutputStream}, which relies on every format supporting concatenated members.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public enum Compression
+{
+
+    NONE,
+    GZIP(".gz", ".gzip"),
+    BZIP2(".bz2"),
+    ZSTD(".zst", ".zstd");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String[] extensions;
+
+    Compression(String... extensions)
+    {
+        this.extensions = extensions;
+    }
+
+    /**
+     * Detects the compression from the file extension.
+     *
+     * @param file file path
+     * @return compression, or {@link #NONE} if the extension is not known
+     */
+    public static Compression fromFile(Path file)
+    {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (Compression compression : values())
+            for (String extension : compression.extensions)
+                if (name.endsWith(extension)) return compression;
+
+        return NONE;
+    }
+
+    /**
+     * Wraps the input stream with a decompressing stream. Concatenated members are decompressed as a single stream.
+     *
+     * @param in compressed input
+     * @return decompressed input
+     * @throws IOException if the compressed header cannot be read
+     */
+    public InputStream decompress(InputStream in) throws IOException
+    {
+        return switch (this)
+        {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case BZIP2 -> new BZip2CompressorInputStream(new BufferedInputStream(in, BUFFER_SIZE), true);
+            case ZSTD -> new ZstdCompressorInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        };
+    }
+
+    /**
+     * Wraps the output stream with a stream that compresses blocks in parallel.
+     *
+     * @param out compressed output
+     * @param threads number of compressor threads
+     * @return compressing stream
+     */
+    public ParallelCompressorOutputStream compress(OutputStream out, int threads)
+    {
+        return switch (this)
+        {
+            case NONE -> throw new IllegalStateException("Uncompressed output does not need a compressor");
+            case GZIP -> new ParallelCompressorOutputStream(out, os -> new GZIPOutputStream(os, BUFFER_SIZE), threads);
+            case BZIP2 -> new ParallelCompressorOutputStream(out, BZip2CompressorOutputStream::new, threads);
+            case ZSTD -> new ParallelCompressorOutputStream(out, ZstdCompressorOutputStream::new, threads, 4 * ParallelCompressorOutputStream.DEFAULT_BLOCK_SIZE);
+        };
+    }
+
+    /**
+     * Returns the file extension of this compression.
+     *
+     * @return file extension, including the leading dot, or an empty string for {@link #NONE}
+     */
+    public String getFileExtension()
+    {
+        return extensions.length > 0 ? extensions[0] : "";
+    }
+
+    /**
+     * Removes the extension of this compression from a file name.
+     *
+     * @param fileName file name
+     * @return file name without the compression extension
+     */
+    public String stripExtension(String fileName)
+    {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        for (String extension : extensions)
+            if (lowerCase.endsWith(extension)) return fileName.substring(0, fileName.length() - extension.length());
+
+        return fileName;
+    }
+
+}
@@ -0,0 +1,248 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compresses blocks of output in parallel.
+ * Every block is compressed into an independent member (gzip) or stream (bzip2, zstd) on a pool of compressor threads,
+ * and a single writer thread writes the compressed blocks to the target in order.
+ * Concatenated members are valid compressed data that standard tools decompress into the concatenated blocks.
+ * Writing only copies into the current block, so the caller does not wait for the compressor unless the maximum number of blocks is in flight.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ParallelCompressorOutputStream extends OutputStream
+{
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * Creates a compressing stream for a single block.
+     */
+    @FunctionalInterface
+    public interface BlockCompressor
+    {
+
+        OutputStream compress(OutputStream out) throws IOException;
+
+    }
+
+    private final OutputStream out;
+    private final BlockCompressor compressor;
+    private final int blockSize, maxInFlight;
+    private final ExecutorService compressors, writer;
+    private final Semaphore permits; // bounds the number of blocks in flight
+    private byte[] block;
+    private int position;
+    private CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+    private volatile Throwable failure;
+    private boolean finished;
+
+    public ParallelCompressorOutputStream(OutputStream out, BlockCompressor compressor, int threads)
+    {
+        this(out, compressor, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelCompressorOutputStream(OutputStream out, BlockCompressor compressor, int threads, int blockSize)
+    {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive");
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        this.out = out;
+        this.compressor = compressor;
+        this.blockSize = blockSize;
+        this.maxInFlight = threads * 2;
+        this.compressors = Executors.newFixedThreadPool(threads, daemonThreads("csv2rdf-compressor-"));
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("csv2rdf-compressed-writer-"));
+        this.permits = new Semaphore(maxInFlight);
+        this.block = new byte[blockSize];
+    }
+
+    private static ThreadFactory daemonThreads(String prefix)
+    {
+        AtomicInteger count = new AtomicInteger();
+        return r ->
+        {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if (position == blockSize) submit();
+        block[position++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            if (position == blockSize) submit();
+            int count = Math.min(length, blockSize - position);
+            System.arraycopy(bytes, offset, block, position, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Compresses the current block and waits until all blocks have been written to the target, which is then flushed.
+     * Frequent flushing produces small blocks and worse compression.
+     *
+     * @throws IOException if compression or writing failed
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        if (position > 0) submit();
+        awaitWritten();
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining blocks without closing the target.
+     *
+     * @throws IOException if compression or writing failed
+     */
+    public void finish() throws IOException
+    {
+        if (finished) return;
+
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            finished = true;
+            compressors.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private void submit() throws IOException
+    {
+        if (finished) throw new IOException("Stream is finished");
+        rethrowFailure();
+
+        try
+        {
+            permits.acquire();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a compression slot");
+        }
+
+        byte[] bytes = block;
+        int length = position;
+        block = new byte[blockSize];
+        position = 0;
+
+        CompletableFuture<byte[]> compressed = CompletableFuture.supplyAsync(() -> compress(bytes, length), compressors);
+        // the writer thread writes blocks in the order they were submitted
+        written = written.<byte[], Void>thenCombineAsync(compressed, (previous, data) ->
+        {
+            try
+            {
+                if (failure == null) out.write(data);
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+            return null;
+        }, writer).whenComplete((result, ex) ->
+        {
+            if (ex != null && failure == null) failure = ex instanceof CompletionException ? ex.getCause() : ex;
+            permits.release();
+        }).exceptionally(ex -> null); // the failure is recorded, later blocks are discarded
+    }
+
+    private byte[] compress(byte[] bytes, int length)
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2);
+        try (OutputStream os = compressor.compress(compressed))
+        {
+            os.write(bytes, 0, length);
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void awaitWritten() throws IOException
+    {
+        try
+        {
+            permits.acquire(maxInFlight);
+            permits.release(maxInFlight);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compressed output");
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() throws IOException
+    {
+        Throwable ex = failure;
+        if (ex == null) return;
+
+        if (ex instanceof UncheckedIOException uncheckedEx) throw uncheckedEx.getCause();
+        if (ex instanceof IOException ioEx) throw ioEx;
+        if (ex instanceof RuntimeException runtimeEx) throw runtimeEx;
+        if (ex instanceof Error error) throw error;
+        throw new IOException("Compression failed", ex);
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Reads the byte buffers of a {@link Flow.Publisher}, such as the body of an asynchronous HTTP request.
+ * The next buffer is only requested when the previous one has been read, so a slow reader holds back the publisher instead of buffering its data.
+ * Reads block until the publisher delivers, without pinning the carrier of a virtual thread.
+ * Closing the stream before the end cancels the subscription.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class PublisherInputStream extends InputStream implements Flow.Subscriber<ByteBuffer>
+{
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> buffers = new LinkedBlockingQueue<>(); // holds at most one buffer and the end signal
+    private final CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+    private volatile Throwable failure;
+    private ByteBuffer current;
+    private boolean finished;
+
+    /**
+     * Subscribes to a publisher.
+     *
+     * @param publisher publisher of the input bytes
+     */
+    public PublisherInputStream(Flow.Publisher<ByteBuffer> publisher)
+    {
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription)
+    {
+        if (this.subscription.complete(subscription)) subscription.request(1);
+        else subscription.cancel(); // subscribed more than once
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer)
+    {
+        buffers.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable throwable)
+    {
+        failure = throwable;
+        buffers.add(END);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        buffers.add(END);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        ByteBuffer buffer = next();
+        return buffer != null ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0) return 0;
+
+        ByteBuffer buffer = next();
+        if (buffer == null) return -1;
+
+        int length = Math.min(len, buffer.remaining());
+        buffer.get(b, off, length);
+        return length;
+    }
+
+    @Override
+    public int available()
+    {
+        return current != null ? current.remaining() : 0;
+    }
+
+    /**
+     * Returns the buffer that has bytes left, requesting and waiting for the next one if the current one has been read.
+     *
+     * @return buffer, or null at the end of the input
+     * @throws IOException if the publisher has failed
+     */
+    private ByteBuffer next() throws IOException
+    {
+        while (!finished && (current == null || !current.hasRemaining()))
+        {
+            if (current != null) subscription.join().request(1); // the previous buffer has been read
+            try
+            {
+                current = buffers.take();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input");
+            }
+
+            if (current == END)
+            {
+                finished = true;
+                current = null;
+                if (failure != null) throw new IOException("Input publisher has failed", failure);
+            }
+        }
+        return finished ? null : current;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!finished)
+        {
+            finished = true;
+            current = null;
+            subscription.thenAccept(Flow.Subscription::cancel);
+        }
+    }
+
+}
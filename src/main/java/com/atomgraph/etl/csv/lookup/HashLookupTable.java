@@ -0,0 +1,102 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lookup table whose rows are held in a hash map on the heap. Suitable for tables that fit comfortably in memory.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see MappedLookupTable
+ */
+public class HashLookupTable implements LookupTable
+{
+
+    private final String[] headers;
+    private final Map<String, String[]> rows;
+
+    /**
+     * Creates a table.
+     *
+     * @param headers column headers
+     * @param rows rows by key
+     */
+    public HashLookupTable(String[] headers, Map<String, String[]> rows)
+    {
+        this.headers = headers;
+        this.rows = rows;
+    }
+
+    /**
+     * Reads a table from a CSV file with headers.
+     *
+     * @param file CSV file
+     * @param charset file charset
+     * @param delimiter value delimiter
+     * @return table
+     * @throws IOException if the file cannot be read
+     */
+    public static HashLookupTable read(Path file, Charset charset, char delimiter) throws IOException
+    {
+        CsvParserSettings parserSettings = new CsvParserSettings();
+        parserSettings.setLineSeparatorDetectionEnabled(true);
+        parserSettings.setHeaderExtractionEnabled(true);
+        parserSettings.getFormat().setDelimiter(delimiter);
+
+        try (Reader reader = Files.newBufferedReader(file, charset))
+        {
+            CsvParser parser = new CsvParser(parserSettings);
+            parser.beginParsing(reader);
+            Map<String, String[]> rows = new HashMap<>();
+            String[] row;
+            while ((row = parser.parseNext()) != null)
+                if (row.length > 0 && row[0] != null) rows.putIfAbsent(row[0], row);
+
+            String[] headers = parser.getContext().headers();
+            if (headers == null) throw new IOException("Lookup table has no headers: " + file);
+            return new HashLookupTable(headers, rows);
+        }
+    }
+
+    @Override
+    public String[] getHeaders()
+    {
+        return headers;
+    }
+
+    @Override
+    public String[] get(String key)
+    {
+        return rows.get(key);
+    }
+
+    @Override
+    public long size()
+    {
+        return rows.size();
+    }
+
+}
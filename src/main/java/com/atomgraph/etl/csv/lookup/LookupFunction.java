@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.QueryBuildException;
+import org.apache.jena.sparql.expr.ExprEvalException;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.function.FunctionBase;
+import org.apache.jena.sparql.function.FunctionRegistry;
+
+/**
+ * SPARQL function that joins rows with registered lookup tables:
+ * <code>csv2rdf:lookup(table, key[, column])</code> returns the value of the column (by default the second one)
+ * in the row of the table whose first column equals the lexical form of the key.
+ * Missing tables, keys and columns are evaluation errors, which leave the <code>BIND</code> variable unbound.
+ * The function is registered globally when the first table is registered.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class LookupFunction extends FunctionBase
+{
+
+    public static final String URI = "https://w3id.org/atomgraph/csv2rdf#lookup";
+
+    private static final Map<String, LookupTable> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a lookup table under a name, replacing the table registered before.
+     *
+     * @param name table name, used as the first function argument
+     * @param table lookup table
+     */
+    public static void register(String name, LookupTable table)
+    {
+        FunctionRegistry registry = FunctionRegistry.get();
+        if (!registry.isRegistered(URI)) registry.put(URI, LookupFunction.class);
+        TABLES.put(name, table);
+    }
+
+    /**
+     * Unregisters a lookup table.
+     *
+     * @param name table name
+     * @return the table, or null if there was no table with the name
+     */
+    public static LookupTable unregister(String name)
+    {
+        return TABLES.remove(name);
+    }
+
+    /**
+     * Returns a registered lookup table.
+     *
+     * @param name table name
+     * @return the table, or null if there is no table with the name
+     */
+    public static LookupTable getTable(String name)
+    {
+        return TABLES.get(name);
+    }
+
+    @Override
+    public void checkBuild(String uri, ExprList args)
+    {
+        if (args.size() < 2 || args.size() > 3) throw new QueryBuildException("Function '" + uri + "' takes two or three arguments");
+    }
+
+    @Override
+    public NodeValue exec(List<NodeValue> args)
+    {
+        String name = lexicalForm(args.get(0));
+        LookupTable table = getTable(name);
+        if (table == null) throw new ExprEvalException("Lookup table '" + name + "' is not registered");
+
+        String[] row = table.get(lexicalForm(args.get(1)));
+        if (row == null) throw new ExprEvalException("Key not found in lookup table '" + name + "'");
+
+        int column = 1;
+        if (args.size() == 3)
+        {
+            column = table.getColumn(lexicalForm(args.get(2)));
+            if (column < 0) throw new ExprEvalException("Column " + args.get(2) + " not found in lookup table '" + name + "'");
+        }
+
+        if (column >= row.length || row[column] == null) throw new ExprEvalException("No value in lookup table '" + name + "'");
+        return NodeValue.makeString(row[column]);
+    }
+
+    private static String lexicalForm(NodeValue value)
+    {
+        Node node = value.asNode();
+        if (node.isLiteral()) return node.getLiteralLexicalForm();
+        if (node.isURI()) return node.getURI();
+        throw new ExprEvalException("Lookup arguments have to be literals or URIs: " + value);
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import java.util.Arrays;
+
+/**
+ * Reference table loaded from a CSV file, whose rows are looked up by the value of the first column.
+ * If several rows have the same key, the first one wins. Lookups are thread-safe.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see LookupFunction
+ */
+public interface LookupTable
+{
+
+    /**
+     * Returns the headers of the table.
+     *
+     * @return CSV headers
+     */
+    String[] getHeaders();
+
+    /**
+     * Returns the row with a key.
+     *
+     * @param key value of the first column
+     * @return row values, or null if there is no such row
+     */
+    String[] get(String key);
+
+    /**
+     * Returns the number of distinct keys.
+     *
+     * @return row count
+     */
+    long size();
+
+    /**
+     * Returns the index of a column.
+     *
+     * @param header column header
+     * @return column index, or -1 if there is no such column
+     */
+    default int getColumn(String header)
+    {
+        return Arrays.asList(getHeaders()).indexOf(header);
+    }
+
+}
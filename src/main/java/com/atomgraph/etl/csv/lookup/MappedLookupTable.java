@@ -0,0 +1,175 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import com.atomgraph.etl.csv.stream.ChunkedCSVStreamRDFOutput;
+import com.atomgraph.etl.csv.stream.RecordScanner;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lookup table that is memory-mapped from its CSV file, for tables that are too large for the heap.
+ * Only an open-addressing index of record offsets is kept on the heap. Each slot takes 16 bytes and the index is at most half full,
+ * with a power-of-two number of slots, so it takes 32 to 64 bytes per row.
+ * A lookup hashes the key, and parses the candidate records straight from the mapped file.
+ * The charset and the delimiter have to be supported by the chunked conversion, which scans record boundaries the same way.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see ChunkedCSVStreamRDFOutput#isSupported(java.nio.charset.Charset, char)
+ */
+public class MappedLookupTable implements LookupTable
+{
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final int MAX_SLOTS = 1 << 30;
+
+    private final Charset charset;
+    private final ThreadLocal<CsvParser> parsers;
+    private final MappedByteBuffer[] segments;
+    private final String[] headers;
+    private final long[] starts; // record start + 1, 0 marks an empty slot
+    private final int[] lengths, hashes;
+    private final int mask;
+    private long size;
+
+    /**
+     * Maps and indexes a CSV file with headers.
+     *
+     * @param file CSV file
+     * @param charset file charset
+     * @param delimiter value delimiter
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedLookupTable(Path file, Charset charset, char delimiter) throws IOException
+    {
+        if (!ChunkedCSVStreamRDFOutput.isSupported(charset, delimiter)) throw new IllegalArgumentException("Memory-mapped lookup tables do not support charset " + charset + " with delimiter '" + delimiter + "'");
+        this.charset = charset;
+        CsvParserSettings parserSettings = new CsvParserSettings();
+        parserSettings.setLineSeparatorDetectionEnabled(true);
+        parserSettings.getFormat().setDelimiter(delimiter);
+        this.parsers = ThreadLocal.withInitial(() -> new CsvParser(parserSettings));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) // mappings stay valid after closing
+        {
+            long fileSize = channel.size();
+            segments = new MappedByteBuffer[(int)((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++)
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, i * SEGMENT_SIZE, Math.min(SEGMENT_SIZE, fileSize - i * SEGMENT_SIZE));
+
+            RecordScanner scanner = new RecordScanner(delimiter);
+            long start = RecordScanner.skipBOM(channel, charset);
+            long headerEnd = scanner.findRecordEnd(channel, start, start, fileSize);
+            if (headerEnd == start) throw new IOException("Lookup table has no headers: " + file);
+            headers = parse(start, recordLength(start, headerEnd));
+
+            long[] records = { 0 };
+            scanner.findRecordEnd(channel, headerEnd, fileSize, fileSize, (recordStart, recordEnd) -> records[0]++);
+            if (records[0] > MAX_SLOTS / 2) throw new IOException("Lookup table has too many rows: " + file);
+            int slots = 2;
+            while (slots < records[0] * 2) slots <<= 1; // load factor of at most 50%
+            starts = new long[slots];
+            lengths = new int[slots];
+            hashes = new int[slots];
+            mask = slots - 1;
+
+            scanner.findRecordEnd(channel, headerEnd, fileSize, fileSize, (recordStart, recordEnd) ->
+            {
+                int length = recordLength(recordStart, recordEnd);
+                String[] row = parse(recordStart, length);
+                if (row != null && row.length > 0 && row[0] != null) put(row[0], recordStart, length);
+            });
+        }
+    }
+
+    @Override
+    public String[] getHeaders()
+    {
+        return headers;
+    }
+
+    @Override
+    public String[] get(String key)
+    {
+        int hash = key.hashCode();
+        for (int slot = spread(hash) & mask; starts[slot] != 0; slot = (slot + 1) & mask)
+            if (hashes[slot] == hash)
+            {
+                String[] row = parse(starts[slot] - 1, lengths[slot]);
+                if (key.equals(row[0])) return row;
+            }
+
+        return null;
+    }
+
+    @Override
+    public long size()
+    {
+        return size;
+    }
+
+    private void put(String key, long start, int length)
+    {
+        int hash = key.hashCode();
+        int slot = spread(hash) & mask;
+        for (; starts[slot] != 0; slot = (slot + 1) & mask)
+            if (hashes[slot] == hash && key.equals(parse(starts[slot] - 1, lengths[slot])[0])) return; // the first row wins
+
+        starts[slot] = start + 1;
+        lengths[slot] = length;
+        hashes[slot] = hash;
+        size++;
+    }
+
+    private static int spread(int hash)
+    {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    private static int recordLength(long start, long end)
+    {
+        if (end - start > Integer.MAX_VALUE) throw new IllegalStateException("CSV record starting at byte " + start + " is too large");
+        return (int)(end - start);
+    }
+
+    /**
+     * Parses a record from the mapped file, without its line ending.
+     */
+    private String[] parse(long start, int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int copied = 0; copied < length; )
+        {
+            long position = start + copied;
+            MappedByteBuffer segment = segments[(int)(position / SEGMENT_SIZE)];
+            int offset = (int)(position % SEGMENT_SIZE);
+            int count = Math.min(length - copied, segment.capacity() - offset);
+            segment.get(offset, bytes, copied, count); // absolute access does not change the shared buffer state
+            copied += count;
+        }
+
+        if (length > 0 && bytes[length - 1] == '\n') length--;
+        if (length > 0 && bytes[length - 1] == '\r') length--;
+        return parsers.get().parseLine(new String(bytes, 0, length, charset));
+    }
+
+}
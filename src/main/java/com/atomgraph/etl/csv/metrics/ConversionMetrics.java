@@ -0,0 +1,339 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.jena.atlas.json.JsonObject;
+
+/**
+ * Counters and timers of a conversion. They are updated concurrently by the parser, worker and writer threads.
+ * Times are summed over all threads that do the work, so with parallel transformation they can exceed the elapsed time.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ConversionMetrics implements ConversionMetricsMXBean
+{
+
+    private final LongAdder rows = new LongAdder(), inputTriples = new LongAdder(), outputTriples = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder(), transformNanos = new LongAdder(), writeNanos = new LongAdder();
+    private final LongAdder cacheLookups = new LongAdder(), cacheMisses = new LongAdder();
+    private final LongAdder rejectedRows = new LongAdder(), duplicateTriples = new LongAdder();
+    private final LatencyHistogram transformLatency = new LatencyHistogram();
+    private final AtomicLong startNanos = new AtomicLong(), endNanos = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final ConversionMetrics parent;
+
+    public ConversionMetrics()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates metrics of a part of a conversion, e.g. a chunk of the input. Counters and timers are also added to the parent metrics,
+     * while the elapsed time clock is separate.
+     *
+     * @param parent metrics of the whole conversion, or null
+     */
+    public ConversionMetrics(ConversionMetrics parent)
+    {
+        this.parent = parent;
+    }
+
+    /**
+     * Starts the elapsed time clock. Conversions that share the metrics can be nested or overlap:
+     * the clock runs from the first start until the last conversion stops.
+     */
+    public void start()
+    {
+        if (active.getAndIncrement() == 0)
+        {
+            startNanos.compareAndSet(0, System.nanoTime());
+            endNanos.set(0);
+        }
+    }
+
+    /**
+     * Stops the elapsed time clock, unless other conversions are still running.
+     */
+    public void stop()
+    {
+        if (active.decrementAndGet() == 0) endNanos.set(System.nanoTime());
+    }
+
+    public void addRows(long count)
+    {
+        rows.add(count);
+        if (parent != null) parent.addRows(count);
+    }
+
+    public void addRejectedRows(long count)
+    {
+        rejectedRows.add(count);
+        if (parent != null) parent.addRejectedRows(count);
+    }
+
+    public void addInputTriples(long count)
+    {
+        inputTriples.add(count);
+        if (parent != null) parent.addInputTriples(count);
+    }
+
+    public void addOutputTriples(long count)
+    {
+        outputTriples.add(count);
+        if (parent != null) parent.addOutputTriples(count);
+    }
+
+    public void addDuplicateTriples(long count)
+    {
+        duplicateTriples.add(count);
+        if (parent != null) parent.addDuplicateTriples(count);
+    }
+
+    public void addParseTime(long nanos)
+    {
+        parseNanos.add(nanos);
+        if (parent != null) parent.addParseTime(nanos);
+    }
+
+    /**
+     * Records the transformation time of a single row, which is also added to the row latency histogram.
+     *
+     * @param nanos transformation time in nanoseconds
+     */
+    public void addRowTransformTime(long nanos)
+    {
+        transformNanos.add(nanos);
+        transformLatency.record(nanos, 1);
+        if (parent != null) parent.addRowTransformTime(nanos);
+    }
+
+    /**
+     * Records the transformation time of a batch of rows that were transformed together, e.g. with a single query execution.
+     * Rows of a batch have no latency of their own, so the time is not added to the row latency histogram.
+     *
+     * @param nanos transformation time in nanoseconds
+     */
+    public void addTransformTime(long nanos)
+    {
+        transformNanos.add(nanos);
+        if (parent != null) parent.addTransformTime(nanos);
+    }
+
+    public void addWriteTime(long nanos)
+    {
+        writeNanos.add(nanos);
+        if (parent != null) parent.addWriteTime(nanos);
+    }
+
+    public void addCacheLookups(long count)
+    {
+        cacheLookups.add(count);
+        if (parent != null) parent.addCacheLookups(count);
+    }
+
+    public void addCacheMisses(long count)
+    {
+        cacheMisses.add(count);
+        if (parent != null) parent.addCacheMisses(count);
+    }
+
+    @Override
+    public long getRows()
+    {
+        return rows.sum();
+    }
+
+    @Override
+    public long getRejectedRows()
+    {
+        return rejectedRows.sum();
+    }
+
+    @Override
+    public long getDuplicateTriples()
+    {
+        return duplicateTriples.sum();
+    }
+
+    @Override
+    public long getInputTriples()
+    {
+        return inputTriples.sum();
+    }
+
+    @Override
+    public long getOutputTriples()
+    {
+        return outputTriples.sum();
+    }
+
+    @Override
+    public long getElapsedMillis()
+    {
+        long start = startNanos.get(), end = endNanos.get();
+        if (start == 0) return 0;
+        return TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+    }
+
+    @Override
+    public long getParseMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(parseNanos.sum());
+    }
+
+    @Override
+    public long getTransformMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(transformNanos.sum());
+    }
+
+    @Override
+    public long getWriteMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(writeNanos.sum());
+    }
+
+    @Override
+    public double getRowsPerSecond()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getRows() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public long getCacheHits()
+    {
+        return Math.max(0, cacheLookups.sum() - cacheMisses.sum()); // lookups and misses are not summed atomically
+    }
+
+    @Override
+    public long getCacheMisses()
+    {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRatio()
+    {
+        long lookups = cacheLookups.sum();
+        return lookups == 0 ? 0 : getCacheHits() / (double)lookups;
+    }
+
+    /**
+     * Returns the histogram of the transformation times of individual rows. Rows transformed in batches are not included.
+     *
+     * @return latency histogram
+     */
+    public LatencyHistogram getTransformLatency()
+    {
+        return transformLatency;
+    }
+
+    @Override
+    public long getTransformLatencyMeanMicros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(transformLatency.getMean());
+    }
+
+    @Override
+    public long getTransformLatencyP50Micros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(transformLatency.getPercentile(50));
+    }
+
+    @Override
+    public long getTransformLatencyP99Micros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(transformLatency.getPercentile(99));
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @param name object name, e.g. <code>com.atomgraph.etl.csv:type=ConversionMetrics,name=import</code>
+     * @return object name
+     * @throws JMException if the MBean cannot be registered
+     */
+    public ObjectName register(String name) throws JMException
+    {
+        ObjectName objectName = new ObjectName(name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Returns a one-line summary, as used for progress reports.
+     *
+     * @return summary
+     */
+    public String toProgressLine()
+    {
+        String line = String.format("rows=%d rows/s=%.0f input-triples=%d output-triples=%d parse=%dms transform=%dms write=%dms latency-p50=%dus latency-p99=%dus",
+            getRows(), getRowsPerSecond(), getInputTriples(), getOutputTriples(), getParseMillis(), getTransformMillis(), getWriteMillis(),
+            getTransformLatencyP50Micros(), getTransformLatencyP99Micros());
+        if (rejectedRows.sum() > 0) line += " rejected=" + getRejectedRows();
+        if (duplicateTriples.sum() > 0) line += " duplicates=" + getDuplicateTriples();
+        if (cacheLookups.sum() == 0) return line;
+
+        return line + String.format(" cache-hits=%d cache-misses=%d", getCacheHits(), getCacheMisses());
+    }
+
+    /**
+     * Returns the metrics as JSON.
+     *
+     * @return JSON object
+     */
+    public JsonObject toJSON()
+    {
+        JsonObject latency = new JsonObject();
+        latency.put("count", transformLatency.getCount());
+        latency.put("meanMicros", getTransformLatencyMeanMicros());
+        latency.put("p50Micros", getTransformLatencyP50Micros());
+        latency.put("p90Micros", TimeUnit.NANOSECONDS.toMicros(transformLatency.getPercentile(90)));
+        latency.put("p99Micros", getTransformLatencyP99Micros());
+        latency.put("p999Micros", TimeUnit.NANOSECONDS.toMicros(transformLatency.getPercentile(99.9)));
+
+        JsonObject cache = new JsonObject();
+        cache.put("hits", getCacheHits());
+        cache.put("misses", getCacheMisses());
+
+        JsonObject json = new JsonObject();
+        json.put("rows", getRows());
+        json.put("rejectedRows", getRejectedRows());
+        json.put("inputTriples", getInputTriples());
+        json.put("outputTriples", getOutputTriples());
+        json.put("duplicateTriples", getDuplicateTriples());
+        json.put("elapsedMillis", getElapsedMillis());
+        json.put("parseMillis", getParseMillis());
+        json.put("transformMillis", getTransformMillis());
+        json.put("writeMillis", getWriteMillis());
+        json.put("rowsPerSecond", Math.round(getRowsPerSecond()));
+        json.put("transformLatency", latency);
+        json.put("termCache", cache);
+        return json;
+    }
+
+}
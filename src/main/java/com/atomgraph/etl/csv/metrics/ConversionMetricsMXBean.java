@@ -0,0 +1,59 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.metrics;
+
+/**
+ * JMX view of the conversion metrics.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public interface ConversionMetricsMXBean
+{
+
+    long getRows();
+
+    long getRejectedRows();
+
+    long getInputTriples();
+
+    long getOutputTriples();
+
+    long getDuplicateTriples();
+
+    long getElapsedMillis();
+
+    long getParseMillis();
+
+    long getTransformMillis();
+
+    long getWriteMillis();
+
+    double getRowsPerSecond();
+
+    long getTransformLatencyMeanMicros();
+
+    long getTransformLatencyP50Micros();
+
+    long getTransformLatencyP99Micros();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+}
@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with power-of-two buckets.
+ * Bucket <em>i</em> counts latencies in <code>[2<sup>i</sup>, 2<sup>i+1</sup>)</code>, so percentiles are accurate within a factor of 2.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class LatencyHistogram
+{
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder(), total = new LongAdder();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records the same latency multiple times, e.g. the average latency of the rows in a batch.
+     *
+     * @param nanos latency in nanoseconds
+     * @param times number of occurrences
+     */
+    public void record(long nanos, long times)
+    {
+        if (times < 1) return;
+
+        buckets.addAndGet(bucket(nanos), times);
+        count.add(times);
+        total.add(Math.max(nanos, 0) * times);
+    }
+
+    private static int bucket(long nanos)
+    {
+        return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMean()
+    {
+        long n = getCount();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Returns the upper bound of the bucket that contains the given percentile.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        long n = getCount();
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long)Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += buckets.get(i);
+            if (seen >= rank) return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+        }
+        return Long.MAX_VALUE; // concurrent records since the count was read
+    }
+
+}
@@ -0,0 +1,407 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.server;
+
+import com.atomgraph.etl.csv.TermCache;
+import com.atomgraph.etl.csv.io.Compression;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import com.atomgraph.etl.csv.stream.CSVStreamRDFOutput;
+import com.atomgraph.etl.csv.stream.OutputFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QueryParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * HTTP server that converts CSV request bodies to RDF, using the JDK built-in HTTP server.
+ * <p>
+ * <code>POST /convert/{name}</code> transforms the CSV body with a named query registered at startup,
+ * <code>POST /convert?query={sparql}</code> with a query sent in the request.
+ * The RDF output is streamed using chunked transfer encoding while the body is being parsed, in the format negotiated from the <code>Accept</code> header.
+ * Every request runs on its own virtual thread. The number of concurrent conversions is capped, requests that are not admitted in time get <code>503 Service Unavailable</code>.
+ * Admitted conversions run on a pool of platform threads of the same size, as the request streams of the JDK server synchronize on reads,
+ * which would pin the carrier threads of virtual threads while waiting for a slow upload.
+ * <code>GET /metrics</code> returns the conversion metrics of the server as JSON.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+@Command(name = "csv2rdf-server")
+public class CSV2RDFServer
+{
+
+    private static final Logger log = LoggerFactory.getLogger(CSV2RDFServer.class);
+
+    private static final char DEFAULT_DELIMITER = ",".charAt(0);
+
+    @Option(names = { "--host" }, description = "Address the server listens on (default: all addresses)")
+    private String host;
+
+    @Option(names = { "--port" }, description = "Port the server listens on, 0 for any free port (default: ${DEFAULT-VALUE})")
+    private int port = 8080;
+
+    @Option(names = { "--base" }, description = "Base URI of the RDF output data, used unless the request specifies the base parameter\nExample: https://localhost/")
+    private URI baseURI;
+
+    @Option(names = { "--query" }, paramLabel = "name=query-file", description = "Named SPARQL CONSTRUCT query, parsed at startup and used by POST /convert/{name}. Can be repeated")
+    private Map<String, Path> queryFiles = new LinkedHashMap<>();
+
+    @Option(names = { "--max-concurrent" }, description = "Maximum number of concurrent conversions (default: number of processors)")
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = { "--admission-timeout" }, paramLabel = "millis", description = "How long a request waits for a conversion slot before it is rejected with 503 (default: ${DEFAULT-VALUE})")
+    private long admissionTimeout = 1000;
+
+    @Option(names = { "--max-chars-per-column" }, description = "Maximum number of characters allowed for any given value being read (default: 4096)")
+    private Integer maxCharsPerColumn;
+
+    @Option(names = { "--cache-size" }, description = "Maximum number of cached RDF terms per column and per compiled BIND expression of a conversion, 0 to disable caching (default: ${DEFAULT-VALUE})")
+    private int cacheSize = 0;
+
+    private final Map<String, Query> queries = new HashMap<>();
+    private final ConversionMetrics metrics = new ConversionMetrics();
+    private Semaphore permits;
+    private ExecutorService executor, conversions;
+    private HttpServer server;
+
+    public static void main(String[] args) throws IOException
+    {
+        CSV2RDFServer server = new CSV2RDFServer();
+
+        try
+        {
+            CommandLine.ParseResult parseResult = new CommandLine(server).parseArgs(args);
+            if (CommandLine.printHelpIfRequested(parseResult)) return;
+        }
+        catch (CommandLine.ParameterException ex)
+        { // command line arguments could not be parsed
+            System.err.println(ex.getMessage());
+            ex.getCommandLine().usage(System.err);
+            return;
+        }
+
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(5)));
+        System.err.println("CSV2RDF server listening on port " + server.getPort());
+    }
+
+    /**
+     * Parses the named queries and starts the server.
+     *
+     * @throws IOException if a query file cannot be read or the server cannot be bound
+     */
+    public void start() throws IOException
+    {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("Maximum number of concurrent conversions must be positive");
+
+        for (Map.Entry<String, Path> queryFile : queryFiles.entrySet())
+        {
+            String queryString = Files.readString(queryFile.getValue(), StandardCharsets.UTF_8);
+            Query query = QueryFactory.create(queryString, baseURI != null ? baseURI.toString() : null);
+            if (!query.isConstructType()) throw new IllegalArgumentException("Only CONSTRUCT queries are supported: " + queryFile.getKey());
+            queries.put(queryFile.getKey(), query);
+        }
+
+        permits = new Semaphore(maxConcurrent);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        conversions = Executors.newFixedThreadPool(maxConcurrent, Thread.ofPlatform().name("csv2rdf-conversion-", 1).daemon().factory());
+        server = HttpServer.create(host != null ? new InetSocketAddress(host, port) : new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/convert", this::handleConvert);
+        server.createContext("/metrics", this::handleMetrics);
+        server.start();
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @param delaySeconds maximum time to wait for running conversions to finish
+     */
+    public void stop(int delaySeconds)
+    {
+        if (server == null) return;
+
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+        conversions.shutdownNow();
+    }
+
+    protected void handleConvert(HttpExchange exchange) throws IOException
+    {
+        processConvert(exchange); // a failed conversion throws without completing the response, so that the server closes the connection
+        exchange.close();
+    }
+
+    private void processConvert(HttpExchange exchange) throws IOException
+    {
+        if (!exchange.getRequestMethod().equals("POST"))
+        {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            sendError(exchange, 405, "Only POST is supported");
+            return;
+        }
+
+        Map<String, String> params = parseParams(exchange.getRequestURI().getRawQuery());
+        String base = params.getOrDefault("base", baseURI != null ? baseURI.toString() : null);
+        if (base == null)
+        {
+            sendError(exchange, 400, "The base parameter is required");
+            return;
+        }
+
+        Query query = getQuery(exchange, params, base);
+        if (query == null) return;
+
+        OutputFormat format = negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+        if (format == null)
+        {
+            sendError(exchange, 406, "Supported media types: application/n-triples, application/n-quads, text/turtle, application/rdf+thrift, application/rdf+protobuf");
+            return;
+        }
+
+        String delimiter = params.get("delimiter");
+        if (delimiter != null && delimiter.length() != 1)
+        {
+            sendError(exchange, 400, "The delimiter parameter has to be a single character");
+            return;
+        }
+
+        Charset charset;
+        try
+        {
+            charset = getCharset(exchange.getRequestHeaders().getFirst("Content-Type"));
+        }
+        catch (IllegalArgumentException ex)
+        {
+            sendError(exchange, 415, "Unsupported charset");
+            return;
+        }
+
+        try
+        {
+            if (!permits.tryAcquire(admissionTimeout, TimeUnit.MILLISECONDS))
+            {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many concurrent conversions");
+                return;
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try
+        {
+            char separator = delimiter != null ? delimiter.charAt(0) : DEFAULT_DELIMITER;
+            Future<?> conversion = conversions.submit(() ->
+            {
+                convert(exchange, query, base, separator, charset, format);
+                return null;
+            });
+            conversion.get(); // never queued, the pool is as large as the number of permits
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            if (ex.getCause() instanceof IOException ioEx) throw ioEx;
+            throw new IOException("Conversion failed", ex.getCause());
+        }
+        finally
+        {
+            permits.release();
+        }
+    }
+
+    /**
+     * Streams the converted request body as the response. The status is sent before the conversion starts,
+     * so conversion errors abort the connection instead, which the client sees as an incomplete response.
+     */
+    private void convert(HttpExchange exchange, Query query, String base, char delimiter, Charset charset, OutputFormat format) throws IOException
+    {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) body = Compression.GZIP.decompress(body);
+
+        exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+        exchange.sendResponseHeaders(200, 0); // chunked transfer encoding
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(body, charset)))
+        {
+            OutputStream os = exchange.getResponseBody();
+            CSVStreamRDFOutput rdfOutput = new CSVStreamRDFOutput(reader, base, query, delimiter, maxCharsPerColumn);
+            rdfOutput.setMetrics(metrics);
+            if (cacheSize > 0) rdfOutput.setTermCache(new TermCache(cacheSize, metrics));
+            rdfOutput.write(os, format, StandardCharsets.UTF_8);
+            os.flush();
+        }
+        catch (RuntimeException ex)
+        {
+            if (log.isWarnEnabled()) log.warn("Conversion failed", ex);
+            throw new IOException("Conversion failed", ex); // the server closes the connection
+        }
+    }
+
+    /**
+     * Returns the named query or parses the query sent in the request, or sends an error.
+     */
+    private Query getQuery(HttpExchange exchange, Map<String, String> params, String base) throws IOException
+    {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.length() > "/convert/".length() ? path.substring("/convert/".length()) : null;
+        if (name != null)
+        {
+            Query query = queries.get(name);
+            if (query == null) sendError(exchange, 404, "Unknown query: " + name);
+            return query != null ? query.cloneQuery() : null; // Query instances are not meant to be shared between threads
+        }
+
+        String queryString = params.get("query");
+        if (queryString == null)
+        {
+            sendError(exchange, 400, "Either a named query or the query parameter is required");
+            return null;
+        }
+
+        try
+        {
+            Query query = QueryFactory.create(queryString, base);
+            if (query.isConstructType()) return query;
+
+            sendError(exchange, 400, "Only CONSTRUCT queries are supported");
+            return null;
+        }
+        catch (QueryParseException ex)
+        {
+            sendError(exchange, 400, ex.getMessage());
+            return null;
+        }
+    }
+
+    protected void handleMetrics(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            byte[] json = JSON.toString(metrics.toJSON()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            exchange.getResponseBody().write(json);
+        }
+    }
+
+    /**
+     * Returns the first supported format in the <code>Accept</code> header. Quality values are not taken into account.
+     *
+     * @param accept <code>Accept</code> header value
+     * @return format, N-Triples if the header is missing or accepts anything, or null if no media type is supported
+     */
+    protected static OutputFormat negotiate(String accept)
+    {
+        if (accept == null || accept.isBlank()) return OutputFormat.NTRIPLES;
+
+        for (String range : accept.split(","))
+        {
+            String mediaType = range.split(";")[0].trim();
+            if (mediaType.equals("*/*") || mediaType.equals("application/*")) return OutputFormat.NTRIPLES;
+            if (mediaType.equals("text/*")) return OutputFormat.TURTLE;
+            OutputFormat format = OutputFormat.fromContentType(mediaType);
+            if (format != null) return format;
+        }
+        return null;
+    }
+
+    private static Charset getCharset(String contentType)
+    {
+        if (contentType != null)
+            for (String param : contentType.split(";"))
+            {
+                String[] pair = param.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) return Charset.forName(pair[1].trim().replace("\"", ""));
+            }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Map<String, String> parseParams(String rawQuery)
+    {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+
+        for (String param : rawQuery.split("&"))
+        {
+            String[] pair = param.split("=", 2);
+            params.putIfAbsent(URLDecoder.decode(pair[0], StandardCharsets.UTF_8), pair.length == 2 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+        }
+        return params;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+    {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return port
+     */
+    public int getPort()
+    {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    public ConversionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+}
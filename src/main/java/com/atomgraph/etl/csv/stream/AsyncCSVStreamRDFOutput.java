@@ -0,0 +1,386 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.io.PublisherInputStream;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Runs a conversion asynchronously and publishes its output as a {@link Flow.Publisher} of triples or of serialized byte chunks.
+ * <p>
+ * The conversion starts when the publisher is subscribed, and only proceeds as fast as the subscriber requests items:
+ * when the buffer of the publisher is full, the conversion thread blocks until there is demand.
+ * By default conversions run on virtual threads, which do not hold on to a platform thread while blocked,
+ * so many small concurrent conversions are cheap. The input can be read from a {@link ReadableByteChannel} or a {@link Flow.Publisher} of byte buffers.
+ * <p>
+ * The result completes with the metrics of the conversion when it has finished, while the subscriber may still be receiving buffered items.
+ * Cancelling the subscription, calling {@link #cancel()} or completing the result, e.g. using {@link CompletableFuture#orTimeout(long, TimeUnit)},
+ * stops the conversion before the next row. The subscriber then receives <code>onError</code> and the result completes exceptionally.
+ * An instance runs a single conversion.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class AsyncCSVStreamRDFOutput
+{
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final long OFFER_TIMEOUT_MILLIS = 100; // how often a conversion that waits for demand checks whether it has been cancelled
+
+    private final CSVStreamRDFOutput output;
+    private final Executor executor;
+    private final CompletableFuture<ConversionMetrics> result = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private int bufferCapacity = Flow.defaultBufferSize();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Creates an asynchronous output that runs on a virtual thread.
+     *
+     * @param output configured conversion
+     */
+    public AsyncCSVStreamRDFOutput(CSVStreamRDFOutput output)
+    {
+        this(output, VIRTUAL_THREADS);
+    }
+
+    /**
+     * Creates an asynchronous output.
+     *
+     * @param output configured conversion
+     * @param executor executor that runs the conversion and delivers the published items
+     */
+    public AsyncCSVStreamRDFOutput(CSVStreamRDFOutput output, Executor executor)
+    {
+        this.output = output;
+        this.executor = executor;
+        result.whenComplete((metrics, ex) ->
+        {
+            if (ex != null) output.cancel(); // cancelled or timed out by the caller
+        });
+    }
+
+    /**
+     * Creates a reader of CSV data from a channel.
+     *
+     * @param channel input channel
+     * @param charset input charset
+     * @return reader
+     */
+    public static Reader newReader(ReadableByteChannel channel, Charset charset)
+    {
+        return Channels.newReader(channel, charset);
+    }
+
+    /**
+     * Creates a reader of CSV data from a publisher, which is subscribed immediately and requested one buffer at a time.
+     *
+     * @param publisher publisher of the input bytes
+     * @param charset input charset
+     * @return reader
+     * @see PublisherInputStream
+     */
+    public static Reader newReader(Flow.Publisher<ByteBuffer> publisher, Charset charset)
+    {
+        return new InputStreamReader(new PublisherInputStream(publisher), charset);
+    }
+
+    /**
+     * Starts the conversion into a stream.
+     *
+     * @param stream RDF output stream
+     * @return result
+     */
+    public CompletableFuture<ConversionMetrics> write(StreamRDF stream)
+    {
+        if (!started.compareAndSet(false, true)) throw new IllegalStateException("The conversion has already been started");
+
+        start(null, () -> output.write(stream));
+        return result;
+    }
+
+    /**
+     * Returns a publisher of the output triples. The conversion starts when it is subscribed, and it can only be subscribed once.
+     *
+     * @return triple publisher
+     */
+    public Flow.Publisher<Triple> publishTriples()
+    {
+        return subscriber ->
+        {
+            SubmissionPublisher<Triple> publisher = subscribe(subscriber);
+            if (publisher != null) start(publisher, () -> output.write(new StreamRDFBase()
+            {
+
+                @Override
+                public void triple(Triple triple)
+                {
+                    publish(publisher, triple);
+                }
+
+                @Override
+                public void quad(Quad quad)
+                {
+                    publish(publisher, quad.asTriple());
+                }
+
+            }));
+        };
+    }
+
+    /**
+     * Returns a publisher of the serialized output, in chunks of up to the chunk size. The conversion starts when it is subscribed, and it can only be subscribed once.
+     * Every chunk is a new buffer that the subscriber can keep.
+     *
+     * @param format RDF output format
+     * @param charset output charset
+     * @return byte chunk publisher
+     */
+    public Flow.Publisher<ByteBuffer> publish(OutputFormat format, Charset charset)
+    {
+        return subscriber ->
+        {
+            SubmissionPublisher<ByteBuffer> publisher = subscribe(subscriber);
+            if (publisher != null) start(publisher, () ->
+            {
+                try (OutputStream os = new ChunkOutputStream(getChunkSize(), chunk -> publish(publisher, chunk)))
+                {
+                    output.write(os, format, charset);
+                }
+                catch (IOException ex)
+                {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        };
+    }
+
+    /**
+     * Subscribes a subscriber to a new publisher, unless the conversion has already been started.
+     *
+     * @return publisher, or null if the subscriber has been rejected
+     */
+    private <T> SubmissionPublisher<T> subscribe(Flow.Subscriber<? super T> subscriber)
+    {
+        SubmissionPublisher<T> publisher = new SubmissionPublisher<>(executor, getBufferCapacity());
+        if (started.compareAndSet(false, true))
+        {
+            publisher.subscribe(subscriber);
+            return publisher;
+        }
+
+        publisher.closeExceptionally(new IllegalStateException("The conversion has already been started"));
+        publisher.subscribe(subscriber); // receives onError
+        return null;
+    }
+
+    /**
+     * Runs the conversion on the executor and completes the publisher and the result when it ends.
+     */
+    private void start(SubmissionPublisher<?> publisher, Runnable conversion)
+    {
+        try
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    conversion.run();
+                    if (output.isCancelled()) fail(publisher, result.state() == Future.State.FAILED ? result.exceptionNow() : new CancellationException("The conversion has been cancelled"));
+                    else
+                    {
+                        if (publisher != null) publisher.close();
+                        result.complete(output.getMetrics());
+                    }
+                }
+                catch (RuntimeException | Error ex)
+                {
+                    fail(publisher, ex);
+                }
+            });
+        }
+        catch (RuntimeException ex) // rejected by the executor
+        {
+            fail(publisher, ex);
+        }
+    }
+
+    private void fail(SubmissionPublisher<?> publisher, Throwable failure)
+    {
+        if (publisher != null) publisher.closeExceptionally(failure);
+        result.completeExceptionally(failure);
+    }
+
+    /**
+     * Publishes an item, waiting while the subscriber has no demand.
+     * Cancels the conversion if the subscriber has cancelled its subscription.
+     */
+    private <T> void publish(SubmissionPublisher<T> publisher, T item)
+    {
+        while (!output.isCancelled())
+        {
+            if (!publisher.hasSubscribers())
+            {
+                output.cancel();
+                return;
+            }
+            if (publisher.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, null) >= 0) return; // otherwise timed out waiting for demand
+        }
+    }
+
+    /**
+     * Cancels the conversion.
+     */
+    public void cancel()
+    {
+        result.cancel(false);
+    }
+
+    /**
+     * Returns the result, which completes with the conversion metrics when the conversion has finished.
+     *
+     * @return result
+     */
+    public CompletableFuture<ConversionMetrics> getResult()
+    {
+        return result;
+    }
+
+    public CSVStreamRDFOutput getCSVStreamRDFOutput()
+    {
+        return output;
+    }
+
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public int getBufferCapacity()
+    {
+        return bufferCapacity;
+    }
+
+    /**
+     * Sets the maximum number of items that are buffered for the subscriber before the conversion waits for demand.
+     *
+     * @param bufferCapacity buffer capacity, {@link Flow#defaultBufferSize()} by default
+     */
+    public void setBufferCapacity(int bufferCapacity)
+    {
+        if (bufferCapacity < 1) throw new IllegalArgumentException("Buffer capacity must be positive");
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the maximum size of the published byte chunks.
+     *
+     * @param chunkSize chunk size in bytes, 64 KB by default
+     */
+    public void setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Collects written bytes into chunks and hands them over when they are full, flushed or closed.
+     */
+    private static class ChunkOutputStream extends OutputStream
+    {
+
+        private final int chunkSize;
+        private final Consumer<ByteBuffer> chunks;
+        private byte[] chunk;
+        private int position;
+
+        ChunkOutputStream(int chunkSize, Consumer<ByteBuffer> chunks)
+        {
+            this.chunkSize = chunkSize;
+            this.chunks = chunks;
+            this.chunk = new byte[chunkSize];
+        }
+
+        @Override
+        public void write(int b)
+        {
+            chunk[position++] = (byte)b;
+            if (position == chunkSize) flush();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            while (len > 0)
+            {
+                int length = Math.min(len, chunkSize - position);
+                System.arraycopy(b, off, chunk, position, length);
+                position += length;
+                off += length;
+                len -= length;
+                if (position == chunkSize) flush();
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+            if (position == 0) return;
+
+            chunks.accept(ByteBuffer.wrap(chunk, 0, position));
+            chunk = new byte[chunkSize]; // the subscriber owns the previous chunk
+            position = 0;
+        }
+
+        @Override
+        public void close()
+        {
+            flush();
+        }
+
+    }
+
+}
@@ -16,11 +16,19 @@
  */
 package com.atomgraph.etl.csv.stream;
 
+import com.atomgraph.etl.csv.ColumnSchema;
+import com.atomgraph.etl.csv.DeltaIndex;
+import com.atomgraph.etl.csv.FingerprintSet;
+import com.atomgraph.etl.csv.RowSubjects;
+import com.atomgraph.etl.csv.TermCache;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
 import org.apache.jena.query.Query;
 import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.riot.system.StreamRDFLib;
@@ -38,7 +46,22 @@ public class CSVStreamRDFOutput
     private final Query query;
     private final char delimiter;
     private final Integer maxCharsPerColumn;
-    private CSVStreamRDFProcessor processor;
+    private int threads = 1;
+    private boolean ordered = true;
+    private boolean compiled = true;
+    private boolean projected = true;
+    private boolean distinct = true;
+    private int batchSize = 1;
+    private String[] headers;
+    private ConversionMetrics metrics = new ConversionMetrics();
+    private TermCache termCache;
+    private ColumnSchema schema;
+    private RowSubjects rowSubjects;
+    private FingerprintSet fingerprints;
+    private DeltaIndex deltaIndex;
+    private long firstRowNumber = 1;
+    private volatile CSVStreamRDFProcessor processor;
+    private volatile boolean cancelled;
     
     public CSVStreamRDFOutput(Reader reader, String base, Query query, char delimiter, Integer maxCharsPerColumn)
     {
@@ -59,20 +82,75 @@ public class CSVStreamRDFOutput
         write(StreamRDFLib.writer(writer));
     }
     
+    public void write(OutputStream os, OutputFormat format, Charset charset)
+    {
+        write(format.createStream(os, charset));
+    }
+    
     public void write(StreamRDF stream)
     {
-        processor = new CSVStreamRDFProcessor(stream, getBase(), getQuery());
+        if (getFingerprints() != null) stream = new DedupStreamRDF(stream, getFingerprints(), getMetrics());
+        processor = createProcessor(stream);
+        if (isCancelled()) processor.stop(); // cancelled before the processor was created
+        stream.start();
+        getQuery().getPrefixMapping().getNsPrefixMap().forEach(stream::prefix); // used by formats with prefix compression
         
         CsvParserSettings parserSettings = new CsvParserSettings();
         parserSettings.setLineSeparatorDetectionEnabled(true);
         parserSettings.setProcessor(processor);
-        parserSettings.setHeaderExtractionEnabled(true);
+        if (getHeaders() != null) parserSettings.setHeaders(getHeaders()); // input does not start with a header row
+        parserSettings.setHeaderExtractionEnabled(getHeaders() == null);
         parserSettings.getFormat().setDelimiter(getDelimiter());
         if (maxCharsPerColumn != null) parserSettings.setMaxCharsPerColumn(maxCharsPerColumn);
+        List<String> selectedHeaders = processor.getSelectedHeaders();
+        if (selectedHeaders != null && !selectedHeaders.isEmpty())
+        {
+            parserSettings.setColumnReorderingEnabled(false); // values of the other columns are null, so column indexes do not change
+            parserSettings.selectFields(selectedHeaders.toArray(String[]::new)); // the parser skips the other values without materializing them
+        }
 
-        CsvParser parser = new CsvParser(parserSettings);
-        parser.parse(getReader());
-        stream.finish(); // flush the statements into the stream
+        getMetrics().start();
+        try
+        {
+            CsvParser parser = new CsvParser(parserSettings);
+            parser.parse(getReader());
+            stream.finish(); // flush the statements into the stream
+        }
+        finally
+        {
+            getMetrics().stop();
+        }
+    }
+    
+    /**
+     * Creates the row processor. Rows are transformed on the parser thread unless more than one thread is configured.
+     * With a delta index, rows are always transformed on the parser thread and the stream has to be an {@link RDFPatchStreamRDF}.
+     * 
+     * @param stream RDF output stream
+     * @return row processor
+     */
+    protected CSVStreamRDFProcessor createProcessor(StreamRDF stream)
+    {
+        CSVStreamRDFProcessor rowProcessor;
+        if (getDeltaIndex() != null)
+        {
+            if (!(stream instanceof RDFPatchStreamRDF patch)) throw new IllegalArgumentException("Delta conversion requires an RDFPatchStreamRDF output");
+            rowProcessor = new DeltaCSVStreamRDFProcessor(patch, getBase(), getQuery(), getDeltaIndex());
+        }
+        else if (getThreads() > 1) rowProcessor = new ParallelCSVStreamRDFProcessor(stream, getBase(), getQuery(), getThreads(), isOrdered(),
+            Math.max(ParallelCSVStreamRDFProcessor.DEFAULT_CHUNK_SIZE, getBatchSize())); // a chunk should contain at least one full batch
+        else rowProcessor = new CSVStreamRDFProcessor(stream, getBase(), getQuery());
+        
+        if (!isCompiled()) rowProcessor.setCompiledRowMapping(null);
+        if (!isProjected()) rowProcessor.setProjection(null);
+        rowProcessor.setDistinct(isDistinct());
+        rowProcessor.setBatchSize(getBatchSize());
+        rowProcessor.setMetrics(getMetrics());
+        rowProcessor.setTermCache(getTermCache());
+        rowProcessor.setSchema(getSchema());
+        rowProcessor.setRowSubjects(getRowSubjects());
+        rowProcessor.setFirstRowNumber(getFirstRowNumber());
+        return rowProcessor;
     }
     
     public Reader getReader()
@@ -100,9 +178,246 @@ public class CSVStreamRDFOutput
         return maxCharsPerColumn;
     }
     
+    public int getThreads()
+    {
+        return threads;
+    }
+    
+    /**
+     * Sets the number of threads that transform rows in parallel.
+     * 
+     * @param threads thread count, 1 by default
+     */
+    public void setThreads(int threads)
+    {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive");
+        this.threads = threads;
+    }
+    
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+    
+    /**
+     * Sets whether parallel transformation preserves the input row order in the output.
+     * Unordered output avoids waiting on slow batches and is therefore faster.
+     * 
+     * @param ordered true to preserve the row order (default)
+     */
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+    
+    public boolean isCompiled()
+    {
+        return compiled;
+    }
+    
+    /**
+     * Sets whether queries in the supported subset are compiled into a direct row mapping.
+     * Other queries are always evaluated using SPARQL.
+     * 
+     * @param compiled false to evaluate every row using SPARQL
+     * @see com.atomgraph.etl.csv.CompiledRowMapping
+     */
+    public void setCompiled(boolean compiled)
+    {
+        this.compiled = compiled;
+    }
+    
+    public boolean isProjected()
+    {
+        return projected;
+    }
+    
+    /**
+     * Sets whether only the columns referenced by the query are parsed and added to the row graphs.
+     * Queries with variable predicates or property paths always get all columns.
+     * 
+     * @param projected false to parse all columns
+     * @see com.atomgraph.etl.csv.ColumnProjection
+     */
+    public void setProjected(boolean projected)
+    {
+        this.projected = projected;
+    }
+    
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+    
+    /**
+     * Sets whether duplicate triples within a row are dropped before they are written.
+     * 
+     * @param distinct false to write every triple instantiated by the query
+     */
+    public void setDistinct(boolean distinct)
+    {
+        this.distinct = distinct;
+    }
+    
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+    
+    /**
+     * Sets the number of rows transformed with a single query execution.
+     * Only applies to queries that are not compiled and in which rows cannot join across each other, and not to row subjects minted from key columns, which can repeat.
+     * 
+     * @param batchSize number of rows per batch, 1 by default
+     * @see com.atomgraph.etl.csv.BatchModelTransformer
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+    
+    public String[] getHeaders()
+    {
+        return headers;
+    }
+    
+    /**
+     * Sets the headers of input that does not start with a header row, such as a part of a larger CSV file.
+     * 
+     * @param headers CSV headers, or null to extract them from the first row (default)
+     */
+    public void setHeaders(String[] headers)
+    {
+        this.headers = headers;
+    }
+    
+    public ConversionMetrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * Sets the metrics that are updated during the conversion.
+     * 
+     * @param metrics conversion metrics
+     */
+    public void setMetrics(ConversionMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+    
+    public TermCache getTermCache()
+    {
+        return termCache;
+    }
+    
+    /**
+     * Sets the cache of cell literals and of compiled <code>BIND</code> results, which is shared by the worker threads.
+     * 
+     * @param termCache term cache, or null to disable caching (default)
+     */
+    public void setTermCache(TermCache termCache)
+    {
+        this.termCache = termCache;
+    }
+    
+    public ColumnSchema getSchema()
+    {
+        return schema;
+    }
+    
+    /**
+     * Sets the column schema, which parses typed cells into typed literals before the transformation.
+     * 
+     * @param schema column schema, or null to transform every cell into a string literal (default)
+     */
+    public void setSchema(ColumnSchema schema)
+    {
+        this.schema = schema;
+    }
+    
+    public RowSubjects getRowSubjects()
+    {
+        return rowSubjects;
+    }
+    
+    /**
+     * Sets how the subjects of rows are minted.
+     * 
+     * @param rowSubjects row subjects, or null for a fresh blank node per row (default)
+     */
+    public void setRowSubjects(RowSubjects rowSubjects)
+    {
+        this.rowSubjects = rowSubjects;
+    }
+    
+    public long getFirstRowNumber()
+    {
+        return firstRowNumber;
+    }
+    
+    /**
+     * Sets the number of the first row, e.g. when the input is a chunk of a larger file.
+     * 
+     * @param firstRowNumber first row number, 1 by default
+     */
+    public void setFirstRowNumber(long firstRowNumber)
+    {
+        this.firstRowNumber = firstRowNumber;
+    }
+    
+    public FingerprintSet getFingerprints()
+    {
+        return fingerprints;
+    }
+    
+    /**
+     * Sets the fingerprints of the triples that have been written, which is used to drop duplicate triples.
+     * 
+     * @param fingerprints fingerprint set, or null to write all triples (default)
+     */
+    public void setFingerprints(FingerprintSet fingerprints)
+    {
+        this.fingerprints = fingerprints;
+    }
+    
+    public DeltaIndex getDeltaIndex()
+    {
+        return deltaIndex;
+    }
+    
+    /**
+     * Sets the index of the previous conversion. Only the rows that have changed since then are transformed,
+     * and the difference is written as an RDF Patch.
+     * 
+     * @param deltaIndex delta index, or null to convert all rows (default)
+     * @see DeltaCSVStreamRDFProcessor
+     */
+    public void setDeltaIndex(DeltaIndex deltaIndex)
+    {
+        this.deltaIndex = deltaIndex;
+    }
+    
     public CSVStreamRDFProcessor getCSVStreamRDFProcessor()
     {
         return processor;
     }
     
+    /**
+     * Cancels the conversion. It stops before the next row is parsed, and <code>write()</code> returns normally with incomplete output.
+     * Can be called from any thread, also before the conversion has started.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        CSVStreamRDFProcessor current = processor;
+        if (current != null) current.stop();
+    }
+    
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+    
 }
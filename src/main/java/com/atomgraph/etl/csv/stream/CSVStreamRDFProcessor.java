@@ -16,17 +16,33 @@
  */
 package com.atomgraph.etl.csv.stream;
 
+import com.atomgraph.etl.csv.BatchModelTransformer;
+import com.atomgraph.etl.csv.ColumnProjection;
+import com.atomgraph.etl.csv.ColumnSchema;
+import com.atomgraph.etl.csv.CompiledRowMapping;
 import com.atomgraph.etl.csv.ModelTransformer;
+import com.atomgraph.etl.csv.RowSubjects;
+import com.atomgraph.etl.csv.TermCache;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
 import com.univocity.parsers.common.ParsingContext;
 import com.univocity.parsers.common.processor.RowProcessor;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import org.apache.jena.atlas.lib.IRILib;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.jena.riot.system.StreamRDFOps;
 
 /**
@@ -40,8 +56,26 @@ public class CSVStreamRDFProcessor implements RowProcessor
     private final StreamRDF stream;
     private final String base;
     private final BiFunction<Query, Model, Model> function = new ModelTransformer();
+    private final BatchModelTransformer batchTransformer = new BatchModelTransformer();
     private final Query query;
-    private int subjectCount, tripleCount;
+    private final boolean batchable;
+    private final AtomicLong subjectCount = new AtomicLong(), tripleCount = new AtomicLong();
+    private ConversionMetrics metrics = new ConversionMetrics();
+    private CompiledRowMapping mapping;
+    private ColumnProjection projection;
+    private TermCache termCache;
+    private ColumnSchema schema;
+    private RowSubjects rowSubjects;
+    private long firstRowNumber = 1;
+    private long rowNumber; // number of the last parsed row, updated on the parser thread
+    private volatile Columns columns;
+    private final ThreadLocal<Model> rowModel = ThreadLocal.withInitial(() -> ModelFactory.createModelForGraph(new RowGraph())); // reused for every row
+    private int batchSize = 1;
+    private boolean distinct = true;
+    private TripleBuffer buffer; // triples of the rows transformed on the parser thread
+    private volatile boolean stopped;
+    private List<String[]> batch = new ArrayList<>();
+    private long parsed; // end of the last callback on the parser thread
     
     public CSVStreamRDFProcessor(StreamRDF stream, String base, Query query)
     {
@@ -49,47 +83,330 @@ public class CSVStreamRDFProcessor implements RowProcessor
         this.base = base;
         if (!(query.isConstructType() || query.isDescribeType())) throw new IllegalArgumentException("Only CONSTRUCT and DESCRIBE queries can be used for transformation");
         this.query = query;
+        this.mapping = CompiledRowMapping.compile(query);
+        this.projection = ColumnProjection.of(query);
+        this.batchable = BatchModelTransformer.isBatchable(query);
     }
     
     @Override
     public void processStarted(ParsingContext context)
     {
-        subjectCount = tripleCount = 0;
+        subjectCount.set(0);
+        tripleCount.set(0);
+        batch = new ArrayList<>();
+        buffer = new TripleBuffer(isDistinct());
+        rowNumber = getFirstRowNumber() - 1;
+        if (context.headers() != null) getColumns(context.headers()); // create the column properties upfront
         if (getBase() != null) getStreamRDF().base(getBase());
+        parsed = System.nanoTime();
     }
 
     @Override
     public void rowProcessed(String[] row, ParsingContext context)
     {
-        Model rowModel = transformRow(row, context);
-        StreamRDFOps.sendTriplesToStream(rowModel.getGraph(), getStreamRDF()); // send the transformed RDF to the stream
+        if (isStopped())
+        {
+            context.stop(); // the parser ends the conversion as if the input had ended
+            return;
+        }
+        
+        getMetrics().addParseTime(System.nanoTime() - parsed); // time spent by the parser since the previous row
+        rowNumber++;
+        processRow(row, context);
+        parsed = System.nanoTime();
+    }
+    
+    /**
+     * Processes a parsed row.
+     * 
+     * @param row row values
+     * @param context parsing context
+     */
+    protected void processRow(String[] row, ParsingContext context)
+    {
+        if (getBatchSize() > 1)
+        {
+            batch.add(row);
+            if (batch.size() == getBatchSize()) flush(context);
+            return;
+        }
+        
+        long started = System.nanoTime();
+        buffer.clear();
+        buffer.nextRow();
+        transformRow(row, getRowNumber(), context, buffer);
+        getMetrics().addRowTransformTime(System.nanoTime() - started);
+        send(buffer);
+    }
+    
+    private void flush(ParsingContext context)
+    {
+        List<String[]> rows = batch;
+        batch = new ArrayList<>(getBatchSize());
+        buffer.clear();
+        transformRows(rows, getRowNumber() - rows.size() + 1, context, buffer);
+        send(buffer);
+    }
+    
+    /**
+     * Sends the transformed triples to the stream.
+     * 
+     * @param triples transformed triples
+     */
+    protected void send(TripleBuffer triples)
+    {
+        long started = System.nanoTime();
+        triples.sendTo(getStreamRDF());
+        getMetrics().addWriteTime(System.nanoTime() - started);
+        getMetrics().addOutputTriples(triples.size());
     }
 
+    /**
+     * Transforms the last parsed row.
+     * 
+     * @param row row values
+     * @param context parsing context
+     * @return transformed RDF
+     */
     public Model transformRow(String[] row, ParsingContext context)
     {
-        Model rowModel = ModelFactory.createDefaultModel();
-        Resource subject = rowModel.createResource();
-        subjectCount++;
+        return transformRow(row, getRowNumber(), context);
+    }
+    
+    /**
+     * Transforms a row.
+     * 
+     * @param row row values
+     * @param rowNumber row number, which is used by deterministic row subjects
+     * @param context parsing context
+     * @return transformed RDF
+     */
+    public Model transformRow(String[] row, long rowNumber, ParsingContext context)
+    {
+        Model model = ModelFactory.createDefaultModel();
+        transformRow(row, rowNumber, context, StreamRDFLib.graph(model.getGraph()));
+        return model;
+    }
+    
+    /**
+     * Transforms a row and sends the resulting triples to a stream as they are instantiated, without building a result model.
+     * Triples that the query instantiates more than once are sent more than once.
+     * 
+     * @param row row values
+     * @param rowNumber row number, which is used by deterministic row subjects
+     * @param context parsing context
+     * @param output stream that receives the triples
+     * @see TripleBuffer
+     */
+    public void transformRow(String[] row, long rowNumber, ParsingContext context, StreamRDF output)
+    {
+        Columns columns = getColumns(context.headers());
+        Node[] cells = null;
+        if (columns.getDatatypes() != null)
+        {
+            cells = getSchema().parse(columns.headers, columns.getDatatypes(), row);
+            if (cells == null)
+            {
+                reject();
+                return;
+            }
+        }
         
-        int cellNo = 0;
-        for (String cell : row)
+        Model model = rowModel.get();
+        RowGraph graph = (RowGraph)model.getGraph();
+        graph.setProperties(columns.getProperties());
+        graph.setTermCache(getTermCache());
+        graph.reset(createSubject(columns, rowNumber, row), row, cells);
+        int size = graph.size();
+        subjectCount.incrementAndGet();
+        tripleCount.addAndGet(size);
+        getMetrics().addRows(1);
+        getMetrics().addInputTriples(size);
+        
+        if (columns.getPatternColumns() != null) getCompiledRowMapping().apply(graph.getSubject(), columns.getPatternColumns(), row, cells, getTermCache(), output); // transform row without SPARQL evaluation
+        else if (getFunction() instanceof ModelTransformer transformer) transformer.apply(getQuery(), model, output); // transform row
+        else StreamRDFOps.sendTriplesToStream(getFunction().apply(getQuery(), model).getGraph(), output);
+    }
+    
+    /**
+     * Creates the subject of a row.
+     * 
+     * @param columns columns
+     * @param rowNumber row number
+     * @param row row values
+     * @return subject node
+     */
+    protected Node createSubject(Columns columns, long rowNumber, String[] row)
+    {
+        if (getRowSubjects() == null) return NodeFactory.createBlankNode();
+        return getRowSubjects().create(getBase(), rowNumber, columns.getKeys(), row);
+    }
+    
+    /**
+     * Counts a row that was rejected by the schema.
+     */
+    private void reject()
+    {
+        getMetrics().addRows(1);
+        getMetrics().addRejectedRows(1);
+    }
+    
+    /**
+     * Transforms the last parsed rows.
+     * 
+     * @param rows rows
+     * @param context parsing context
+     * @return transformed RDF of each row, in row order
+     */
+    public List<Model> transformRows(List<String[]> rows, ParsingContext context)
+    {
+        return transformRows(rows, getRowNumber() - rows.size() + 1, context);
+    }
+    
+    /**
+     * Transforms multiple rows.
+     * If the batch size is larger than 1, rows cannot join across each other in the query and every row has its own subject,
+     * rows are transformed in batches of that size with a single query execution per batch. Otherwise every row is transformed separately.
+     * 
+     * @param rows rows
+     * @param firstRowNumber number of the first row
+     * @param context parsing context
+     * @return transformed RDF of each row, in row order
+     */
+    public List<Model> transformRows(List<String[]> rows, long firstRowNumber, ParsingContext context)
+    {
+        Columns columns = getColumns(context.headers());
+        List<Model> models = new ArrayList<>(rows.size());
+        if (!isBatched(columns))
         {
-            if (cell != null && context.headers()[cellNo] != null)
+            for (int i = 0; i < rows.size(); i++) models.add(transformRow(rows.get(i), firstRowNumber + i, context));
+            return models;
+        }
+        
+        long rowNumber = firstRowNumber;
+        for (int from = 0; from < rows.size(); from += getBatchSize())
+        {
+            List<String[]> batchRows = rows.subList(from, Math.min(from + getBatchSize(), rows.size()));
+            Model batchModel = ModelFactory.createDefaultModel();
+            Graph graph = batchModel.getGraph();
+            List<Node> subjects = new ArrayList<>(batchRows.size());
+            Node[] properties = columns.getProperties();
+            TermCache termCache = getTermCache();
+            
+            for (String[] row : batchRows)
             {
-                String fragmentId = IRILib.encodeUriComponent(context.headers()[cellNo]);
-                Property property = rowModel.createProperty(getBase(), "#" + fragmentId);
-                subject.addProperty(property, cell);
-                tripleCount++;
+                Node subject = createSubject(columns, rowNumber++, row);
+                Node[] cells = null;
+                if (columns.getDatatypes() != null)
+                {
+                    cells = getSchema().parse(columns.headers, columns.getDatatypes(), row);
+                    if (cells == null)
+                    {
+                        reject();
+                        subjects.add(subject); // a subject without triples keeps the row order with an empty result
+                        continue;
+                    }
+                }
+                
+                subjects.add(subject);
+                for (int i = 0; i < properties.length && i < row.length; i++)
+                    if (row[i] != null && properties[i] != null)
+                    {
+                        Node object;
+                        if (cells != null && cells[i] != null) object = cells[i];
+                        else object = termCache != null ? termCache.getLiteral(i, row[i]) : NodeFactory.createLiteralString(row[i]);
+                        graph.add(Triple.create(subject, properties[i], object));
+                        tripleCount.incrementAndGet();
+                        getMetrics().addInputTriples(1);
+                    }
+                subjectCount.incrementAndGet();
+                getMetrics().addRows(1);
             }
-            cellNo++;
+            
+            models.addAll(batchTransformer.apply(getQuery(), batchModel, subjects)); // transform batch
         }
-
-        return getFunction().apply(getQuery(), rowModel); // transform row
+        
+        return models;
+    }
+    
+    /**
+     * Transforms multiple rows and collects the resulting triples, in row order.
+     * Rows are transformed in batches in the same cases as by {@link #transformRows(java.util.List, long, com.univocity.parsers.common.ParsingContext)},
+     * otherwise their triples are collected without building result models.
+     * The transformation time of every row is recorded in the metrics, or of every batch if rows are transformed in batches.
+     * 
+     * @param rows rows
+     * @param firstRowNumber number of the first row
+     * @param context parsing context
+     * @param output buffer that collects the triples
+     */
+    public void transformRows(List<String[]> rows, long firstRowNumber, ParsingContext context, TripleBuffer output)
+    {
+        Columns columns = getColumns(context.headers());
+        if (!isBatched(columns))
+        {
+            for (int i = 0; i < rows.size(); i++)
+            {
+                long started = System.nanoTime();
+                output.nextRow();
+                transformRow(rows.get(i), firstRowNumber + i, context, output);
+                getMetrics().addRowTransformTime(System.nanoTime() - started);
+            }
+            return;
+        }
+        
+        long started = System.nanoTime();
+        for (Model model : transformRows(rows, firstRowNumber, context))
+        {
+            output.nextRow();
+            StreamRDFOps.sendTriplesToStream(model.getGraph(), output);
+        }
+        getMetrics().addTransformTime(System.nanoTime() - started);
+    }
+    
+    /**
+     * Returns true if rows are transformed in batches.
+     * Subjects minted from key columns repeat with the key values, and rows with the same subject would join within a batch.
+     * 
+     * @param columns columns
+     * @return true if batched
+     */
+    private boolean isBatched(Columns columns)
+    {
+        return getBatchSize() > 1 && isBatchable() && columns.getPatternColumns() == null && (getRowSubjects() == null || !getRowSubjects().getStrategy().isKeyed());
     }
     
     @Override
     public void processEnded(ParsingContext context)
     {
+        getMetrics().addParseTime(System.nanoTime() - parsed);
+        if (!batch.isEmpty()) flush(context);
+    }
+    
+    /**
+     * Returns the column properties and the compiled pattern columns for the given headers.
+     * They are computed once per header array.
+     * 
+     * @param headers CSV headers
+     * @return columns
+     */
+    protected Columns getColumns(String[] headers)
+    {
+        Columns current = columns;
+        if (current != null && current.headers == headers) return current;
+
+        Node[] properties = new Node[headers.length];
+        for (int i = 0; i < headers.length; i++)
+            if (headers[i] != null)
+            {
+                Node property = ResourceFactory.createProperty(getBase(), "#" + IRILib.encodeUriComponent(headers[i])).asNode();
+                if (getProjection() == null || getProjection().contains(property)) properties[i] = property; // the query cannot match the other columns
+            }
+        
+        current = new Columns(headers, properties, getCompiledRowMapping() != null ? getCompiledRowMapping().resolve(properties) : null,
+            getSchema() != null ? getSchema().resolve(headers) : null, getRowSubjects() != null ? getRowSubjects().resolve(headers) : null);
+        columns = current;
+        return current;
     }
     
     public StreamRDF getStreamRDF()
@@ -112,14 +429,266 @@ public class CSVStreamRDFProcessor implements RowProcessor
         return query;
     }
     
-    public int getSubjectCount()
+    /**
+     * Returns the row mapping compiled from the query.
+     * 
+     * @return compiled mapping, or null if rows are transformed using SPARQL
+     */
+    public CompiledRowMapping getCompiledRowMapping()
     {
-        return subjectCount;
+        return mapping;
     }
     
-    public int getTripleCount()
+    /**
+     * Sets the compiled row mapping. Setting it to null forces SPARQL evaluation for every row.
+     * 
+     * @param mapping compiled mapping or null
+     */
+    public void setCompiledRowMapping(CompiledRowMapping mapping)
     {
-        return tripleCount;
+        this.mapping = mapping;
+        this.columns = null;
+    }
+    
+    public ColumnProjection getProjection()
+    {
+        return projection;
+    }
+    
+    /**
+     * Sets the column projection. Only the columns it references are added to the row graphs.
+     * 
+     * @param projection column projection, or null to add all columns
+     */
+    public void setProjection(ColumnProjection projection)
+    {
+        this.projection = projection;
+        this.columns = null;
+    }
+    
+    /**
+     * Returns the headers of the columns that have to be parsed: the columns referenced by the query,
+     * the key columns of the row subjects and the typed columns of the schema.
+     * 
+     * @return column headers, or null if all columns have to be parsed
+     */
+    public List<String> getSelectedHeaders()
+    {
+        if (getProjection() == null) return null;
+        if (getSchema() != null && getSchema().getRejectHandler() != null) return null; // rejected rows are written with all their values
+        
+        Set<String> headers = new LinkedHashSet<>(getProjection().getHeaders(getBase()));
+        if (getRowSubjects() != null) headers.addAll(getRowSubjects().getKeyColumns());
+        if (getSchema() != null) headers.addAll(getSchema().getTypedHeaders());
+        return new ArrayList<>(headers);
+    }
+    
+    public TermCache getTermCache()
+    {
+        return termCache;
+    }
+    
+    /**
+     * Sets the cache of cell literals and of compiled <code>BIND</code> results.
+     * 
+     * @param termCache term cache, or null to disable caching (default)
+     */
+    public void setTermCache(TermCache termCache)
+    {
+        this.termCache = termCache;
+    }
+    
+    public ColumnSchema getSchema()
+    {
+        return schema;
+    }
+    
+    /**
+     * Sets the column schema, which parses typed cells into typed literals before the transformation.
+     * 
+     * @param schema column schema, or null to transform every cell into a string literal (default)
+     */
+    public void setSchema(ColumnSchema schema)
+    {
+        this.schema = schema;
+        this.columns = null;
+    }
+    
+    public RowSubjects getRowSubjects()
+    {
+        return rowSubjects;
+    }
+    
+    /**
+     * Sets how the subjects of rows are minted.
+     * 
+     * @param rowSubjects row subjects, or null for a fresh blank node per row (default)
+     */
+    public void setRowSubjects(RowSubjects rowSubjects)
+    {
+        this.rowSubjects = rowSubjects;
+        this.columns = null;
+    }
+    
+    public long getFirstRowNumber()
+    {
+        return firstRowNumber;
+    }
+    
+    /**
+     * Sets the number of the first row, e.g. when the input is a chunk of a larger file.
+     * 
+     * @param firstRowNumber first row number, 1 by default
+     */
+    public void setFirstRowNumber(long firstRowNumber)
+    {
+        this.firstRowNumber = firstRowNumber;
+    }
+    
+    /**
+     * Returns the number of the last parsed row.
+     * 
+     * @return row number
+     */
+    public long getRowNumber()
+    {
+        return rowNumber;
+    }
+    
+    /**
+     * Returns true if rows can be transformed in batches with the query.
+     * 
+     * @return true if batchable
+     * @see BatchModelTransformer#isBatchable(org.apache.jena.query.Query)
+     */
+    public boolean isBatchable()
+    {
+        return batchable;
+    }
+    
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+    
+    /**
+     * Stops the conversion before the next row. Rows that are already being transformed are still sent to the stream.
+     * Can be called from any thread.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+    
+    public boolean isStopped()
+    {
+        return stopped;
+    }
+    
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+    
+    /**
+     * Sets whether duplicate triples within a row are dropped before they are sent to the stream.
+     * Duplicates across rows are not detected.
+     * 
+     * @param distinct false to send every instantiated triple (default: true)
+     */
+    public void setDistinct(boolean distinct)
+    {
+        this.distinct = distinct;
+    }
+    
+    /**
+     * Sets the number of rows transformed with a single query execution.
+     * Has no effect on compiled mappings, on queries that are not batchable and on row subjects minted from key columns.
+     * 
+     * @param batchSize number of rows per batch
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+    
+    public ConversionMetrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * Sets the metrics that are updated by this processor. Metrics can be shared by multiple processors.
+     * 
+     * @param metrics conversion metrics
+     */
+    public void setMetrics(ConversionMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Returns the number of rows converted to RDF since the processing started, each with its own subject.
+     * 
+     * @return subject count
+     */
+    public long getSubjectCount()
+    {
+        return subjectCount.get();
+    }
+    
+    /**
+     * Returns the number of generic RDF triples since the processing started, before the transformation.
+     * 
+     * @return triple count
+     */
+    public long getTripleCount()
+    {
+        return tripleCount.get();
+    }
+    
+    /**
+     * Column properties for a header array, with the compiled pattern columns resolved against them.
+     */
+    protected static class Columns
+    {
+        
+        private final String[] headers;
+        private final Node[] properties;
+        private final int[] patternColumns;
+        private final ColumnSchema.Datatype[] datatypes;
+        private final int[] keys;
+        
+        Columns(String[] headers, Node[] properties, int[] patternColumns, ColumnSchema.Datatype[] datatypes, int[] keys)
+        {
+            this.headers = headers;
+            this.properties = properties;
+            this.patternColumns = patternColumns;
+            this.datatypes = datatypes;
+            this.keys = keys;
+        }
+        
+        public Node[] getProperties()
+        {
+            return properties;
+        }
+        
+        public int[] getPatternColumns()
+        {
+            return patternColumns;
+        }
+        
+        public ColumnSchema.Datatype[] getDatatypes()
+        {
+            return datatypes;
+        }
+        
+        public int[] getKeys()
+        {
+            return keys;
+        }
+        
     }
     
 }
\ No newline at end of file
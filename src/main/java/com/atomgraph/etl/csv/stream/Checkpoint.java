@@ -0,0 +1,157 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.atlas.json.JsonParseException;
+
+/**
+ * Consistent state of a chunked conversion: the input up to the byte offset has been transformed
+ * and its output written to the first bytes of the output, up to the output length.
+ * A conversion can be resumed from a checkpoint by truncating the output to its length and continuing to read the input from its offset.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see ChunkedCSVStreamRDFOutput#setResumeFrom(Checkpoint)
+ */
+public class Checkpoint
+{
+
+    private final long inputSize, inputOffset, outputLength, rows, outputTriples;
+
+    /**
+     * Handles checkpoints of a conversion.
+     */
+    public interface Handler
+    {
+
+        /**
+         * Called after the output up to the checkpoint has been flushed.
+         *
+         * @param checkpoint checkpoint
+         * @throws IOException if the checkpoint cannot be recorded
+         */
+        void checkpoint(Checkpoint checkpoint) throws IOException;
+
+    }
+
+    /**
+     * Creates a checkpoint.
+     *
+     * @param inputSize size of the input file, which is used to detect that the input has changed
+     * @param inputOffset byte offset of the first record that has not been transformed yet
+     * @param outputLength number of bytes written to the output
+     * @param rows number of rows transformed
+     * @param outputTriples number of triples written
+     */
+    public Checkpoint(long inputSize, long inputOffset, long outputLength, long rows, long outputTriples)
+    {
+        this.inputSize = inputSize;
+        this.inputOffset = inputOffset;
+        this.outputLength = outputLength;
+        this.rows = rows;
+        this.outputTriples = outputTriples;
+    }
+
+    /**
+     * Reads a checkpoint from a JSON file.
+     *
+     * @param file checkpoint file
+     * @return checkpoint
+     * @throws IOException if the file cannot be read
+     */
+    public static Checkpoint read(Path file) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            JsonObject json = JSON.parse(in);
+            return new Checkpoint(json.get("inputSize").getAsNumber().value().longValue(),
+                json.get("inputOffset").getAsNumber().value().longValue(),
+                json.get("outputLength").getAsNumber().value().longValue(),
+                json.get("rows").getAsNumber().value().longValue(),
+                json.get("outputTriples").getAsNumber().value().longValue());
+        }
+        catch (NullPointerException | ClassCastException | UnsupportedOperationException | JsonParseException ex)
+        {
+            throw new IOException("Invalid checkpoint file: " + file, ex);
+        }
+    }
+
+    /**
+     * Writes the checkpoint as JSON. The file is replaced atomically, so that it always contains a complete checkpoint.
+     *
+     * @param file checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException
+    {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(temp))
+        {
+            JSON.write(os, toJSON());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the checkpoint as JSON.
+     *
+     * @return JSON object
+     */
+    public JsonObject toJSON()
+    {
+        JsonObject json = new JsonObject();
+        json.put("inputSize", getInputSize());
+        json.put("inputOffset", getInputOffset());
+        json.put("outputLength", getOutputLength());
+        json.put("rows", getRows());
+        json.put("outputTriples", getOutputTriples());
+        return json;
+    }
+
+    public long getInputSize()
+    {
+        return inputSize;
+    }
+
+    public long getInputOffset()
+    {
+        return inputOffset;
+    }
+
+    public long getOutputLength()
+    {
+        return outputLength;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    public long getOutputTriples()
+    {
+        return outputTriples;
+    }
+
+}
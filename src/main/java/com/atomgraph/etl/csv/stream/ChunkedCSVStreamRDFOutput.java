@@ -0,0 +1,587 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.ColumnSchema;
+import com.atomgraph.etl.csv.FingerprintSet;
+import com.atomgraph.etl.csv.RowSubjects;
+import com.atomgraph.etl.csv.TermCache;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.jena.query.Query;
+
+/**
+ * Reads a local CSV file in parallel, transforms it into RDF and writes the result.
+ * The file is memory-mapped and split into chunks of whole records. Every chunk is parsed and transformed by a worker thread,
+ * using the headers of the file, and its output is written once it is complete. The output format has to be concatenable.
+ * Chunk boundaries are found by a sequential scan that tracks the quoting state, so that quoted values with line breaks are never split.
+ * The scan also counts the records of every chunk, so that rows are numbered the same way as by a sequential conversion.
+ * Only charsets in which the quote, the delimiter and the line feed are single ASCII bytes are supported.
+ * <p>
+ * With ordered output, a {@link Checkpoint} is taken periodically after a chunk has been written, at a chunk boundary.
+ * A conversion that has been interrupted can be resumed from the last checkpoint, with the output truncated to the checkpoint length.
+ * Blank node labels are generated from random UUIDs, so the labels written after a resume cannot collide with the ones written before it.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ChunkedCSVStreamRDFOutput
+{
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 60_000;
+
+    private static final byte QUOTE = '"', LF = '\n';
+
+    private final Path file;
+    private final Charset charset;
+    private final String base;
+    private final Query query;
+    private final char delimiter;
+    private final Integer maxCharsPerColumn;
+    private int threads = 1;
+    private boolean ordered = true;
+    private boolean compiled = true;
+    private boolean projected = true;
+    private boolean distinct = true;
+    private int batchSize = 1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private ConversionMetrics metrics = new ConversionMetrics();
+    private TermCache termCache;
+    private ColumnSchema schema;
+    private RowSubjects rowSubjects;
+    private FingerprintSet fingerprints;
+    private Checkpoint resumeFrom;
+    private Checkpoint.Handler checkpointHandler;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    /**
+     * Transformed chunk.
+     */
+    private record Chunk(long end, ByteArrayOutputStream output, ConversionMetrics metrics) {}
+
+    public ChunkedCSVStreamRDFOutput(Path file, Charset charset, String base, Query query, char delimiter, Integer maxCharsPerColumn)
+    {
+        if (!isSupported(charset, delimiter)) throw new IllegalArgumentException("Charset '" + charset + "' and delimiter '" + delimiter + "' cannot be split into chunks");
+        this.file = file;
+        this.charset = charset;
+        this.base = base;
+        this.query = query;
+        this.delimiter = delimiter;
+        this.maxCharsPerColumn = maxCharsPerColumn;
+    }
+
+    /**
+     * Checks whether files with the given charset and delimiter can be split on the byte level.
+     *
+     * @param charset input charset
+     * @param delimiter field delimiter
+     * @return true if supported
+     */
+    public static boolean isSupported(Charset charset, char delimiter)
+    {
+        // in UTF-8 and single-byte charsets ASCII bytes never occur inside a multi-byte character
+        boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8) ||
+            (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1 && charset.newEncoder().canEncode("\"\n"));
+        return asciiCompatible && delimiter < 0x80 && delimiter != QUOTE && delimiter != LF;
+    }
+
+    /**
+     * Converts the file and writes RDF into the output stream.
+     *
+     * @param os output stream
+     * @param format output format
+     * @param outputCharset charset of text formats
+     * @throws IOException if the file cannot be read or the output cannot be written
+     * @see OutputFormat#isConcatenable()
+     */
+    public void write(OutputStream os, OutputFormat format, Charset outputCharset) throws IOException
+    {
+        if (!format.isConcatenable()) throw new IllegalArgumentException("Output format " + format + " cannot be written in chunks");
+        if ((getResumeFrom() != null || getCheckpointHandler() != null) && !isOrdered()) throw new IllegalArgumentException("Checkpoints require ordered output");
+        getMetrics().start();
+        try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            RecordScanner scanner = new RecordScanner(getDelimiter());
+            long start = RecordScanner.skipBOM(channel, getCharset());
+            long headerEnd = scanner.findRecordEnd(channel, start, start, size);
+            if (headerEnd == start) return; // empty file
+
+            String[] headers = parseHeaders(channel, start, headerEnd);
+            Checkpoint last = getResumeFrom() != null ? getResumeFrom() : new Checkpoint(size, headerEnd, 0, 0, 0);
+            if (last.getInputSize() != size) throw new IllegalStateException("Input file size " + size + " does not match the checkpoint size " + last.getInputSize());
+            if (last.getInputOffset() < headerEnd || last.getInputOffset() > size) throw new IllegalStateException("Checkpoint offset " + last.getInputOffset() + " is outside of the input records");
+            long checkpointed = System.nanoTime();
+            AtomicInteger workerCount = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(getThreads(), r ->
+            {
+                Thread thread = new Thread(r, "csv2rdf-chunk-" + workerCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            try
+            {
+                CompletionService<Chunk> completed = new ExecutorCompletionService<>(workers);
+                Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+                int maxInFlight = getThreads() * 2; // bounds the memory used by the buffered output
+
+                start = last.getInputOffset();
+                long rowNumber = last.getRows() + 1; // number of the first row of the next chunk
+                while (start < size || !inFlight.isEmpty())
+                {
+                    while (start < size && inFlight.size() < maxInFlight)
+                    {
+                        AtomicLong records = new AtomicLong();
+                        long end = scanner.findRecordEnd(channel, start, start + getChunkSize(), size, (recordStart, recordEnd) -> records.incrementAndGet());
+                        if (end - start > Integer.MAX_VALUE) throw new IllegalStateException("CSV record starting at byte " + start + " is too large to be mapped");
+
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                        long chunkEnd = end, firstRowNumber = rowNumber;
+                        Callable<Chunk> task = () ->
+                        {
+                            ConversionMetrics chunkMetrics = new ConversionMetrics(getMetrics());
+                            return new Chunk(chunkEnd, transform(buffer, headers, format, outputCharset, firstRowNumber, chunkMetrics), chunkMetrics);
+                        };
+                        inFlight.add(isOrdered() ? workers.submit(task) : completed.submit(task));
+                        start = end;
+                        rowNumber += records.get();
+                    }
+
+                    // ordered output waits for the oldest chunk, unordered output takes whichever chunk completes first
+                    Future<Chunk> result = isOrdered() ? inFlight.poll() : completed.take();
+                    if (!isOrdered()) inFlight.remove(result);
+
+                    Chunk chunk = result.get();
+                    long started = System.nanoTime();
+                    chunk.output().writeTo(os);
+                    getMetrics().addWriteTime(System.nanoTime() - started);
+
+                    // in ordered mode, the input up to the end of the written chunk has been converted
+                    last = new Checkpoint(size, chunk.end(), last.getOutputLength() + chunk.output().size(),
+                        last.getRows() + chunk.metrics().getRows(), last.getOutputTriples() + chunk.metrics().getOutputTriples());
+                    if (getCheckpointHandler() != null && (chunk.end() == size || System.nanoTime() - checkpointed >= TimeUnit.MILLISECONDS.toNanos(getCheckpointInterval())))
+                    {
+                        os.flush();
+                        getCheckpointHandler().checkpoint(last);
+                        checkpointed = System.nanoTime();
+                    }
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the transformation to complete", ex);
+            }
+            catch (ExecutionException ex)
+            {
+                if (ex.getCause() instanceof RuntimeException runtimeEx) throw runtimeEx;
+                if (ex.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException("Chunk transformation failed", ex.getCause());
+            }
+            finally
+            {
+                workers.shutdownNow();
+            }
+        }
+        finally
+        {
+            getMetrics().stop();
+        }
+
+        os.flush();
+    }
+
+    /**
+     * Parses and transforms a chunk of records.
+     *
+     * @param buffer chunk bytes
+     * @param headers CSV headers
+     * @param format output format
+     * @param outputCharset charset of text formats
+     * @param firstRowNumber number of the first row of the chunk
+     * @param metrics metrics of the chunk
+     * @return chunk output
+     */
+    protected ByteArrayOutputStream transform(ByteBuffer buffer, String[] headers, OutputFormat format, Charset outputCharset, long firstRowNumber, ConversionMetrics metrics)
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(buffer.remaining() * 2);
+        try (Reader reader = new InputStreamReader(new ByteBufferInputStream(buffer), getCharset()))
+        {
+            CSVStreamRDFOutput rdfOutput = new CSVStreamRDFOutput(reader, getBase(), getQuery().cloneQuery(), getDelimiter(), getMaxCharsPerColumn()); // Query instances are not meant to be shared between threads
+            rdfOutput.setHeaders(headers);
+            rdfOutput.setCompiled(isCompiled());
+            rdfOutput.setProjected(isProjected());
+            rdfOutput.setDistinct(isDistinct());
+            rdfOutput.setBatchSize(getBatchSize());
+            rdfOutput.setMetrics(metrics);
+            rdfOutput.setTermCache(getTermCache());
+            rdfOutput.setSchema(getSchema());
+            rdfOutput.setRowSubjects(getRowSubjects());
+            rdfOutput.setFingerprints(getFingerprints());
+            rdfOutput.setFirstRowNumber(firstRowNumber);
+            rdfOutput.write(output, format, outputCharset);
+
+            return output;
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private String[] parseHeaders(FileChannel channel, long start, long end) throws IOException
+    {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CsvParserSettings parserSettings = new CsvParserSettings();
+        parserSettings.setLineSeparatorDetectionEnabled(true);
+        parserSettings.getFormat().setDelimiter(getDelimiter());
+        if (getMaxCharsPerColumn() != null) parserSettings.setMaxCharsPerColumn(getMaxCharsPerColumn());
+
+        return new CsvParser(parserSettings).parseLine(getCharset().decode(buffer).toString());
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    public Charset getCharset()
+    {
+        return charset;
+    }
+
+    public String getBase()
+    {
+        return base;
+    }
+
+    public Query getQuery()
+    {
+        return query;
+    }
+
+    public char getDelimiter()
+    {
+        return delimiter;
+    }
+
+    public Integer getMaxCharsPerColumn()
+    {
+        return maxCharsPerColumn;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads that transform chunks in parallel.
+     *
+     * @param threads thread count, 1 by default
+     */
+    public void setThreads(int threads)
+    {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive");
+        this.threads = threads;
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    /**
+     * Sets whether the output of the chunks is written in the input order.
+     *
+     * @param ordered true to preserve the row order (default)
+     */
+    public void setOrdered(boolean ordered)
+    {
+        this.ordered = ordered;
+    }
+
+    public boolean isCompiled()
+    {
+        return compiled;
+    }
+
+    /**
+     * Sets whether queries in the supported subset are compiled into a direct row mapping.
+     *
+     * @param compiled false to evaluate every row using SPARQL
+     */
+    public void setCompiled(boolean compiled)
+    {
+        this.compiled = compiled;
+    }
+
+    public boolean isProjected()
+    {
+        return projected;
+    }
+
+    /**
+     * Sets whether only the columns referenced by the query are parsed and added to the row graphs.
+     *
+     * @param projected false to parse all columns
+     */
+    public void setProjected(boolean projected)
+    {
+        this.projected = projected;
+    }
+
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+
+    /**
+     * Sets whether duplicate triples within a row are dropped before they are written.
+     *
+     * @param distinct false to write every triple instantiated by the query
+     */
+    public void setDistinct(boolean distinct)
+    {
+        this.distinct = distinct;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows transformed with a single query execution.
+     *
+     * @param batchSize number of rows per batch, 1 by default
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the approximate chunk size. Chunks are extended to the end of the record.
+     *
+     * @param chunkSize chunk size in bytes
+     */
+    public void setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    public ConversionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics that are updated during the conversion.
+     *
+     * @param metrics conversion metrics
+     */
+    public void setMetrics(ConversionMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    public TermCache getTermCache()
+    {
+        return termCache;
+    }
+
+    /**
+     * Sets the cache of cell literals and of compiled <code>BIND</code> results, which is shared by all chunks.
+     *
+     * @param termCache term cache, or null to disable caching (default)
+     */
+    public void setTermCache(TermCache termCache)
+    {
+        this.termCache = termCache;
+    }
+
+    public ColumnSchema getSchema()
+    {
+        return schema;
+    }
+
+    /**
+     * Sets the column schema, which parses typed cells into typed literals before the transformation.
+     *
+     * @param schema column schema, or null to transform every cell into a string literal (default)
+     */
+    public void setSchema(ColumnSchema schema)
+    {
+        this.schema = schema;
+    }
+
+    public RowSubjects getRowSubjects()
+    {
+        return rowSubjects;
+    }
+
+    /**
+     * Sets how the subjects of rows are minted.
+     *
+     * @param rowSubjects row subjects, or null for a fresh blank node per row (default)
+     */
+    public void setRowSubjects(RowSubjects rowSubjects)
+    {
+        this.rowSubjects = rowSubjects;
+    }
+
+    public FingerprintSet getFingerprints()
+    {
+        return fingerprints;
+    }
+
+    /**
+     * Sets the fingerprints of the triples that have been written, which is used to drop duplicate triples.
+     * The set is shared by all chunks, so which copy of a duplicate is kept depends on the order in which the chunks are transformed.
+     *
+     * @param fingerprints fingerprint set, or null to write all triples (default)
+     */
+    public void setFingerprints(FingerprintSet fingerprints)
+    {
+        this.fingerprints = fingerprints;
+    }
+
+    public Checkpoint getResumeFrom()
+    {
+        return resumeFrom;
+    }
+
+    /**
+     * Sets the checkpoint from which the conversion is resumed. The output stream has to be positioned at the checkpoint output length.
+     * Requires ordered output.
+     *
+     * @param resumeFrom checkpoint, or null to convert the whole file (default)
+     */
+    public void setResumeFrom(Checkpoint resumeFrom)
+    {
+        this.resumeFrom = resumeFrom;
+    }
+
+    public Checkpoint.Handler getCheckpointHandler()
+    {
+        return checkpointHandler;
+    }
+
+    /**
+     * Sets the handler that records checkpoints, which is called after the output stream has been flushed. Requires ordered output.
+     *
+     * @param checkpointHandler checkpoint handler, or null to disable checkpoints (default)
+     */
+    public void setCheckpointHandler(Checkpoint.Handler checkpointHandler)
+    {
+        this.checkpointHandler = checkpointHandler;
+    }
+
+    public long getCheckpointInterval()
+    {
+        return checkpointInterval;
+    }
+
+    /**
+     * Sets the minimum time between checkpoints. A checkpoint is also taken after the last chunk.
+     *
+     * @param checkpointInterval interval in milliseconds
+     */
+    public void setCheckpointInterval(long checkpointInterval)
+    {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public long getSubjectCount()
+    {
+        return getMetrics().getRows();
+    }
+
+    public long getTripleCount()
+    {
+        return getMetrics().getInputTriples();
+    }
+
+    /**
+     * Input stream over a byte buffer, which avoids copying the mapped chunk.
+     */
+    private static class ByteBufferInputStream extends InputStream
+    {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+    }
+
+}
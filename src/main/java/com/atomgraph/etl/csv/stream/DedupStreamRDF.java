@@ -0,0 +1,83 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.Fingerprint;
+import com.atomgraph.etl.csv.FingerprintSet;
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Drops triples and quads that have already been sent, as detected by their fingerprints in a set.
+ * The set can be shared by multiple streams, e.g. of chunks that are converted in parallel.
+ * Triples with fresh blank nodes are never duplicates, so deterministic row subjects are required to drop repeated rows.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see com.atomgraph.etl.csv.RowSubjects
+ */
+public class DedupStreamRDF extends StreamRDFWrapper implements RowStreamRDF
+{
+
+    private final FingerprintSet fingerprints;
+    private final ConversionMetrics metrics;
+
+    /**
+     * Creates a deduplicating stream.
+     *
+     * @param stream stream that receives the triples and quads that were not seen before
+     * @param fingerprints fingerprints of the triples and quads seen before
+     * @param metrics metrics to which the dropped triples are added
+     */
+    public DedupStreamRDF(StreamRDF stream, FingerprintSet fingerprints, ConversionMetrics metrics)
+    {
+        super(stream);
+        this.fingerprints = fingerprints;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        if (fingerprints.add(Fingerprint.of(NodeFmtLib.strNT(triple.getSubject()), NodeFmtLib.strNT(triple.getPredicate()), NodeFmtLib.strNT(triple.getObject()))))
+            super.triple(triple);
+        else metrics.addDuplicateTriples(1);
+    }
+
+    @Override
+    public void quad(Quad quad)
+    {
+        if (fingerprints.add(Fingerprint.of(NodeFmtLib.strNT(quad.getSubject()), NodeFmtLib.strNT(quad.getPredicate()), NodeFmtLib.strNT(quad.getObject()), NodeFmtLib.strNT(quad.getGraph()))))
+            super.quad(quad);
+        else metrics.addDuplicateTriples(1);
+    }
+
+    @Override
+    public void row()
+    {
+        RowStreamRDF.row(get());
+    }
+
+    public FingerprintSet getFingerprints()
+    {
+        return fingerprints;
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.DeltaIndex;
+import com.atomgraph.etl.csv.Fingerprint;
+import com.univocity.parsers.common.ParsingContext;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.riot.out.NodeFmtLib;
+
+/**
+ * Transforms only the rows that have been inserted or changed since the previous conversion, and writes the difference as an RDF Patch.
+ * The triples of changed and deleted rows are removed by transforming their previous values again,
+ * which requires row subjects minted from the key columns and a query that transforms the same values into the same triples.
+ * The index counts the rows that produce each triple, so a triple is only added when the first row produces it,
+ * and only removed when no row produces it anymore, e.g. an entity shared by several rows.
+ * Rows are transformed one at a time on the parser thread, so that the patch follows the row order.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see DeltaIndex
+ */
+public class DeltaCSVStreamRDFProcessor extends CSVStreamRDFProcessor
+{
+
+    private final RDFPatchStreamRDF patch;
+    private final DeltaIndex index;
+    private TripleBuffer previous, current;
+    private ParsingContext context;
+
+    /**
+     * Creates a processor.
+     *
+     * @param patch patch output
+     * @param base base URI
+     * @param query transformation query
+     * @param index index of the previous conversion
+     */
+    public DeltaCSVStreamRDFProcessor(RDFPatchStreamRDF patch, String base, Query query, DeltaIndex index)
+    {
+        super(patch, base, query);
+        this.patch = patch;
+        this.index = index;
+    }
+
+    @Override
+    public void processStarted(ParsingContext context)
+    {
+        if (getRowSubjects() == null || !getRowSubjects().getStrategy().isKeyed()) throw new IllegalStateException("Delta conversion requires row subjects minted from key columns");
+
+        super.processStarted(context);
+        this.context = context;
+        previous = new TripleBuffer(true); // triples are counted once per row
+        current = new TripleBuffer(true);
+        getIndex().start(context.headers());
+    }
+
+    @Override
+    protected void processRow(String[] row, ParsingContext context)
+    {
+        DeltaIndex.Change change = getIndex().update(row);
+        switch (change.status())
+        {
+            case UNCHANGED -> getMetrics().addRows(1);
+            case CHANGED -> change(change.previousRow(), row);
+            case INSERTED -> change(null, row);
+        }
+    }
+
+    @Override
+    public void processEnded(ParsingContext context)
+    {
+        super.processEnded(context);
+        getIndex().forEachDeleted(row -> change(row, null));
+    }
+
+    /**
+     * Writes the difference between the triples of the previous and the current values of a row.
+     * Triples that the row no longer produces are released and removed if no other row produces them,
+     * new triples are acquired and added if no other row produced them before.
+     *
+     * @param previousRow previous row values, or null if the row was inserted
+     * @param row current row values, or null if the row was deleted
+     */
+    protected void change(String[] previousRow, String[] row)
+    {
+        long started = System.nanoTime();
+        transform(previousRow, previous);
+        transform(row, current);
+        getMetrics().addRowTransformTime(System.nanoTime() - started);
+
+        started = System.nanoTime();
+        Set<Triple> previousTriples = new HashSet<>(previous.getTriples()), currentTriples = new HashSet<>(current.getTriples());
+        for (Triple triple : previous.getTriples())
+            if (!currentTriples.contains(triple) && getIndex().release(fingerprint(triple))) patch.delete(triple);
+        long added = 0;
+        for (Triple triple : current.getTriples())
+            if (!previousTriples.contains(triple) && getIndex().acquire(fingerprint(triple)))
+            {
+                patch.triple(triple);
+                added++;
+            }
+        getMetrics().addWriteTime(System.nanoTime() - started);
+        getMetrics().addOutputTriples(added);
+    }
+
+    private void transform(String[] row, TripleBuffer output)
+    {
+        output.clear();
+        if (row == null) return;
+        output.nextRow();
+        transformRow(row, getRowNumber(), context, output);
+    }
+
+    private static Fingerprint fingerprint(Triple triple)
+    {
+        return Fingerprint.of(NodeFmtLib.strNT(triple.getSubject()), NodeFmtLib.strNT(triple.getPredicate()), NodeFmtLib.strNT(triple.getObject()));
+    }
+
+    /**
+     * Returns the headers of the columns that have to be parsed, including the key columns of the index.
+     *
+     * @return column headers, or null if all columns have to be parsed
+     */
+    @Override
+    public List<String> getSelectedHeaders()
+    {
+        List<String> headers = super.getSelectedHeaders();
+        if (headers == null) return null;
+
+        Set<String> selected = new LinkedHashSet<>(headers);
+        selected.addAll(getIndex().getKeyColumns());
+        return new ArrayList<>(selected);
+    }
+
+    /**
+     * Returns 1, because rows are transformed one at a time.
+     *
+     * @return batch size
+     */
+    @Override
+    public int getBatchSize()
+    {
+        return 1;
+    }
+
+    public DeltaIndex getIndex()
+    {
+        return index;
+    }
+
+}
@@ -0,0 +1,395 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Sends the RDF output to a SPARQL endpoint over HTTP in batches while the conversion continues.
+ * Triples are serialized as N-Triples into a batch, which is sent when it reaches the maximum number of triples or when it gets older than the maximum delay.
+ * Batches are either <code>POST</code>ed to a Graph Store Protocol endpoint or sent as <code>INSERT DATA</code> to a SPARQL Update endpoint.
+ * <p>
+ * Several batches can be in flight at once. When the maximum is reached, adding triples blocks until a batch completes,
+ * which applies backpressure to the row processor. Batches that fail with a connection error or a retryable status (<code>408</code>, <code>429</code>, <code>5xx</code>)
+ * are resent with exponential backoff. Inserting the same triples twice does not change the graph, so retries are idempotent,
+ * as long as there are no blank nodes, which are therefore skolemized into IRIs. A batch that still fails makes the next call throw.
+ * Triples are added from a single thread, as by the row processors.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class HttpStreamRDF implements StreamRDF
+{
+
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    public static final long DEFAULT_MAX_DELAY = 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long INITIAL_BACKOFF = 100;
+
+    /**
+     * Protocol used to send the batches.
+     */
+    public enum Protocol
+    {
+
+        /** <code>POST</code> of N-Triples to a Graph Store Protocol endpoint */
+        GSP,
+        /** <code>INSERT DATA</code> to a SPARQL Update endpoint */
+        UPDATE
+
+    }
+
+    private final HttpClient client;
+    private final URI endpoint;
+    private final Protocol protocol;
+    private final Node graphName;
+    private final String skolemBase;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final NTriplesStreamRDF writer = new NTriplesStreamRDF(batch);
+    private final AtomicLong sentBatches = new AtomicLong(), retries = new AtomicLong();
+    private Semaphore permits;
+    private ScheduledExecutorService timer;
+    private int batchTriples;
+    private long batchStarted;
+    private volatile Throwable failure;
+
+    /**
+     * Creates an HTTP sink.
+     *
+     * @param client HTTP client
+     * @param endpoint Graph Store Protocol or SPARQL Update endpoint
+     * @param protocol protocol of the endpoint
+     * @param graphName name of the target graph, or null for the default graph
+     * @param skolemBase namespace of the IRIs that replace blank nodes, e.g. <code>https://localhost/.well-known/genid/</code>
+     */
+    public HttpStreamRDF(HttpClient client, URI endpoint, Protocol protocol, Node graphName, String skolemBase)
+    {
+        this.client = client;
+        this.endpoint = endpoint;
+        this.protocol = protocol;
+        this.graphName = graphName;
+        this.skolemBase = skolemBase;
+    }
+
+    @Override
+    public void start()
+    {
+        permits = new Semaphore(getMaxInFlight());
+        timer = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "csv2rdf-http-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, getMaxDelay() / 2);
+        timer.scheduleAtFixedRate(this::sendIfDue, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void triple(Triple triple)
+    {
+        rethrowFailure();
+
+        if (batchTriples == 0) batchStarted = System.nanoTime();
+        writer.triple(skolemize(triple));
+        if (++batchTriples >= getBatchSize()) send();
+    }
+
+    /**
+     * Adds the triple of the quad. All triples are sent to the target graph.
+     *
+     * @param quad quad
+     */
+    @Override
+    public void quad(Quad quad)
+    {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(String base)
+    {
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+    }
+
+    @Override
+    public void version(String version)
+    {
+    }
+
+    /**
+     * Sends the last batch and waits until all batches have completed.
+     */
+    @Override
+    public void finish()
+    {
+        try
+        {
+            synchronized (this)
+            {
+                if (batchTriples > 0) send();
+            }
+            permits.acquire(getMaxInFlight());
+            permits.release(getMaxInFlight());
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batches to be sent", ex);
+        }
+        finally
+        {
+            timer.shutdownNow();
+        }
+        rethrowFailure();
+    }
+
+    private synchronized void sendIfDue()
+    {
+        if (batchTriples > 0 && failure == null && System.nanoTime() - batchStarted >= TimeUnit.MILLISECONDS.toNanos(getMaxDelay())) send();
+    }
+
+    /**
+     * Sends the current batch. Blocks while the maximum number of batches is in flight.
+     */
+    private void send()
+    {
+        writer.finish();
+        byte[] body = createBody(batch.toByteArray());
+        batch.reset();
+        batchTriples = 0;
+
+        try
+        {
+            permits.acquire();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batch slot", ex);
+        }
+
+        send(body, 0).whenComplete((response, ex) ->
+        {
+            if (ex != null && failure == null) failure = ex instanceof CompletionException ? ex.getCause() : ex;
+            permits.release();
+        });
+    }
+
+    private CompletableFuture<Void> send(byte[] body, int attempt)
+    {
+        return client.sendAsync(createRequest(body), HttpResponse.BodyHandlers.discarding()).handle((response, ex) ->
+        {
+            if (ex == null && response.statusCode() / 100 == 2)
+            {
+                sentBatches.incrementAndGet();
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+
+            IOException error = ex != null ? new IOException("Batch could not be sent to " + endpoint, ex) :
+                new IOException("Batch was rejected by " + endpoint + " with status " + response.statusCode());
+            if (attempt >= getMaxRetries() || (ex == null && !isRetryable(response.statusCode()))) return CompletableFuture.<Void>failedFuture(error);
+
+            retries.incrementAndGet();
+            long backoff = INITIAL_BACKOFF << attempt;
+            return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS)).
+                thenCompose(ignored -> send(body, attempt + 1));
+        }).thenCompose(result -> result);
+    }
+
+    private static boolean isRetryable(int status)
+    {
+        return status == 408 || status == 429 || status / 100 == 5;
+    }
+
+    private HttpRequest createRequest(byte[] body)
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (protocol == Protocol.GSP)
+        {
+            String graph = graphName != null ? "graph=" + URLEncoder.encode(graphName.getURI(), StandardCharsets.UTF_8) : "default";
+            String separator = endpoint.getRawQuery() != null ? "&" : "?";
+            return builder.uri(URI.create(endpoint + separator + graph)).header("Content-Type", "application/n-triples").build();
+        }
+
+        return builder.uri(endpoint).header("Content-Type", "application/sparql-update").build();
+    }
+
+    private byte[] createBody(byte[] triples)
+    {
+        if (protocol == Protocol.GSP) return triples;
+
+        String prefix = graphName != null ? "INSERT DATA {\nGRAPH <" + graphName.getURI() + "> {\n" : "INSERT DATA {\n";
+        String suffix = graphName != null ? "}\n}\n" : "}\n";
+        ByteArrayOutputStream update = new ByteArrayOutputStream(triples.length + prefix.length() + suffix.length());
+        update.writeBytes(prefix.getBytes(StandardCharsets.UTF_8));
+        update.writeBytes(triples); // N-Triples is valid SPARQL triples syntax
+        update.writeBytes(suffix.getBytes(StandardCharsets.UTF_8));
+        return update.toByteArray();
+    }
+
+    private Triple skolemize(Triple triple)
+    {
+        if (!triple.getSubject().isBlank() && !triple.getObject().isBlank()) return triple;
+
+        return Triple.create(skolemize(triple.getSubject()), triple.getPredicate(), skolemize(triple.getObject()));
+    }
+
+    private Node skolemize(Node node)
+    {
+        return node.isBlank() ? NodeFactory.createURI(skolemBase + node.getBlankNodeLabel()) : node;
+    }
+
+    private void rethrowFailure()
+    {
+        Throwable ex = failure;
+        if (ex == null) return;
+
+        if (ex instanceof IOException ioEx) throw new UncheckedIOException(ioEx);
+        if (ex instanceof RuntimeException runtimeEx) throw runtimeEx;
+        if (ex instanceof Error error) throw error;
+        throw new IllegalStateException("Sending RDF output failed", ex);
+    }
+
+    public URI getEndpoint()
+    {
+        return endpoint;
+    }
+
+    public Protocol getProtocol()
+    {
+        return protocol;
+    }
+
+    public Node getGraphName()
+    {
+        return graphName;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of triples per batch.
+     *
+     * @param batchSize number of triples, {@value #DEFAULT_BATCH_SIZE} by default
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    public long getMaxDelay()
+    {
+        return maxDelay;
+    }
+
+    /**
+     * Sets how long a batch can be held before it is sent, so that slow inputs still reach the endpoint.
+     *
+     * @param maxDelay delay in milliseconds, {@value #DEFAULT_MAX_DELAY} by default
+     */
+    public void setMaxDelay(long maxDelay)
+    {
+        if (maxDelay < 1) throw new IllegalArgumentException("Maximum delay must be positive");
+        this.maxDelay = maxDelay;
+    }
+
+    public int getMaxInFlight()
+    {
+        return maxInFlight;
+    }
+
+    /**
+     * Sets the maximum number of batches that are sent concurrently.
+     *
+     * @param maxInFlight number of batches, {@value #DEFAULT_MAX_IN_FLIGHT} by default
+     */
+    public void setMaxInFlight(int maxInFlight)
+    {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Maximum number of batches in flight must be positive");
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    /**
+     * Sets how many times a failed batch is resent.
+     *
+     * @param maxRetries number of retries, {@value #DEFAULT_MAX_RETRIES} by default
+     */
+    public void setMaxRetries(int maxRetries)
+    {
+        if (maxRetries < 0) throw new IllegalArgumentException("Retry count cannot be negative");
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Returns the number of batches accepted by the endpoint.
+     *
+     * @return batch count
+     */
+    public long getSentBatches()
+    {
+        return sentBatches.get();
+    }
+
+    /**
+     * Returns the number of times batches were resent.
+     *
+     * @return retry count
+     */
+    public long getRetries()
+    {
+        return retries.get();
+    }
+
+}
@@ -0,0 +1,373 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Writes N-Triples (or N-Quads, for quads in named graphs) as UTF-8, encoding the terms straight into a reusable byte buffer.
+ * The output is the same as that of Jena's N-Triples writer, including blank node labels and the Unicode escapes of characters
+ * that are not allowed in IRIs (e.g. spaces in IRIs built from cell values), so that outputs of separate writers can be concatenated.
+ * Encoded predicates are cached, as they repeat for every row. The writer is not thread-safe.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class NTriplesStreamRDF implements StreamRDF
+{
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CACHED_PREDICATES = 1024;
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private final OutputStream os;
+    private final byte[] buffer;
+    private final Map<Node, byte[]> predicates = new HashMap<>();
+    private int position;
+    private long flushCount;
+
+    public NTriplesStreamRDF(OutputStream os)
+    {
+        this(os, DEFAULT_BUFFER_SIZE);
+    }
+
+    public NTriplesStreamRDF(OutputStream os, int bufferSize)
+    {
+        if (bufferSize < 16) throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        this.os = os;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void start()
+    {
+    }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        writeTriple(triple);
+        write((byte)' ');
+        write((byte)'.');
+        write((byte)'\n');
+    }
+
+    @Override
+    public void quad(Quad quad)
+    {
+        writeNode(quad.getSubject());
+        write((byte)' ');
+        writePredicate(quad.getPredicate());
+        write((byte)' ');
+        writeNode(quad.getObject());
+        if (!quad.isDefaultGraph())
+        {
+            write((byte)' ');
+            writeNode(quad.getGraph());
+        }
+        write((byte)' ');
+        write((byte)'.');
+        write((byte)'\n');
+    }
+
+    @Override
+    public void base(String base)
+    {
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+    }
+
+    @Override
+    public void version(String version)
+    {
+    }
+
+    @Override
+    public void finish()
+    {
+        flushBuffer();
+        try
+        {
+            os.flush();
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeTriple(Triple triple)
+    {
+        writeNode(triple.getSubject());
+        write((byte)' ');
+        writePredicate(triple.getPredicate());
+        write((byte)' ');
+        writeNode(triple.getObject());
+    }
+
+    private void writePredicate(Node predicate)
+    {
+        byte[] encoded = predicates.get(predicate);
+        if (encoded == null)
+        {
+            flushBufferIfLessThan(buffer.length / 2); // make room for encoding the IRI in place
+            int start = position;
+            long flushes = flushCount;
+            writeNode(predicate);
+            if (flushCount == flushes) // the encoded IRI is still in the buffer
+            {
+                if (predicates.size() == MAX_CACHED_PREDICATES) predicates.clear();
+                predicates.put(predicate, Arrays.copyOfRange(buffer, start, position));
+            }
+            return;
+        }
+
+        write(encoded);
+    }
+
+    /**
+     * Encodes an RDF term.
+     *
+     * @param node RDF term
+     */
+    protected void writeNode(Node node)
+    {
+        if (node.isURI())
+        {
+            write((byte)'<');
+            writeIRI(node.getURI());
+            write((byte)'>');
+        }
+        else if (node.isBlank())
+        {
+            write((byte)'_');
+            write((byte)':');
+            writeBlankNodeLabel(node.getBlankNodeLabel());
+        }
+        else if (node.isLiteral())
+        {
+            write((byte)'"');
+            writeString(node.getLiteralLexicalForm());
+            write((byte)'"');
+
+            String lang = node.getLiteralLanguage();
+            if (lang != null && !lang.isEmpty())
+            {
+                write((byte)'@');
+                writeString(lang);
+                if (node.getLiteralBaseDirection() != null)
+                {
+                    write((byte)'-');
+                    write((byte)'-');
+                    writeString(node.getLiteralBaseDirection().direction());
+                }
+            }
+            else if (!XSDDatatype.XSDstring.getURI().equals(node.getLiteralDatatypeURI()))
+            {
+                write((byte)'^');
+                write((byte)'^');
+                write((byte)'<');
+                writeIRI(node.getLiteralDatatypeURI());
+                write((byte)'>');
+            }
+        }
+        else if (node.isTripleTerm())
+        {
+            write((byte)'<');
+            write((byte)'<');
+            write((byte)'(');
+            write((byte)' ');
+            writeTriple(node.getTriple());
+            write((byte)' ');
+            write((byte)')');
+            write((byte)'>');
+            write((byte)'>');
+        }
+        else throw new IllegalArgumentException("Node cannot be written as N-Triples: " + node);
+    }
+
+    private void writeIRI(String iri)
+    {
+        for (int i = 0; i < iri.length(); i++)
+        {
+            char ch = iri.charAt(i);
+            switch (ch)
+            {
+                case ' ', '"', '<', '>', '\\', '^', '`', '{', '|', '}', '\u007F' -> writeUnicodeEscape(ch);
+                default ->
+                {
+                    if (ch < 0x20) writeUnicodeEscape(ch);
+                    else i = writeChar(iri, i);
+                }
+            }
+        }
+    }
+
+    private void writeString(String string)
+    {
+        for (int i = 0; i < string.length(); i++)
+        {
+            char ch = string.charAt(i);
+            switch (ch)
+            {
+                case '"' -> writeEscape((byte)'"');
+                case '\\' -> writeEscape((byte)'\\');
+                case '\n' -> writeEscape((byte)'n');
+                case '\r' -> writeEscape((byte)'r');
+                case '\t' -> writeEscape((byte)'t');
+                case '\f' -> writeEscape((byte)'f');
+                default -> i = writeChar(string, i);
+            }
+        }
+    }
+
+    /**
+     * Encodes a blank node label the way Jena does: ASCII letters and digits are kept, <code>X</code> is doubled
+     * and other characters are hex-encoded after an <code>X</code>, so that distinct labels stay distinct.
+     *
+     * @param label blank node label
+     */
+    private void writeBlankNodeLabel(String label)
+    {
+        write((byte)'B');
+        for (int i = 0; i < label.length(); i++)
+        {
+            char ch = label.charAt(i);
+            if (ch == 'X')
+            {
+                write((byte)'X');
+                write((byte)'X');
+            }
+            else if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')) write((byte)ch);
+            else
+            {
+                if (ch > 0xFF) writeHexByte(ch >> 8);
+                writeHexByte(ch & 0xFF);
+            }
+        }
+    }
+
+    private void writeHexByte(int b)
+    {
+        write((byte)'X');
+        write(HEX[(b >> 4) & 0xF]);
+        write(HEX[b & 0xF]);
+    }
+
+    private void writeEscape(byte ch)
+    {
+        write((byte)'\\');
+        write(ch);
+    }
+
+    private void writeUnicodeEscape(char ch)
+    {
+        write((byte)'\\');
+        write((byte)'u');
+        write(HEX[(ch >> 12) & 0xF]);
+        write(HEX[(ch >> 8) & 0xF]);
+        write(HEX[(ch >> 4) & 0xF]);
+        write(HEX[ch & 0xF]);
+    }
+
+    /**
+     * Encodes the character at the given index as UTF-8. Unpaired surrogates are encoded as <code>?</code>.
+     *
+     * @param string string
+     * @param i character index
+     * @return index of the last character consumed
+     */
+    private int writeChar(String string, int i)
+    {
+        char ch = string.charAt(i);
+        if (ch < 0x80) write((byte)ch);
+        else if (ch < 0x800)
+        {
+            write((byte)(0xC0 | (ch >> 6)));
+            write((byte)(0x80 | (ch & 0x3F)));
+        }
+        else if (Character.isHighSurrogate(ch) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1)))
+        {
+            int cp = Character.toCodePoint(ch, string.charAt(i + 1));
+            write((byte)(0xF0 | (cp >> 18)));
+            write((byte)(0x80 | ((cp >> 12) & 0x3F)));
+            write((byte)(0x80 | ((cp >> 6) & 0x3F)));
+            write((byte)(0x80 | (cp & 0x3F)));
+            return i + 1;
+        }
+        else if (Character.isSurrogate(ch)) write((byte)'?');
+        else
+        {
+            write((byte)(0xE0 | (ch >> 12)));
+            write((byte)(0x80 | ((ch >> 6) & 0x3F)));
+            write((byte)(0x80 | (ch & 0x3F)));
+        }
+        return i;
+    }
+
+    private void write(byte b)
+    {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = b;
+    }
+
+    /**
+     * Writes bytes that fit into the buffer, such as a keyword.
+     *
+     * @param bytes bytes
+     */
+    protected void write(byte[] bytes)
+    {
+        if (bytes.length > buffer.length - position) flushBuffer();
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flushBufferIfLessThan(int free)
+    {
+        if (buffer.length - position < free) flushBuffer();
+    }
+
+    private void flushBuffer()
+    {
+        if (position == 0) return;
+
+        try
+        {
+            os.write(buffer, 0, position);
+            position = 0;
+            flushCount++;
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
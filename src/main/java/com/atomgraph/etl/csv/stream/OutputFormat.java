@@ -0,0 +1,129 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWriter;
+
+/**
+ * RDF output formats.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public enum OutputFormat
+{
+
+    /** N-Triples, written by {@link NTriplesStreamRDF} if the output is UTF-8 */
+    NTRIPLES(true, Lang.NTRIPLES),
+    /** N-Quads, written by {@link NTriplesStreamRDF} if the output is UTF-8 */
+    NQUADS(true, Lang.NQUADS),
+    /** Turtle, with the prefixes of the query, written in blocks of triples with the same subject */
+    TURTLE(false, Lang.TURTLE),
+    /** Jena's binary RDF Thrift format */
+    THRIFT(true, Lang.RDFTHRIFT),
+    /** Jena's binary RDF Protobuf format */
+    PROTOBUF(true, Lang.RDFPROTO);
+
+    private final boolean concatenable;
+    private final Lang lang;
+
+    OutputFormat(boolean concatenable, Lang lang)
+    {
+        this.concatenable = concatenable;
+        this.lang = lang;
+    }
+
+    /**
+     * Returns the format of a media type.
+     *
+     * @param mediaType media type, without parameters
+     * @return format, or null if the media type is not supported
+     */
+    public static OutputFormat fromContentType(String mediaType)
+    {
+        for (OutputFormat format : values())
+            if (format.getContentType().equalsIgnoreCase(mediaType)) return format;
+
+        return null;
+    }
+
+    /**
+     * Creates a stream that writes this format.
+     *
+     * @param os output stream
+     * @param charset charset of text formats
+     * @return RDF stream
+     */
+    public StreamRDF createStream(OutputStream os, Charset charset)
+    {
+        return switch (this)
+        {
+            case NTRIPLES, NQUADS ->
+            {
+                if (charset.equals(StandardCharsets.UTF_8)) yield new NTriplesStreamRDF(os);
+                yield StreamRDFLib.writer(new BufferedWriter(new OutputStreamWriter(os, charset)));
+            }
+            case TURTLE ->
+            {
+                if (!charset.equals(StandardCharsets.UTF_8)) throw new IllegalArgumentException("Turtle output has to be UTF-8");
+                yield StreamRDFWriter.getWriterStream(os, RDFFormat.TURTLE_BLOCKS);
+            }
+            case THRIFT -> StreamRDFWriter.getWriterStream(os, RDFFormat.RDF_THRIFT);
+            case PROTOBUF -> StreamRDFWriter.getWriterStream(os, RDFFormat.RDF_PROTO);
+        };
+    }
+
+    /**
+     * Returns true if the outputs of separate streams can be concatenated into a single valid output.
+     * This is not the case for Turtle, in which blank node labels are scoped to the document.
+     *
+     * @return true if concatenable
+     */
+    public boolean isConcatenable()
+    {
+        return concatenable;
+    }
+
+    /**
+     * Returns the file extension of this format, as used by Jena.
+     *
+     * @return file extension, including the leading dot
+     */
+    public String getFileExtension()
+    {
+        return "." + lang.getFileExtensions().get(0);
+    }
+
+    /**
+     * Returns the media type of this format.
+     *
+     * @return media type
+     */
+    public String getContentType()
+    {
+        return lang.getContentType().getContentTypeStr();
+    }
+
+}
@@ -0,0 +1,231 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.univocity.parsers.common.ParsingContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.query.Query;
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * Transforms rows on a pool of worker threads.
+ * The parser thread collects rows into chunks and submits them to the workers, while a single writer thread drains the transformed chunks into the stream.
+ * The number of chunks in flight is bounded, so the parser blocks when the workers or the writer fall behind.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ParallelCSVStreamRDFProcessor extends CSVStreamRDFProcessor
+{
+
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private static final Future<TripleBuffer> END = CompletableFuture.completedFuture(new TripleBuffer(false));
+
+    private final int threads, chunkSize;
+    private final boolean ordered;
+    private final ThreadLocal<Query> localQuery;
+    private final BlockingQueue<Future<TripleBuffer>> results = new LinkedBlockingQueue<>();
+    private final Semaphore permits; // bounds the number of chunks in flight
+    private ExecutorService workers;
+    private Thread writer;
+    private List<String[]> chunk;
+    private volatile Throwable failure;
+
+    public ParallelCSVStreamRDFProcessor(StreamRDF stream, String base, Query query, int threads, boolean ordered)
+    {
+        this(stream, base, query, threads, ordered, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelCSVStreamRDFProcessor(StreamRDF stream, String base, Query query, int threads, boolean ordered, int chunkSize)
+    {
+        super(stream, base, query);
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive");
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive");
+        this.threads = threads;
+        this.ordered = ordered;
+        this.chunkSize = chunkSize;
+        this.localQuery = ThreadLocal.withInitial(query::cloneQuery); // Query instances are not meant to be shared between threads
+        this.permits = new Semaphore(threads * 2);
+    }
+
+    @Override
+    public void processStarted(ParsingContext context)
+    {
+        super.processStarted(context);
+
+        failure = null;
+        results.clear();
+        chunk = new ArrayList<>(getChunkSize());
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(getThreads(), r ->
+        {
+            Thread thread = new Thread(r, "csv2rdf-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer = new Thread(this::drain, "csv2rdf-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    protected void processRow(String[] row, ParsingContext context)
+    {
+        chunk.add(row);
+        if (chunk.size() == getChunkSize())
+        {
+            submit(chunk, context);
+            chunk = new ArrayList<>(getChunkSize());
+        }
+    }
+
+    @Override
+    public void processEnded(ParsingContext context)
+    {
+        super.processEnded(context);
+        
+        try
+        {
+            if (!chunk.isEmpty()) submit(chunk, context);
+            permits.acquire(getThreads() * 2); // wait until all chunks in flight have been written
+            permits.release(getThreads() * 2);
+            results.put(END);
+            writer.join();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transformation to complete", ex);
+        }
+        finally
+        {
+            workers.shutdownNow();
+        }
+
+        rethrowFailure();
+    }
+
+    /**
+     * Submits a chunk of rows to the workers. Blocks while the maximum number of chunks is in flight.
+     *
+     * @param rows chunk of rows
+     * @param context parsing context
+     */
+    protected void submit(List<String[]> rows, ParsingContext context)
+    {
+        rethrowFailure();
+
+        try
+        {
+            permits.acquire();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a transformation slot", ex);
+        }
+
+        long firstRowNumber = getRowNumber() - rows.size() + 1; // the chunk ends with the last parsed row
+        CompletableFuture<TripleBuffer> result = CompletableFuture.supplyAsync(() ->
+        {
+            TripleBuffer triples = new TripleBuffer(isDistinct());
+            transformRows(rows, firstRowNumber, context, triples); // records the time of every row
+            return triples;
+        }, workers);
+        if (isOrdered()) results.add(result); // the writer waits for chunks in the order they were submitted
+        else result.whenComplete((triples, ex) -> results.add(result)); // the writer takes chunks in the order they complete
+    }
+
+    /**
+     * Writes transformed chunks into the stream. Runs on the writer thread until the end of the input.
+     * After a failure the remaining chunks are discarded but still drained, so that the parser thread does not block.
+     */
+    private void drain()
+    {
+        try
+        {
+            Future<TripleBuffer> result;
+            while ((result = results.take()) != END)
+            {
+                try
+                {
+                    TripleBuffer triples = result.get();
+                    if (failure == null) send(triples);
+                }
+                catch (ExecutionException ex)
+                {
+                    if (failure == null) failure = ex.getCause();
+                }
+                catch (RuntimeException ex)
+                {
+                    if (failure == null) failure = ex;
+                }
+                finally
+                {
+                    permits.release();
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            if (failure == null) failure = ex;
+        }
+    }
+
+    private void rethrowFailure()
+    {
+        Throwable ex = failure;
+        if (ex == null) return;
+
+        if (ex instanceof RuntimeException runtimeEx) throw runtimeEx;
+        if (ex instanceof Error error) throw error;
+        throw new IllegalStateException("Row transformation failed", ex);
+    }
+
+    @Override
+    public Query getQuery()
+    {
+        return localQuery.get();
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+}
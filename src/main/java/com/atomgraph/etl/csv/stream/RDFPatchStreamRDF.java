@@ -0,0 +1,152 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Writes the stream as a single <a href="https://afs.github.io/rdf-delta/rdf-patch.html">RDF Patch</a> transaction.
+ * Triples sent to the stream are added (<code>A</code>), {@link #delete(Triple)} removes triples (<code>D</code>).
+ * The patch is identified by an id and refers to the patch it follows, so that patches of consecutive conversions form a log.
+ * RDF terms are encoded in the same way as in N-Triples.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class RDFPatchStreamRDF extends NTriplesStreamRDF
+{
+
+    private static final byte[] ADD = "A ".getBytes(StandardCharsets.US_ASCII), DELETE = "D ".getBytes(StandardCharsets.US_ASCII),
+        ID = "H id ".getBytes(StandardCharsets.US_ASCII), PREVIOUS = "H prev ".getBytes(StandardCharsets.US_ASCII),
+        PREFIX = "PA ".getBytes(StandardCharsets.US_ASCII), BEGIN = "TX .\n".getBytes(StandardCharsets.US_ASCII), COMMIT = "TC .\n".getBytes(StandardCharsets.US_ASCII),
+        SPACE = " ".getBytes(StandardCharsets.US_ASCII), END = " .\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final String id, previousId;
+    private long added, deleted;
+
+    /**
+     * Creates a patch writer.
+     *
+     * @param os output stream
+     * @param id IRI that identifies the patch, e.g. <code>uuid:...</code>
+     * @param previousId IRI of the previous patch, or null if this is the first one
+     */
+    public RDFPatchStreamRDF(OutputStream os, String id, String previousId)
+    {
+        super(os);
+        this.id = id;
+        this.previousId = previousId;
+    }
+
+    @Override
+    public void start()
+    {
+        header(ID, NodeFactory.createURI(getId()));
+        if (getPreviousId() != null) header(PREVIOUS, NodeFactory.createURI(getPreviousId()));
+        write(BEGIN);
+    }
+
+    private void header(byte[] keyword, Node value)
+    {
+        write(keyword);
+        writeNode(value);
+        write(END);
+    }
+
+    /**
+     * Adds a triple.
+     *
+     * @param triple triple
+     */
+    @Override
+    public void triple(Triple triple)
+    {
+        write(ADD);
+        super.triple(triple);
+        added++;
+    }
+
+    /**
+     * Adds the triple of a quad in the default graph, or the quad.
+     *
+     * @param quad quad
+     */
+    @Override
+    public void quad(Quad quad)
+    {
+        write(ADD);
+        super.quad(quad);
+        added++;
+    }
+
+    /**
+     * Deletes a triple.
+     *
+     * @param triple triple
+     */
+    public void delete(Triple triple)
+    {
+        write(DELETE);
+        super.triple(triple);
+        deleted++;
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+        write(PREFIX);
+        writeNode(NodeFactory.createLiteralString(prefix));
+        write(SPACE);
+        writeNode(NodeFactory.createURI(iri));
+        write(END);
+    }
+
+    /**
+     * Commits the transaction and flushes the output.
+     */
+    @Override
+    public void finish()
+    {
+        write(COMMIT);
+        super.finish();
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getPreviousId()
+    {
+        return previousId;
+    }
+
+    public long getAddedCount()
+    {
+        return added;
+    }
+
+    public long getDeletedCount()
+    {
+        return deleted;
+    }
+
+}
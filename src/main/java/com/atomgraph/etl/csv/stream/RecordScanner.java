@@ -0,0 +1,189 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds CSV record boundaries in a file on the byte level, without decoding and parsing it.
+ * Only charsets in which the quote, the delimiter and the line feed are single ASCII bytes are supported.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see ChunkedCSVStreamRDFOutput#isSupported(java.nio.charset.Charset, char)
+ */
+public class RecordScanner
+{
+
+    private static final int SCAN_WINDOW = 64 * 1024 * 1024;
+    private static final byte QUOTE = '"', LF = '\n', COMMENT = '#';
+    private static final byte[] UTF8_BOM = { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+
+    private final char delimiter;
+
+    /**
+     * Receives the records found by a scan.
+     */
+    public interface Handler
+    {
+
+        /**
+         * Called for every record, in file order.
+         *
+         * @param start position of the record start
+         * @param end position after the line feed that ends the record, or the file size
+         */
+        void record(long start, long end);
+
+    }
+
+    public RecordScanner(char delimiter)
+    {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Returns the position of the first record, which follows the byte order mark of UTF-8 files.
+     *
+     * @param channel file channel
+     * @param charset file charset
+     * @return position of the first record
+     * @throws IOException if the file cannot be read
+     */
+    public static long skipBOM(FileChannel channel, Charset charset) throws IOException
+    {
+        if (!charset.equals(StandardCharsets.UTF_8) || channel.size() < UTF8_BOM.length) return 0;
+
+        ByteBuffer bom = ByteBuffer.allocate(UTF8_BOM.length);
+        channel.read(bom, 0);
+        return bom.flip().equals(ByteBuffer.wrap(UTF8_BOM)) ? UTF8_BOM.length : 0;
+    }
+
+    /**
+     * Finds the end of the first record that ends at or after the target position.
+     *
+     * @param channel file channel
+     * @param start position of a record start
+     * @param target minimum end position
+     * @param size file size
+     * @return position after the line feed that ends the record, or the file size
+     * @throws IOException if the file cannot be mapped
+     */
+    public long findRecordEnd(FileChannel channel, long start, long target, long size) throws IOException
+    {
+        return findRecordEnd(channel, start, target, size, null);
+    }
+
+    /**
+     * Finds the end of the first record that ends at or after the target position, and reports the records up to it.
+     * The scan starts at a record boundary and follows the quoting rules of the parser:
+     * a value is quoted if it starts with a quote (after optional whitespace), and doubled quotes inside it are escaped.
+     * Like the parser, the scan skips lines that start with the comment character <code>#</code> and lines that only contain whitespace.
+     *
+     * @param channel file channel
+     * @param start position of a record start
+     * @param target minimum end position
+     * @param size file size
+     * @param records handler of the records, or null
+     * @return position after the line feed that ends the record, or the file size
+     * @throws IOException if the file cannot be mapped
+     */
+    public long findRecordEnd(FileChannel channel, long start, long target, long size, Handler records) throws IOException
+    {
+        final int FIELD_START = 0, UNQUOTED = 1, QUOTED = 2, QUOTE_IN_QUOTED = 3, COMMENTED = 4;
+        byte delim = (byte)delimiter;
+        int state = FIELD_START;
+        boolean recordStart = true, content = false;
+        long recordBegin = start;
+
+        for (long position = start; position < size; position += SCAN_WINDOW)
+        {
+            int length = (int)Math.min(SCAN_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++)
+            {
+                byte b = window.get(i);
+                if (state == COMMENTED)
+                {
+                    if (b != LF) continue;
+                    if (position + i >= target) return position + i + 1;
+                    state = FIELD_START;
+                    recordStart = true;
+                    recordBegin = position + i + 1;
+                    continue;
+                }
+                if (state == QUOTED)
+                {
+                    if (b == QUOTE) state = QUOTE_IN_QUOTED;
+                    continue;
+                }
+                if (state == QUOTE_IN_QUOTED && b == QUOTE)
+                {
+                    state = QUOTED; // escaped quote
+                    continue;
+                }
+
+                if (recordStart && b == COMMENT)
+                {
+                    state = COMMENTED;
+                    recordStart = false;
+                    continue;
+                }
+                recordStart = false;
+
+                if (b == delim)
+                {
+                    state = FIELD_START;
+                    content = true;
+                }
+                else if (b == LF)
+                {
+                    if (content && records != null) records.record(recordBegin, position + i + 1);
+                    if (position + i >= target) return position + i + 1;
+                    state = FIELD_START;
+                    recordStart = true;
+                    recordBegin = position + i + 1;
+                    content = false;
+                }
+                else if (state == FIELD_START && b == QUOTE)
+                {
+                    state = QUOTED;
+                    content = true;
+                }
+                else if (state != FIELD_START || (b != ' ' && b != '\t' && b != '\r'))
+                {
+                    state = UNQUOTED;
+                    content = true;
+                }
+            }
+        }
+
+        if (content && records != null) records.record(recordBegin, size); // last record without a line feed
+        return size;
+    }
+
+
+    public char getDelimiter()
+    {
+        return delimiter;
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.TermCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+/**
+ * Read-only graph of a single CSV row: one subject with a property for each non-null cell.
+ * Triples are served directly from the row values, without indexing.
+ * The graph is meant to be reused by resetting it to the next row. It is not thread-safe.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class RowGraph extends GraphBase
+{
+
+    private static final int[] NO_COLUMNS = {};
+
+    private Node[] properties = {};
+    private Map<Node, int[]> columns = Map.of();
+    private Node subject;
+    private String[] row = {};
+    private Node[] objects = {};
+    private TermCache termCache;
+
+    /**
+     * Sets the column properties. The property index is rebuilt only if the array is different from the current one.
+     *
+     * @param properties column properties (null for columns without header)
+     */
+    public void setProperties(Node[] properties)
+    {
+        if (this.properties == properties) return;
+
+        Map<Node, int[]> index = new HashMap<>();
+        for (int i = 0; i < properties.length; i++)
+            if (properties[i] != null)
+            {
+                int[] existing = index.getOrDefault(properties[i], NO_COLUMNS);
+                int[] indexes = Arrays.copyOf(existing, existing.length + 1);
+                indexes[existing.length] = i;
+                index.put(properties[i], indexes);
+            }
+
+        this.properties = properties;
+        this.columns = index;
+        this.objects = new Node[properties.length];
+    }
+
+    /**
+     * Resets the graph to a new row.
+     *
+     * @param subject row subject
+     * @param row row values
+     */
+    public void reset(Node subject, String[] row)
+    {
+        reset(subject, row, null);
+    }
+
+    /**
+     * Resets the graph to a new row whose typed cells have already been parsed.
+     *
+     * @param subject row subject
+     * @param row row values
+     * @param cells typed literals (null for string cells), or null if the row has no typed cells
+     */
+    public void reset(Node subject, String[] row, Node[] cells)
+    {
+        this.subject = subject;
+        this.row = row;
+        if (cells != null) System.arraycopy(cells, 0, objects, 0, Math.min(cells.length, objects.length));
+        else Arrays.fill(objects, null);
+    }
+
+    /**
+     * Sets the cache of cell literals.
+     *
+     * @param termCache term cache, or null to create a new literal for every cell
+     */
+    public void setTermCache(TermCache termCache)
+    {
+        this.termCache = termCache;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple match)
+    {
+        Node s = match.getSubject(), p = match.getPredicate(), o = match.getObject(); // Node.ANY and variables match any node
+        if (subject == null || (s.isConcrete() && !s.equals(subject))) return NullIterator.instance();
+
+        List<Triple> triples = new ArrayList<>();
+        if (p.isConcrete()) for (int column : columns.getOrDefault(p, NO_COLUMNS)) addTriple(column, o, triples);
+        else for (int column = 0; column < properties.length; column++) addTriple(column, o, triples);
+
+        return WrappedIterator.create(triples.iterator());
+    }
+
+    private void addTriple(int column, Node o, List<Triple> triples)
+    {
+        Node object = getObject(column);
+        if (object != null && (!o.isConcrete() || o.equals(object))) triples.add(Triple.create(subject, properties[column], object));
+    }
+
+    /**
+     * Returns the literal of a cell. String literals are created on first access.
+     *
+     * @param column column index
+     * @return literal, or null if the cell is null or the column has no property
+     */
+    protected Node getObject(int column)
+    {
+        if (column >= row.length || row[column] == null || properties[column] == null) return null;
+
+        if (objects[column] == null) objects[column] = termCache != null ? termCache.getLiteral(column, row[column]) : NodeFactory.createLiteralString(row[column]);
+        return objects[column];
+    }
+
+    @Override
+    protected int graphBaseSize()
+    {
+        int size = 0;
+        for (int column = 0; column < properties.length; column++)
+            if (column < row.length && row[column] != null && properties[column] != null) size++;
+        return size;
+    }
+
+    public Node getSubject()
+    {
+        return subject;
+    }
+
+}
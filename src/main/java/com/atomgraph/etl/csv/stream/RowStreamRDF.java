@@ -0,0 +1,46 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import org.apache.jena.riot.system.StreamRDF;
+
+/**
+ * RDF stream that is told where the triples of each transformed row begin, e.g. to split the output by row ranges.
+ * Row processors signal every row, including rows without triples.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ * @see TripleBuffer#sendTo(StreamRDF)
+ */
+public interface RowStreamRDF extends StreamRDF
+{
+
+    /**
+     * Signals that the following triples belong to the next row.
+     */
+    void row();
+
+    /**
+     * Signals the next row to a stream, if it is row-aware.
+     *
+     * @param stream RDF stream
+     */
+    static void row(StreamRDF stream)
+    {
+        if (stream instanceof RowStreamRDF rows) rows.row();
+    }
+
+}
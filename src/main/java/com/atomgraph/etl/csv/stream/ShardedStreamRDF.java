@@ -0,0 +1,330 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Splits the RDF output into shards that are written in parallel, e.g. to load them into a partitioned store.
+ * Triples are assigned to shards by a hash of their subject, so that all triples of a subject are in the same shard,
+ * or round-robin by ranges of consecutive rows.
+ * <p>
+ * Every shard has its own writer thread, which serializes batches of triples into its output while the conversion continues.
+ * When a writer falls behind, adding triples to its shard blocks, which applies backpressure to the row processor.
+ * A failed writer makes the next call throw. The outputs are closed by {@link #finish()}.
+ * Triples are added from a single thread, as by the row processors.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class ShardedStreamRDF implements RowStreamRDF
+{
+
+    public static final int DEFAULT_RANGE_ROWS = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int QUEUE_CAPACITY = 4; // batches per shard waiting to be written
+    private static final Consumer<StreamRDF> END = stream -> {};
+
+    /**
+     * How triples are assigned to shards.
+     */
+    public enum Mode
+    {
+
+        /** by a hash of the subject */
+        SUBJECT,
+        /** round-robin by ranges of consecutive rows */
+        ROW_RANGE
+
+    }
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final Mode mode;
+    private int rangeRows = DEFAULT_RANGE_ROWS;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long rows;
+    private Shard current; // shard of the current row range
+    private volatile Throwable failure;
+
+    /**
+     * Creates a sharded sink.
+     *
+     * @param outputs outputs of the shards
+     * @param format RDF format of the shards
+     * @param charset charset of text formats
+     * @param mode how triples are assigned to shards
+     */
+    public ShardedStreamRDF(List<? extends OutputStream> outputs, OutputFormat format, Charset charset, Mode mode)
+    {
+        if (outputs.isEmpty()) throw new IllegalArgumentException("At least one shard output is required");
+        for (int i = 0; i < outputs.size(); i++) shards.add(new Shard(i, outputs.get(i), format.createStream(outputs.get(i), charset)));
+        this.mode = mode;
+        this.current = shards.get(0);
+    }
+
+    @Override
+    public void start()
+    {
+        for (Shard shard : shards) shard.thread.start();
+    }
+
+    @Override
+    public void row()
+    {
+        if (getMode() == Mode.ROW_RANGE) current = shards.get((int)(rows++ / getRangeRows() % shards.size()));
+    }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        rethrowFailure();
+
+        Shard shard = getMode() == Mode.SUBJECT ? shards.get(Math.floorMod(hash(triple), shards.size())) : current;
+        shard.add(triple);
+    }
+
+    /**
+     * Adds the triple of the quad.
+     *
+     * @param quad quad
+     */
+    @Override
+    public void quad(Quad quad)
+    {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(String base)
+    {
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+        for (Shard shard : shards)
+        {
+            shard.flush();
+            shard.put(stream -> stream.prefix(prefix, iri));
+        }
+    }
+
+    @Override
+    public void version(String version)
+    {
+    }
+
+    /**
+     * Writes the remaining triples, waits for the writers to finish and closes the outputs.
+     */
+    @Override
+    public void finish()
+    {
+        try
+        {
+            for (Shard shard : shards)
+            {
+                shard.flush();
+                shard.put(END);
+            }
+            for (Shard shard : shards) shard.thread.join();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shard writers", ex);
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Stops the writers after a failure, without writing the remaining triples.
+     *
+     * @param ex failure of the conversion
+     */
+    public void abort(Exception ex)
+    {
+        if (failure == null) failure = ex;
+        for (Shard shard : shards) shard.thread.interrupt();
+    }
+
+    private static int hash(Triple triple)
+    {
+        int hash = triple.getSubject().hashCode();
+        return hash ^ (hash >>> 16); // spread the higher bits, as the shard count is usually small
+    }
+
+    private void rethrowFailure()
+    {
+        Throwable ex = failure;
+        if (ex == null) return;
+        if (ex instanceof RuntimeException runtime) throw runtime;
+        if (ex instanceof IOException io) throw new UncheckedIOException("Shard writer has failed", io);
+        throw new IllegalStateException("Shard writer has failed", ex);
+    }
+
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    public int getShardCount()
+    {
+        return shards.size();
+    }
+
+    /**
+     * Returns the number of triples added to a shard.
+     *
+     * @param shard shard index
+     * @return triple count
+     */
+    public long getTripleCount(int shard)
+    {
+        return shards.get(shard).triples;
+    }
+
+    public int getRangeRows()
+    {
+        return rangeRows;
+    }
+
+    /**
+     * Sets the number of consecutive rows that are written to the same shard in the {@link Mode#ROW_RANGE} mode.
+     *
+     * @param rangeRows rows per range, 10000 by default
+     */
+    public void setRangeRows(int rangeRows)
+    {
+        if (rangeRows < 1) throw new IllegalArgumentException("Range size must be positive");
+        this.rangeRows = rangeRows;
+    }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of triples that are handed over to a shard writer at once.
+     *
+     * @param batchSize triples per batch, 10000 by default
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Output of a shard with its writer thread, which takes the batches of triples and other events from a bounded queue.
+     */
+    private class Shard implements Runnable
+    {
+
+        private final OutputStream out;
+        private final StreamRDF stream;
+        private final BlockingQueue<Consumer<StreamRDF>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Thread thread;
+        private List<Triple> batch = new ArrayList<>();
+        private long triples;
+
+        Shard(int index, OutputStream out, StreamRDF stream)
+        {
+            this.out = out;
+            this.stream = stream;
+            this.thread = new Thread(this, "csv2rdf-shard-writer-" + index);
+            thread.setDaemon(true);
+        }
+
+        void add(Triple triple)
+        {
+            batch.add(triple);
+            triples++;
+            if (batch.size() >= getBatchSize()) flush();
+        }
+
+        void flush()
+        {
+            if (batch.isEmpty()) return;
+
+            List<Triple> full = batch;
+            batch = new ArrayList<>(getBatchSize());
+            put(stream -> full.forEach(stream::triple));
+        }
+
+        void put(Consumer<StreamRDF> item)
+        {
+            try
+            {
+                queue.put(item);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shard writer", ex);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try (OutputStream os = out)
+            {
+                stream.start();
+                for (Consumer<StreamRDF> item = queue.take(); item != END; item = queue.take()) item.accept(stream);
+                stream.finish();
+            }
+            catch (InterruptedException ex)
+            {
+                // aborted
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                if (failure == null) failure = ex;
+                drain();
+            }
+        }
+
+        /**
+         * Discards the queued items after a failure until the end, so that adding triples does not block.
+         */
+        private void drain()
+        {
+            try
+            {
+                while (queue.take() != END);
+            }
+            catch (InterruptedException ex)
+            {
+                // aborted
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+
+/**
+ * Loads the transformed triples straight into a TDB2 dataset using Jena's parallel bulk loader, instead of writing them out and loading them in a second pass.
+ * The loader batches the data into large transactions and builds the indexes on its own threads. The whole load is committed by {@link #finish()},
+ * or rolled back by {@link #abort(Exception)} if the conversion fails. Triples are loaded into the default graph, or into a named graph if one is given.
+ * The loader has exclusive write access to the dataset until it finishes, and its input is not thread-safe.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class TDB2StreamRDF implements StreamRDF
+{
+
+    private final DataLoader loader;
+    private final Node graphName;
+    private StreamRDF stream;
+
+    /**
+     * Creates a loader sink.
+     *
+     * @param dsg TDB2 dataset
+     * @param graphName name of the target graph, or null to load into the default graph
+     */
+    public TDB2StreamRDF(DatasetGraph dsg, Node graphName)
+    {
+        this.loader = LoaderFactory.parallelLoader(dsg, graphName, LoaderOps.nullOutput());
+        this.graphName = graphName;
+    }
+
+    @Override
+    public void start()
+    {
+        loader.startBulk();
+        stream = loader.stream();
+    }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        stream.triple(triple);
+    }
+
+    @Override
+    public void quad(Quad quad)
+    {
+        stream.quad(quad);
+    }
+
+    @Override
+    public void base(String base)
+    {
+    }
+
+    @Override
+    public void version(String version)
+    {
+    }
+
+    @Override
+    public void prefix(String prefix, String iri)
+    {
+        stream.prefix(prefix, iri);
+    }
+
+    /**
+     * Finishes the bulk load and commits it.
+     */
+    @Override
+    public void finish()
+    {
+        loader.finishBulk();
+    }
+
+    /**
+     * Abandons the bulk load after a failure, so that none of it is committed.
+     *
+     * @param ex failure of the conversion
+     */
+    public void abort(Exception ex)
+    {
+        loader.finishException(ex);
+    }
+
+    public Node getGraphName()
+    {
+        return graphName;
+    }
+
+    /**
+     * Returns the number of loaded triples and quads.
+     *
+     * @return statement count
+     */
+    public long getLoadedCount()
+    {
+        return loader.countTriples() + loader.countQuads();
+    }
+
+}
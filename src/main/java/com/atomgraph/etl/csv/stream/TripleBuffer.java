@@ -0,0 +1,139 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Collects the triples of transformed rows in order, until they are sent to the output stream.
+ * Unlike a result model it does not index the triples, and it can be cleared and reused.
+ * Duplicates can be dropped within each row, which is as much as a per-row model used to remove.
+ * The buffer also records where the triples of each row begin, which it signals to a {@link RowStreamRDF}.
+ *
+ * @author Martynas Jusevičius {@literal <martynas@atomgraph.com>}
+ */
+public class TripleBuffer extends StreamRDFBase
+{
+
+    private final List<Triple> triples = new ArrayList<>();
+    private final Set<Triple> rowTriples; // triples of the current row, used to drop duplicates
+    private int[] rowStarts = new int[16]; // index of the first triple of each row
+    private int rows;
+
+    /**
+     * Creates a buffer.
+     *
+     * @param distinct true to drop duplicate triples within a row
+     */
+    public TripleBuffer(boolean distinct)
+    {
+        this.rowTriples = distinct ? new HashSet<>() : null;
+    }
+
+    @Override
+    public void triple(Triple triple)
+    {
+        if (rowTriples == null || rowTriples.add(triple)) triples.add(triple);
+    }
+
+    @Override
+    public void quad(Quad quad)
+    {
+        triple(quad.asTriple());
+    }
+
+    /**
+     * Starts the next row. Duplicates are only detected within a row.
+     */
+    public void nextRow()
+    {
+        if (rowTriples != null) rowTriples.clear();
+        if (rows == rowStarts.length) rowStarts = Arrays.copyOf(rowStarts, rows * 2);
+        rowStarts[rows++] = triples.size();
+    }
+
+    /**
+     * Removes all triples and rows.
+     */
+    public void clear()
+    {
+        triples.clear();
+        if (rowTriples != null) rowTriples.clear();
+        rows = 0;
+    }
+
+    /**
+     * Sends the triples to a stream, in the order they were collected.
+     * A {@link RowStreamRDF} is also signalled the beginning of every row.
+     *
+     * @param stream output stream
+     */
+    public void sendTo(StreamRDF stream)
+    {
+        if (!(stream instanceof RowStreamRDF rowStream))
+        {
+            for (Triple triple : triples) stream.triple(triple);
+            return;
+        }
+
+        int row = 0;
+        for (int i = 0; i < triples.size(); i++)
+        {
+            while (row < rows && rowStarts[row] == i)
+            {
+                rowStream.row();
+                row++;
+            }
+            rowStream.triple(triples.get(i));
+        }
+        for (; row < rows; row++) rowStream.row(); // rows without triples at the end
+    }
+
+    public List<Triple> getTriples()
+    {
+        return triples;
+    }
+
+    public int size()
+    {
+        return triples.size();
+    }
+
+    /**
+     * Returns the number of rows started since the buffer was cleared.
+     *
+     * @return row count
+     */
+    public int getRowCount()
+    {
+        return rows;
+    }
+
+    public boolean isDistinct()
+    {
+        return rowTriples != null;
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchConverterTest
+{
+
+    // upper-cases the input, fails on inputs that contain "bad"
+    private static final BatchConverter.FileConverter CONVERTER = (input, out) ->
+    {
+        String content = Files.readString(input, StandardCharsets.UTF_8);
+        if (content.contains("bad")) throw new IOException("Bad input");
+        out.write(content.toUpperCase().getBytes(StandardCharsets.UTF_8));
+    };
+
+    private Path dir;
+
+    @BeforeEach
+    void createFiles() throws IOException
+    {
+        dir = Files.createTempDirectory("csv2rdf");
+        Files.writeString(dir.resolve("a.csv"), "a\n");
+        Files.writeString(dir.resolve("b.csv"), "b\n");
+        Files.writeString(dir.resolve("c.txt"), "bad\n");
+        Files.createDirectory(dir.resolve("out"));
+    }
+
+    @AfterEach
+    void deleteFiles() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(dir))
+        {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Test
+    void directoriesAndGlobsAreResolved() throws IOException
+    {
+        assertEquals(List.of(dir.resolve("a.csv"), dir.resolve("b.csv"), dir.resolve("c.txt")), BatchConverter.resolve(List.of(dir.toString())));
+        assertEquals(List.of(dir.resolve("a.csv"), dir.resolve("b.csv")), BatchConverter.resolve(List.of(dir + "/*.csv")));
+        assertEquals(List.of(dir.resolve("b.csv"), dir.resolve("a.csv")), BatchConverter.resolve(List.of(dir.resolve("b.csv").toString(), dir + "/*.csv")));
+    }
+
+    @Test
+    void missingInputIsRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> BatchConverter.resolve(List.of(dir.resolve("missing.csv").toString())));
+    }
+
+    @Test
+    void failedFilesDoNotAffectOthers() throws IOException
+    {
+        List<Path> inputs = BatchConverter.resolve(List.of(dir.toString()));
+        List<BatchConverter.FileResult> results = new BatchConverter(CONVERTER, 2).convert(inputs, input -> dir.resolve("out").resolve(input.getFileName() + ".nt"));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSucceeded());
+        assertTrue(results.get(1).isSucceeded());
+        assertFalse(results.get(2).isSucceeded());
+        assertEquals("java.io.IOException: Bad input", results.get(2).getErrorMessage());
+        assertEquals("A\n", Files.readString(dir.resolve("out/a.csv.nt")));
+        assertEquals("B\n", Files.readString(dir.resolve("out/b.csv.nt")));
+        assertFalse(Files.exists(dir.resolve("out/c.txt.nt")), "Failed conversion should not leave a partial output");
+        assertEquals("converted=2 failed=1 files=3", BatchConverter.toSummary(results));
+    }
+
+    @Test
+    void outputsAreMerged() throws IOException
+    {
+        List<Path> inputs = BatchConverter.resolve(List.of(dir + "/*.csv"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<BatchConverter.FileResult> results = new BatchConverter(CONVERTER, 2).convert(inputs, out, ".nt");
+
+        assertTrue(results.stream().allMatch(BatchConverter.FileResult::isSucceeded));
+        String merged = out.toString(StandardCharsets.UTF_8);
+        assertTrue(merged.equals("A\nB\n") || merged.equals("B\nA\n"), "Outputs should not be interleaved");
+    }
+
+    @Test
+    void conflictingOutputsAreRejected() throws IOException
+    {
+        List<Path> inputs = BatchConverter.resolve(List.of(dir + "/*.csv"));
+        BatchConverter converter = new BatchConverter(CONVERTER, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(inputs, input -> dir.resolve("out/same.nt")));
+    }
+
+}
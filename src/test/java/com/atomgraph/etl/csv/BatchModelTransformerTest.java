@@ -0,0 +1,101 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchModelTransformerTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final String[] HEADERS = { "id", "name", "age" };
+    private static final String[][] ROWS = {
+        { "1", "Alice", "30" },
+        { "2", "Bob", null },
+        { "3", "Carol", "thirty" }
+    };
+
+    private static Resource addRow(Model model, String[] row)
+    {
+        Resource subject = model.createResource();
+        for (int i = 0; i < row.length; i++)
+            if (row[i] != null) subject.addProperty(model.createProperty(BASE + "#" + HEADERS[i]), row[i]);
+        return subject;
+    }
+
+    private static void assertSameAsPerRow(String queryString)
+    {
+        Query query = QueryFactory.create(queryString, BASE);
+        assertTrue(BatchModelTransformer.isBatchable(query), "Query should be batchable");
+
+        Model batch = ModelFactory.createDefaultModel();
+        List<Node> subjects = new ArrayList<>();
+        for (String[] row : ROWS) subjects.add(addRow(batch, row).asNode());
+
+        List<Model> actual = new BatchModelTransformer().apply(query, batch, subjects);
+        assertEquals(ROWS.length, actual.size());
+        for (int i = 0; i < ROWS.length; i++)
+        {
+            Model row = ModelFactory.createDefaultModel();
+            addRow(row, ROWS[i]);
+            Model expected = new ModelTransformer().apply(query, row);
+            assertTrue(expected.isIsomorphicWith(actual.get(i)), "Batch result differs from per-row result for row " + i);
+        }
+    }
+
+    @Test
+    void identityQueryMatchesPerRow()
+    {
+        assertSameAsPerRow("CONSTRUCT WHERE { ?s ?p ?o }");
+    }
+
+    @Test
+    void optionalAndBlankNodesMatchPerRow()
+    {
+        assertSameAsPerRow("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> " +
+            "CONSTRUCT { ?person <http://schema.org/name> ?name ; <http://schema.org/age> ?age ; <http://schema.org/address> _:address } " +
+            "WHERE { ?row <#id> ?id ; <#name> ?name OPTIONAL { ?row <#age> ?ageString } BIND(URI(CONCAT(STR(<>), ?id)) AS ?person) BIND(xsd:integer(?ageString) AS ?age) }");
+    }
+
+    @Test
+    void existsMatchesPerRow()
+    {
+        assertSameAsPerRow("CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name FILTER NOT EXISTS { ?row <#age> ?age } }");
+    }
+
+    @Test
+    void crossRowQueriesAreNotBatchable()
+    {
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a> ?o . ?x <http://b> ?o }")));
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a> ?o FILTER EXISTS { ?x <http://b> ?o } }")));
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a>/<http://b> ?o }")));
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a> ?o } LIMIT 1")));
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { OPTIONAL { ?s <http://a> ?o } }")));
+        assertFalse(BatchModelTransformer.isBatchable(QueryFactory.create("DESCRIBE ?s WHERE { ?s <http://a> ?o }")));
+    }
+
+}
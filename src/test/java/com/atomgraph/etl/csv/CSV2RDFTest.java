@@ -0,0 +1,110 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSV2RDFTest
+{
+
+    private static final String BASE = "http://example.com/";
+
+    private Path dir;
+
+    @BeforeEach
+    void createInputs() throws IOException
+    {
+        dir = Files.createTempDirectory("csv2rdf");
+        Files.writeString(dir.resolve("query.rq"), "CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name }");
+        Files.writeString(dir.resolve("a.csv"), "name\nAlice\nBob\n");
+        Files.writeString(dir.resolve("b.csv"), "name\nCarol\nDave\n");
+    }
+
+    @AfterEach
+    void deleteInputs() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(dir))
+        {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    private void convert(String... args) throws IOException
+    {
+        CSV2RDF csv2rdf = new CSV2RDF(InputStream.nullInputStream(), new ByteArrayOutputStream());
+        new CommandLine(csv2rdf).parseArgs(Stream.concat(Stream.of(args), Stream.of(dir.resolve("query.rq").toString(), BASE)).toArray(String[]::new));
+        csv2rdf.convert();
+    }
+
+    private static Model read(Path... files) throws IOException
+    {
+        Model model = ModelFactory.createDefaultModel();
+        for (Path file : files) model.read(new ByteArrayInputStream(Files.readAllBytes(file)), BASE, "N-TRIPLES");
+        return model;
+    }
+
+    @Test
+    void numberedSubjectsOfMergedInputsDoNotCollide() throws IOException
+    {
+        for (String strategy : List.of("ROW_IRI", "ROW_BLANK"))
+        {
+            Path output = dir.resolve(strategy + ".nt");
+            convert("-i", dir.resolve("a.csv").toString(), "-i", dir.resolve("b.csv").toString(), "-o", output.toString(), "--row-subject", strategy);
+
+            Model model = read(output);
+            assertEquals(4, model.size());
+            assertEquals(4, model.listSubjects().toList().size());
+        }
+    }
+
+    @Test
+    void numberedSubjectsOfShardedInputsDoNotCollide() throws IOException
+    {
+        Path shards = dir.resolve("shards");
+        convert("-i", dir.resolve("a.csv").toString(), "-i", dir.resolve("b.csv").toString(), "--output-dir", shards.toString(), "--shards", "2", "--row-subject", "ROW_IRI");
+
+        Model model = read(shards.resolve("part-00000.nt"), shards.resolve("part-00001.nt"));
+        assertEquals(4, model.listSubjects().toList().size());
+        assertTrue(model.containsResource(model.createResource(BASE + "#row-b.csv-1")));
+    }
+
+    @Test
+    void singleInputKeepsRowNumberSubjects() throws IOException
+    {
+        Path output = dir.resolve("a.nt");
+        convert("-i", dir.resolve("a.csv").toString(), "-o", output.toString(), "--row-subject", "ROW_IRI");
+
+        assertTrue(read(output).containsResource(ModelFactory.createDefaultModel().createResource(BASE + "#row-1")));
+    }
+
+}
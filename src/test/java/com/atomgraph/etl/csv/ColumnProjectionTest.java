@@ -0,0 +1,52 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.Set;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnProjectionTest
+{
+
+    private static final String BASE = "http://example.com/";
+
+    @Test
+    void referencedColumnsAreExtracted()
+    {
+        ColumnProjection projection = ColumnProjection.of(QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?name } " +
+            "WHERE { ?row <#name> ?name OPTIONAL { ?row <#first%20name> ?first } " +
+            "FILTER NOT EXISTS { ?row <#deleted> ?deleted } { SELECT ?row { ?row <#id> ?id } } }", BASE));
+
+        assertEquals(Set.of("name", "first name", "deleted", "id"), Set.copyOf(projection.getHeaders(BASE)));
+        assertTrue(projection.contains(NodeFactory.createURI(BASE + "#name")));
+        assertFalse(projection.contains(NodeFactory.createURI(BASE + "#label")));
+    }
+
+    @Test
+    void variablePredicatesAndPathsAreNotProjected()
+    {
+        assertNull(ColumnProjection.of(QueryFactory.create("CONSTRUCT { ?s ?p ?o } WHERE { ?s ?p ?o }")));
+        assertNull(ColumnProjection.of(QueryFactory.create("CONSTRUCT { ?row <#label> ?name } WHERE { ?row <#name>|<#title> ?name }", BASE)));
+        assertNull(ColumnProjection.of(QueryFactory.create("CONSTRUCT { ?row <#label> ?name } WHERE { ?row <#name> ?name FILTER EXISTS { ?row ?p \"x\" } }", BASE)));
+        assertNull(ColumnProjection.of(QueryFactory.create("DESCRIBE ?row WHERE { ?row <#name> ?name }", BASE)));
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.atomgraph.etl.csv.ColumnSchema.Datatype;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnSchemaTest
+{
+
+    private static final String[] HEADERS = { "id", "name", "born" };
+
+    @Test
+    void validValuesAreAccepted()
+    {
+        assertTrue(Datatype.INTEGER.isValid("-00123456789012345678901234567890"));
+        assertTrue(Datatype.INT.isValid("+2147483647"));
+        assertTrue(Datatype.LONG.isValid("-9223372036854775808"));
+        assertTrue(Datatype.DECIMAL.isValid("-.5"));
+        assertTrue(Datatype.DECIMAL.isValid("12."));
+        assertTrue(Datatype.DOUBLE.isValid("1.5E-10"));
+        assertTrue(Datatype.DOUBLE.isValid("-INF"));
+        assertTrue(Datatype.BOOLEAN.isValid("1"));
+        assertTrue(Datatype.DATE.isValid("2024-02-29"));
+        assertTrue(Datatype.DATE.isValid("2024-12-31+14:00"));
+        assertTrue(Datatype.DATE.isValid("12024-01-01Z"));
+    }
+
+    @Test
+    void invalidValuesAreRejected()
+    {
+        assertFalse(Datatype.INTEGER.isValid(""));
+        assertFalse(Datatype.INTEGER.isValid("-"));
+        assertFalse(Datatype.INTEGER.isValid("1 000"));
+        assertFalse(Datatype.INT.isValid("2147483648"));
+        assertFalse(Datatype.LONG.isValid("9223372036854775808"));
+        assertFalse(Datatype.DECIMAL.isValid("."));
+        assertFalse(Datatype.DECIMAL.isValid("1.2.3"));
+        assertFalse(Datatype.DOUBLE.isValid("1e"));
+        assertFalse(Datatype.BOOLEAN.isValid("yes"));
+        assertFalse(Datatype.DATE.isValid("2023-02-29"));
+        assertFalse(Datatype.DATE.isValid("2023-13-01"));
+        assertFalse(Datatype.DATE.isValid("2023-1-01"));
+        assertFalse(Datatype.DATE.isValid("2023-01-01+15:00"));
+    }
+
+    @Test
+    void parseCreatesTypedLiteral()
+    {
+        Node literal = Datatype.DATE.parse("2024-02-29");
+
+        assertEquals(XSDDatatype.XSDdate, literal.getLiteralDatatype());
+        assertEquals("2024-02-29", literal.getLiteralLexicalForm());
+        assertNull(Datatype.DATE.parse("yesterday"));
+    }
+
+    @Test
+    void readsCSVWColumns()
+    {
+        String json = "{ \"tableSchema\": { \"columns\": [ { \"titles\": \"id\", \"datatype\": \"integer\" }, { \"name\": \"name\" }, " +
+            "{ \"titles\": [ \"born\", \"birthDate\" ], \"datatype\": { \"base\": \"http://www.w3.org/2001/XMLSchema#date\" } } ] } }";
+        ColumnSchema schema = ColumnSchema.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(Datatype.INTEGER, schema.getDatatype("id"));
+        assertNull(schema.getDatatype("name"));
+        assertEquals(Datatype.DATE, schema.getDatatype("birthDate"));
+        assertArrayEquals(new Datatype[]{ Datatype.INTEGER, null, Datatype.DATE }, schema.resolve(HEADERS));
+    }
+
+    @Test
+    void unsupportedDatatypeFails()
+    {
+        String json = "{ \"columns\": [ { \"titles\": \"id\", \"datatype\": \"gYear\" } ] }";
+        assertThrows(IllegalArgumentException.class, () -> ColumnSchema.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void untypedSchemaResolvesToNull()
+    {
+        assertNull(new ColumnSchema(Map.of("name", Datatype.STRING)).resolve(HEADERS));
+    }
+
+    @Test
+    void rejectPolicies()
+    {
+        ColumnSchema schema = new ColumnSchema(Map.of("id", Datatype.INTEGER, "born", Datatype.DATE));
+        Datatype[] types = schema.resolve(HEADERS);
+        String[] invalid = { "1", "Alice", "yesterday" };
+
+        assertThrows(IllegalArgumentException.class, () -> schema.parse(HEADERS, types, invalid));
+
+        StringWriter rejects = new StringWriter();
+        try (RejectWriter writer = new RejectWriter(rejects))
+        {
+            schema.setRejectHandler(writer);
+            schema.setRejectPolicy(ColumnSchema.RejectPolicy.SKIP);
+            assertNull(schema.parse(HEADERS, types, invalid));
+
+            schema.setRejectPolicy(ColumnSchema.RejectPolicy.STRING);
+            Node[] cells = schema.parse(HEADERS, types, invalid);
+            assertEquals("1", cells[0].getLiteralLexicalForm());
+            assertNull(cells[2]);
+        }
+
+        assertEquals("id,name,born,error\n" +
+            "1,Alice,yesterday,Invalid date value in column 'born': yesterday\n" +
+            "1,Alice,yesterday,Invalid date value in column 'born': yesterday\n", rejects.toString().replace("\r\n", "\n"));
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledRowMappingTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Node[] PROPERTIES = {
+        NodeFactory.createURI(BASE + "#id"),
+        NodeFactory.createURI(BASE + "#name"),
+        NodeFactory.createURI(BASE + "#age")
+    };
+
+    private static Model rowModel(String[] row)
+    {
+        Model model = ModelFactory.createDefaultModel();
+        Resource subject = model.createResource();
+        for (int i = 0; i < row.length; i++)
+            if (row[i] != null) subject.addProperty(model.createProperty(PROPERTIES[i].getURI()), row[i]);
+        return model;
+    }
+
+    private static void assertSameAsSPARQL(String queryString, String[] row)
+    {
+        Query query = QueryFactory.create(queryString, BASE);
+        CompiledRowMapping mapping = CompiledRowMapping.compile(query);
+        assertNotNull(mapping, "Query should be compilable");
+
+        Model expected = new ModelTransformer().apply(query, rowModel(row));
+        Model actual = mapping.apply(NodeFactory.createBlankNode(), mapping.resolve(PROPERTIES), row);
+
+        assertTrue(expected.isIsomorphicWith(actual), "Compiled result differs from SPARQL result");
+    }
+
+    @Test
+    void identityQueryMatchesSPARQL()
+    {
+        assertSameAsSPARQL("CONSTRUCT { ?s <#id> ?id ; <#name> ?name } WHERE { ?s <#id> ?id ; <#name> ?name }", new String[]{ "1", "Alice", "30" });
+    }
+
+    @Test
+    void bindsMatchSPARQL()
+    {
+        assertSameAsSPARQL("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> " +
+            "CONSTRUCT { ?person <http://schema.org/name> ?name ; <http://schema.org/age> ?age ; <http://schema.org/knows> _:friend } " +
+            "WHERE { ?row <#id> ?id ; <#name> ?name ; <#age> ?ageString BIND(URI(CONCAT(STR(<>), ?id)) AS ?person) BIND(xsd:integer(?ageString) AS ?age) }",
+            new String[]{ "1", "Alice", "30" });
+    }
+
+    @Test
+    void failedBindLeavesVariableUnbound()
+    {
+        assertSameAsSPARQL("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> " +
+            "CONSTRUCT { ?row <http://schema.org/age> ?age ; <http://schema.org/name> ?name } " +
+            "WHERE { ?row <#name> ?name ; <#age> ?ageString BIND(xsd:integer(?ageString) AS ?age) }",
+            new String[]{ "1", "Alice", "thirty" });
+    }
+
+    @Test
+    void missingCellProducesNoSolution()
+    {
+        assertSameAsSPARQL("CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name ; <#age> ?age }",
+            new String[]{ "1", "Alice", null });
+    }
+
+    @Test
+    void filterMatchesSPARQL()
+    {
+        String query = "CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name FILTER(?name != \"Alice\") }";
+        assertSameAsSPARQL(query, new String[]{ "1", "Alice", "30" });
+        assertSameAsSPARQL(query, new String[]{ "2", "Bob", "25" });
+    }
+
+    @Test
+    void unknownColumnProducesNoSolution()
+    {
+        assertSameAsSPARQL("CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name ; <#missing> ?missing }",
+            new String[]{ "1", "Alice", "30" });
+    }
+
+    @Test
+    void unsupportedQueriesAreNotCompiled()
+    {
+        assertNull(CompiledRowMapping.compile(QueryFactory.create("CONSTRUCT WHERE { ?s ?p ?o }")));
+        assertNull(CompiledRowMapping.compile(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a> ?o OPTIONAL { ?s <http://b> ?b } }")));
+        assertNull(CompiledRowMapping.compile(QueryFactory.create("CONSTRUCT { ?s <http://p> ?o } WHERE { ?s <http://a> ?o FILTER NOT EXISTS { ?s <http://b> ?b } }")));
+        assertNull(CompiledRowMapping.compile(QueryFactory.create("DESCRIBE ?s WHERE { ?s <http://a> ?o }")));
+    }
+
+    @Test
+    void duplicateColumnPropertiesAreNotResolved()
+    {
+        CompiledRowMapping mapping = CompiledRowMapping.compile(QueryFactory.create("CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name }", BASE));
+        Node name = NodeFactory.createURI(BASE + "#name");
+
+        assertNull(mapping.resolve(new Node[]{ name, name }));
+    }
+
+    @Test
+    void cachedBindsMatchUncached()
+    {
+        CompiledRowMapping mapping = CompiledRowMapping.compile(QueryFactory.create("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> " +
+            "CONSTRUCT { ?person <http://schema.org/age> ?age } WHERE { ?row <#id> ?id ; <#age> ?ageStr BIND(IRI(CONCAT(STR(<>), ?id)) AS ?person) BIND(xsd:integer(?ageStr) AS ?age) }", BASE));
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = new TermCache(100, metrics);
+        int[] columns = mapping.resolve(PROPERTIES);
+        String[] row = { "1", "Alice", "30" };
+
+        Model expected = mapping.apply(NodeFactory.createBlankNode(), columns, row);
+        assertTrue(expected.isIsomorphicWith(mapping.apply(NodeFactory.createBlankNode(), columns, row, termCache)));
+        assertTrue(expected.isIsomorphicWith(mapping.apply(NodeFactory.createBlankNode(), columns, row, termCache)));
+        assertEquals(4, metrics.getCacheMisses()); // 2 cell literals and 2 expressions
+        assertEquals(4, metrics.getCacheHits());
+    }
+
+    @Test
+    void blankNodeBindsAreNotCached()
+    {
+        CompiledRowMapping mapping = CompiledRowMapping.compile(QueryFactory.create("CONSTRUCT { ?node <http://schema.org/name> ?name } WHERE { ?row <#name> ?name BIND(BNODE(?name) AS ?node) }", BASE));
+        TermCache termCache = new TermCache(100, new ConversionMetrics());
+        int[] columns = mapping.resolve(PROPERTIES);
+        String[] row = { "1", "Alice", "30" };
+
+        Resource first = mapping.apply(NodeFactory.createBlankNode(), columns, row, termCache).listSubjects().next();
+        Resource second = mapping.apply(NodeFactory.createBlankNode(), columns, row, termCache).listSubjects().next();
+        assertNotEquals(first, second);
+    }
+
+}
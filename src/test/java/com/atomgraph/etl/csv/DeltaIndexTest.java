@@ -0,0 +1,216 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaIndexTest
+{
+
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name }", "http://example.com/");
+    private static final String[] HEADERS = { "id", "name" };
+
+    @Test
+    void changesSincePreviousRunAreDetected() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            String firstId;
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                assertNull(index.getPreviousId());
+                index.start(HEADERS);
+                for (int i = 0; i < 100; i++) assertEquals(DeltaIndex.Status.INSERTED, index.update(new String[]{ String.valueOf(i), "name " + i }).status());
+                index.commit();
+                firstId = index.getId();
+            }
+
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                assertEquals(firstId, index.getPreviousId());
+                index.start(HEADERS);
+                for (int i = 1; i < 100; i++)
+                {
+                    DeltaIndex.Change change = index.update(new String[]{ String.valueOf(i), i == 50 ? "renamed" : "name " + i });
+                    if (i == 50) assertArrayEquals(new String[]{ "50", "name 50" }, change.previousRow());
+                    assertEquals(i == 50 ? DeltaIndex.Status.CHANGED : DeltaIndex.Status.UNCHANGED, change.status());
+                }
+                assertEquals(DeltaIndex.Status.INSERTED, index.update(new String[]{ "100", null }).status());
+
+                List<String[]> deleted = new ArrayList<>();
+                index.forEachDeleted(deleted::add);
+                assertEquals(1, deleted.size());
+                assertArrayEquals(new String[]{ "0", "name 0" }, deleted.get(0));
+                assertEquals(1, index.getInsertedCount());
+                assertEquals(1, index.getChangedCount());
+                assertEquals(98, index.getUnchangedCount());
+                assertEquals(1, index.getDeletedCount());
+                index.commit();
+            }
+
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                assertEquals(DeltaIndex.Status.UNCHANGED, index.update(new String[]{ "100", null }).status());
+                assertEquals(DeltaIndex.Status.UNCHANGED, index.update(new String[]{ "50", "renamed" }).status());
+                assertThrows(IllegalStateException.class, () -> index.update(new String[]{ "50", "renamed" }));
+            } // not committed
+            assertFalse(Files.exists(dir.resolve("delta.idx.tmp")));
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void duplicateKeysOfInsertedRowsAreRejected() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                index.update(new String[]{ "1", "one" });
+                assertThrows(IllegalStateException.class, () -> index.update(new String[]{ "1", "uno" }));
+                assertThrows(IllegalStateException.class, index::commit);
+            }
+            assertFalse(Files.exists(file));
+            assertFalse(Files.exists(dir.resolve("delta.idx.tmp")));
+        }
+        finally
+        {
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void triplesAreCountedAcrossRuns() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        Fingerprint shared = Fingerprint.of("shared"), single = Fingerprint.of("single");
+        try
+        {
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                assertTrue(index.acquire(shared));
+                assertFalse(index.acquire(shared));
+                assertTrue(index.acquire(single));
+                assertTrue(index.release(single));
+                index.commit();
+            }
+
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                assertFalse(index.release(shared));
+                assertTrue(index.release(shared));
+                assertTrue(index.acquire(single)); // released in the previous run
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void indexOfOtherQueryOrHeadersIsRejected() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                index.update(new String[]{ "1", "one" });
+                index.commit();
+            }
+
+            Query other = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?name } WHERE { ?row <#name> ?name }", "http://example.com/");
+            assertThrows(IllegalStateException.class, () -> new DeltaIndex(file, List.of("id"), other));
+            assertThrows(IllegalStateException.class, () -> new DeltaIndex(file, List.of("name"), QUERY));
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                assertThrows(IllegalStateException.class, () -> index.start(new String[]{ "name", "id" }));
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void invalidIndexFilesAreRejected() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            Files.write(file, new byte[0]);
+            assertTrue(assertThrows(IOException.class, () -> new DeltaIndex(file, List.of("id"), QUERY)).getMessage().startsWith("Invalid delta index file"));
+
+            Files.delete(file);
+            try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+            {
+                index.start(HEADERS);
+                index.update(new String[]{ "1", "one" });
+                index.commit();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+            {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, (1L << 29) + 1), channel.size() - Long.BYTES);
+            }
+            assertTrue(assertThrows(IOException.class, () -> new DeltaIndex(file, List.of("id"), QUERY)).getMessage().startsWith("Too many rows"));
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+            {
+                channel.truncate(Integer.BYTES);
+            }
+            assertTrue(assertThrows(IOException.class, () -> new DeltaIndex(file, List.of("id"), QUERY)).getMessage().startsWith("Invalid delta index file"));
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FingerprintSetTest
+{
+
+    @Test
+    void exactSetDetectsDuplicates()
+    {
+        for (int bits : new int[]{ 64, 128 })
+        {
+            FingerprintSet set = new FingerprintSet(FingerprintSet.Mode.EXACT, 1024 * 1024, bits);
+            for (int i = 0; i < 10_000; i++) assertTrue(set.add(Fingerprint.of("triple" + i)));
+            for (int i = 0; i < 10_000; i++) assertFalse(set.add(Fingerprint.of("triple" + i)));
+            assertEquals(10_000, set.size());
+            assertEquals(0, set.getMissed());
+            assertEquals(1024 * 1024, set.getMemory());
+        }
+        assertTrue(new FingerprintSet(FingerprintSet.Mode.EXACT, 1024, 128).add(new Fingerprint(0, 0)));
+    }
+
+    @Test
+    void fullExactSetKeepsNewFingerprints()
+    {
+        FingerprintSet set = new FingerprintSet(FingerprintSet.Mode.EXACT, 64 * 1024, 128); // 4096 slots
+        for (int i = 0; i < 10_000; i++) assertTrue(set.add(Fingerprint.of("triple" + i)));
+
+        assertEquals(10_000, set.size());
+        assertTrue(set.getMissed() >= 10_000 - 3072); // stripes stop storing at 75% of their 64 slots
+        assertFalse(set.add(Fingerprint.of("triple0")));
+    }
+
+    @Test
+    void bloomFilterDetectsDuplicatesApproximately()
+    {
+        FingerprintSet set = new FingerprintSet(FingerprintSet.Mode.BLOOM, 64 * 1024, 128); // 524288 bits
+        int added = 0;
+        for (int i = 0; i < 40_000; i++) if (set.add(Fingerprint.of("triple" + i))) added++;
+        for (int i = 0; i < 40_000; i++) assertFalse(set.add(Fingerprint.of("triple" + i)));
+
+        assertTrue(added > 40_000 * 0.98, "false positive rate is low: " + added);
+        assertEquals(0, set.getMissed());
+    }
+
+    @Test
+    void invalidFingerprintSizeIsRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new FingerprintSet(FingerprintSet.Mode.EXACT, 1024, 32));
+    }
+
+}
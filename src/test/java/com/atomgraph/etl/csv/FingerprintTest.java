@@ -0,0 +1,43 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FingerprintTest
+{
+
+    @Test
+    void hashMatchesReferenceImplementation()
+    {
+        assertEquals(new Fingerprint(0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L), Fingerprint.hash("hello".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(new Fingerprint(0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L), Fingerprint.hash("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", Fingerprint.hash("hello".getBytes(StandardCharsets.UTF_8), 0).toString());
+    }
+
+    @Test
+    void valueBoundariesAreEncoded()
+    {
+        assertEquals(Fingerprint.of("a", "bc"), Fingerprint.of("a", "bc"));
+        assertNotEquals(Fingerprint.of("a", "bc"), Fingerprint.of("ab", "c"));
+        assertNotEquals(Fingerprint.of((String)null), Fingerprint.of(""));
+    }
+
+}
@@ -16,10 +16,18 @@
  */
 package com.atomgraph.etl.csv;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.system.StreamRDFBase;
 import org.apache.jena.vocabulary.RDF;
 import org.junit.jupiter.api.Test;
 
@@ -82,4 +90,82 @@ public class ModelTransformerTest
         assertEquals(1, result.size());
     }
 
+    @Test
+    void planMatchesQueryExecution()
+    {
+        Model input = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 5; i++)
+            input.createResource()
+                .addProperty(input.createProperty("http://example.com/#id"), String.valueOf(i))
+                .addProperty(input.createProperty("http://example.com/#name"), "name" + i);
+        input.createResource().addProperty(input.createProperty("http://example.com/#id"), "5");
+
+        for (String queryString : List.of(
+            "CONSTRUCT { ?item <http://example.com/#label> ?label ; <http://example.com/#part> [ <http://example.com/#id> ?id ] } " +
+                "WHERE { ?row <#id> ?id OPTIONAL { ?row <#name> ?name } BIND(URI(CONCAT(STR(<>), ?id)) AS ?item) BIND(UCASE(?name) AS ?label) FILTER(?id != \"3\") }",
+            "CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name } ORDER BY DESC(?name) LIMIT 2",
+            "CONSTRUCT { ?row <http://example.com/#id> ?id } WHERE { { SELECT ?row ?id { ?row <#id> ?id } } FILTER NOT EXISTS { ?row <#name> ?name } }"))
+        {
+            Query query = QueryFactory.create(queryString, "http://example.com/");
+            Model expected;
+            try (QueryExecution qex = QueryExecution.create(query, input))
+            {
+                expected = qex.execConstruct();
+            }
+
+            assertTrue(expected.isIsomorphicWith(transformer.apply(query, input)), queryString);
+            assertTrue(expected.isIsomorphicWith(transformer.apply(query, input)), queryString); // the plan is reused
+        }
+    }
+
+    @Test
+    void streamingApplySendsEveryInstantiatedTriple()
+    {
+        Model input = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 3; i++) input.createResource("http://example.com/" + i).addProperty(RDF.type, input.createResource("http://example.com/Type"));
+
+        Query query = QueryFactory.create("CONSTRUCT { <http://example.com/list> <http://example.com/#type> ?type } WHERE { ?s a ?type }");
+        List<Triple> triples = new ArrayList<>();
+        transformer.apply(query, input, new StreamRDFBase()
+        {
+
+            @Override
+            public void triple(Triple triple)
+            {
+                triples.add(triple);
+            }
+
+        });
+
+        assertEquals(3, triples.size()); // not deduplicated
+        assertEquals(1, transformer.apply(query, input).size());
+    }
+
+    @Test
+    void planIsSharedByThreads() throws Exception
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?s <http://example.com/#name> ?upper } WHERE { ?s <http://example.com/#name> ?name BIND(UCASE(?name) AS ?upper) }");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++)
+            {
+                String name = "name" + i;
+                results.add(executor.submit(() ->
+                {
+                    Model input = ModelFactory.createDefaultModel();
+                    input.createResource("http://example.com/" + name).addProperty(input.createProperty("http://example.com/#name"), name);
+                    Model result = transformer.apply(query, input);
+                    return result.size() == 1 && result.listObjects().next().asLiteral().getString().equals(name.toUpperCase());
+                }));
+            }
+            for (Future<Boolean> result : results) assertTrue(result.get());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
 }
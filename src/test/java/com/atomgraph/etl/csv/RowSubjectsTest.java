@@ -0,0 +1,74 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import java.util.List;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowSubjectsTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final String[] HEADERS = { "id", "country", "name" };
+
+    @Test
+    void rowNumberSubjects()
+    {
+        assertEquals(NodeFactory.createURI(BASE + "#row-42"), new RowSubjects(RowSubjects.Strategy.ROW_IRI, null).create(BASE, 42, null, new String[]{ "1" }));
+        assertEquals(NodeFactory.createBlankNode("row-42"), new RowSubjects(RowSubjects.Strategy.ROW_BLANK, null).create(BASE, 42, null, new String[]{ "1" }));
+        RowSubjects blank = new RowSubjects(RowSubjects.Strategy.BLANK, null);
+        assertNotEquals(blank.create(BASE, 1, null, new String[]{ "1" }), blank.create(BASE, 1, null, new String[]{ "1" }));
+    }
+
+    @Test
+    void numberedSubjectsOfMergedInputsIncludeInput()
+    {
+        RowSubjects iri = new RowSubjects(RowSubjects.Strategy.ROW_IRI, null);
+        assertEquals(NodeFactory.createURI(BASE + "#row-a%20b.csv-42"), iri.forInput("a b.csv").create(BASE, 42, null, new String[]{ "1" }));
+        assertNotEquals(iri.forInput("a.csv").create(BASE, 1, null, new String[]{ "1" }), iri.forInput("b.csv").create(BASE, 1, null, new String[]{ "1" }));
+        assertEquals(NodeFactory.createBlankNode("row-a.csv-42"), new RowSubjects(RowSubjects.Strategy.ROW_BLANK, null).forInput("a.csv").create(BASE, 42, null, new String[]{ "1" }));
+
+        RowSubjects keys = new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("id"));
+        assertEquals(keys.create(BASE, 1, new int[]{ 0 }, new String[]{ "1" }), keys.forInput("a.csv").create(BASE, 1, new int[]{ 0 }, new String[]{ "1" }));
+    }
+
+    @Test
+    void keySubjectsDependOnKeyValuesOnly()
+    {
+        RowSubjects subjects = new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("country", "id"));
+        int[] keys = subjects.resolve(HEADERS);
+        assertArrayEquals(new int[]{ 1, 0 }, keys);
+
+        Node alice = subjects.create(BASE, 1, keys, new String[]{ "1", "LT", "Alice" });
+        assertEquals(alice, subjects.create(BASE, 7, keys, new String[]{ "1", "LT", "Alicia" }));
+        assertNotEquals(alice, subjects.create(BASE, 1, keys, new String[]{ "1", "NO", "Alice" }));
+        assertEquals(BASE + "#key-" + Fingerprint.of("LT", "1"), alice.getURI());
+    }
+
+    @Test
+    void missingKeyColumnsAreRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new RowSubjects(RowSubjects.Strategy.KEY_BLANK, null));
+        assertThrows(IllegalArgumentException.class, () -> new RowSubjects(RowSubjects.Strategy.KEY_BLANK, List.of("code")).resolve(HEADERS));
+        assertNull(new RowSubjects(RowSubjects.Strategy.ROW_IRI, List.of("code")).resolve(HEADERS));
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv;
+
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import java.util.List;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermCacheTest
+{
+
+    @Test
+    void repeatedCellsShareLiterals()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = new TermCache(10, metrics);
+
+        Node first = termCache.getLiteral(3, "DK");
+        Node second = termCache.getLiteral(3, "DK");
+
+        assertSame(first, second);
+        assertEquals(NodeFactory.createLiteralString("DK"), first);
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(1, metrics.getCacheMisses());
+    }
+
+    @Test
+    void columnsAreCachedSeparately()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = new TermCache(10, metrics);
+
+        termCache.getLiteral(0, "1");
+        termCache.getLiteral(1, "1");
+
+        assertEquals(2, metrics.getCacheMisses());
+    }
+
+    @Test
+    void expressionResultsAreKeyedOnVariableValues()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = new TermCache(10, metrics);
+        Node dk = NodeFactory.createLiteralString("DK");
+
+        Node first = termCache.getValue(0, List.of(dk), key -> NodeFactory.createURI("http://example.com/DK"));
+        Node second = termCache.getValue(0, List.of(dk), key -> fail("Result should be cached"));
+
+        assertSame(first, second);
+        assertEquals(1, metrics.getCacheMisses());
+    }
+
+    @Test
+    void uniqueValuesBypassTheCache()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        TermCache termCache = new TermCache(TermCache.SAMPLE_SIZE * 2, metrics);
+
+        for (int i = 0; i < TermCache.SAMPLE_SIZE * 2; i++) termCache.getLiteral(0, Integer.toString(i));
+
+        assertEquals(TermCache.SAMPLE_SIZE, metrics.getCacheMisses()); // lookups stop after the sample
+        assertEquals(0, metrics.getCacheHits());
+    }
+
+    @Test
+    void nonPositiveCapacityIsRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new TermCache(0, new ConversionMetrics()));
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCompressorOutputStreamTest
+{
+
+    private static byte[] data()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) sb.append("<http://example.org/row/").append(i).append("> <http://example.org/p> \"").append(i).append("\" .\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] roundTrip(Compression compression, ParallelCompressorOutputStream.BlockCompressor compressor, byte[] data) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream os = new ParallelCompressorOutputStream(compressed, compressor, 3, 4096))
+        {
+            os.write(data, 0, 1000);
+            for (int i = 1000; i < 1010; i++) os.write(data[i]);
+            os.write(data, 1010, data.length - 1010);
+        }
+
+        try (InputStream in = compression.decompress(new ByteArrayInputStream(compressed.toByteArray())))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void gzipBlocksDecompressInOrder() throws IOException
+    {
+        byte[] data = data();
+        assertArrayEquals(data, roundTrip(Compression.GZIP, GZIPOutputStream::new, data));
+    }
+
+    @Test
+    void bzip2BlocksDecompressInOrder() throws IOException
+    {
+        byte[] data = data();
+        assertArrayEquals(data, roundTrip(Compression.BZIP2, BZip2CompressorOutputStream::new, data));
+    }
+
+    @Test
+    void finishDoesNotCloseTarget() throws IOException
+    {
+        ByteArrayOutputStream target = new ByteArrayOutputStream()
+        {
+            @Override
+            public void close()
+            {
+                throw new AssertionError("Target must not be closed");
+            }
+        };
+        ParallelCompressorOutputStream os = Compression.GZIP.compress(target, 2);
+        os.write(data());
+        os.finish();
+
+        assertTrue(target.size() > 0);
+    }
+
+    @Test
+    void compressorFailureIsRethrown()
+    {
+        ParallelCompressorOutputStream os = new ParallelCompressorOutputStream(new ByteArrayOutputStream(), out ->
+        {
+            throw new IOException("Broken compressor");
+        }, 1, 16);
+
+        IOException ex = assertThrows(IOException.class, () ->
+        {
+            os.write(new byte[64]);
+            os.finish();
+        });
+        assertEquals("Broken compressor", ex.getMessage());
+    }
+
+    @Test
+    void compressionIsDetectedFromExtension()
+    {
+        assertEquals(Compression.GZIP, Compression.fromFile(Path.of("data.csv.gz")));
+        assertEquals(Compression.BZIP2, Compression.fromFile(Path.of("data.CSV.BZ2")));
+        assertEquals(Compression.ZSTD, Compression.fromFile(Path.of("out/data.nt.zst")));
+        assertEquals(Compression.NONE, Compression.fromFile(Path.of("data.csv")));
+    }
+
+}
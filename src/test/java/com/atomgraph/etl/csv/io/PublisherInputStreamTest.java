@@ -0,0 +1,88 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublisherInputStreamTest
+{
+
+    @Test
+    void buffersAreReadInOrder() throws Exception
+    {
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>();
+            InputStream in = new PublisherInputStream(publisher))
+        {
+            Thread.ofVirtual().start(() ->
+            {
+                publisher.submit(ByteBuffer.wrap("a,b\n".getBytes(StandardCharsets.UTF_8)));
+                publisher.submit(ByteBuffer.allocate(0));
+                publisher.submit(ByteBuffer.wrap("1,2\n".getBytes(StandardCharsets.UTF_8)));
+                publisher.close();
+            });
+
+            assertEquals("a,b\n1,2\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void publisherFailureIsThrown()
+    {
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>();
+        InputStream in = new PublisherInputStream(publisher);
+        publisher.closeExceptionally(new IllegalStateException("upload failed"));
+
+        IOException ex = assertThrows(IOException.class, in::readAllBytes);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    void closeCancelsSubscription() throws Exception
+    {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        InputStream in = new PublisherInputStream(subscriber -> subscriber.onSubscribe(new Flow.Subscription()
+        {
+
+            @Override
+            public void request(long n)
+            {
+            }
+
+            @Override
+            public void cancel()
+            {
+                cancelled.countDown();
+            }
+
+        }));
+        in.close();
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashLookupTableTest
+{
+
+    @Test
+    void rowsAreLookedUpByFirstColumn() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, "code;label;capital\nLT;Lithuania;Vilnius\nNO;\"Norway; Kingdom of\";Oslo\nLT;Duplicate;Kaunas\n");
+            HashLookupTable table = HashLookupTable.read(file, StandardCharsets.UTF_8, ';');
+
+            assertArrayEquals(new String[]{ "code", "label", "capital" }, table.getHeaders());
+            assertEquals(2, table.size());
+            assertArrayEquals(new String[]{ "LT", "Lithuania", "Vilnius" }, table.get("LT"));
+            assertEquals("Norway; Kingdom of", table.get("NO")[1]);
+            assertNull(table.get("DK"));
+            assertEquals(2, table.getColumn("capital"));
+            assertEquals(-1, table.getColumn("population"));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+}
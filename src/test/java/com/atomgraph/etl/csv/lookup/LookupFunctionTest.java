@@ -0,0 +1,94 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import com.atomgraph.etl.csv.stream.CSVStreamRDFOutput;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupFunctionTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("PREFIX csv2rdf: <https://w3id.org/atomgraph/csv2rdf#> " +
+        "CONSTRUCT { ?row <http://example.com/#country> ?country ; <http://example.com/#capital> ?capital } " +
+        "WHERE { ?row <#code> ?code BIND(csv2rdf:lookup(\"countries\", ?code) AS ?country) BIND(csv2rdf:lookup(\"countries\", ?code, \"capital\") AS ?capital) }", BASE);
+    private static final Property COUNTRY = ResourceFactory.createProperty(BASE, "#country"), CAPITAL = ResourceFactory.createProperty(BASE, "#capital");
+
+    @BeforeEach
+    void registerTable()
+    {
+        LookupFunction.register("countries", new HashLookupTable(new String[]{ "code", "label", "capital" },
+            Map.of("LT", new String[]{ "LT", "Lithuania", "Vilnius" }, "NO", new String[]{ "NO", "Norway", "Oslo" })));
+    }
+
+    @AfterEach
+    void unregisterTable()
+    {
+        LookupFunction.unregister("countries");
+    }
+
+    @Test
+    void rowsAreJoinedWithLookupTable()
+    {
+        StringBuilder csv = new StringBuilder("code\n");
+        for (int i = 0; i < 500; i++) csv.append(i % 3 == 0 ? "LT" : i % 3 == 1 ? "NO" : "DK").append("\n");
+
+        for (boolean compiled : new boolean[]{ true, false })
+        {
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, QUERY, ',', null);
+            output.setCompiled(compiled);
+            output.setThreads(3);
+            StringWriter writer = new StringWriter();
+            output.write(writer);
+
+            Model model = ModelFactory.createDefaultModel();
+            model.read(new StringReader(writer.toString()), BASE, "N-TRIPLES");
+            assertEquals(167, model.listResourcesWithProperty(COUNTRY, "Lithuania").toList().size());
+            assertEquals(167, model.listResourcesWithProperty(CAPITAL, "Oslo").toList().size());
+            assertEquals(334, model.listSubjectsWithProperty(COUNTRY).toList().size()); // unknown codes stay unbound
+        }
+    }
+
+    @Test
+    void unknownTableOrColumnLeavesVariableUnbound()
+    {
+        Query query = QueryFactory.create("PREFIX csv2rdf: <https://w3id.org/atomgraph/csv2rdf#> " +
+            "CONSTRUCT { ?row <http://example.com/#code> ?code ; <http://example.com/#country> ?country ; <http://example.com/#capital> ?capital } " +
+            "WHERE { ?row <#code> ?code BIND(csv2rdf:lookup(\"cities\", ?code) AS ?country) BIND(csv2rdf:lookup(\"countries\", ?code, \"population\") AS ?capital) }", BASE);
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader("code\nLT\n"), BASE, query, ',', null);
+        StringWriter writer = new StringWriter();
+        output.write(writer);
+
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(writer.toString()), BASE, "N-TRIPLES");
+        assertEquals(1, model.size());
+    }
+
+}
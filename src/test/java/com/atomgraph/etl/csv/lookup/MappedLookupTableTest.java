@@ -0,0 +1,89 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.lookup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedLookupTableTest
+{
+
+    @Test
+    void rowsAreLookedUpByFirstColumn() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, "\uFEFFcode,label\r\nLT,Lithuania\r\n# comment\r\nNO,\"Norway,\nKingdom of\"\r\n\r\nLT,Duplicate\r\nDK,Denmark");
+            MappedLookupTable table = new MappedLookupTable(file, StandardCharsets.UTF_8, ',');
+
+            assertArrayEquals(new String[]{ "code", "label" }, table.getHeaders());
+            assertEquals(3, table.size());
+            assertArrayEquals(new String[]{ "LT", "Lithuania" }, table.get("LT"));
+            assertEquals("Norway,\nKingdom of", table.get("NO")[1]);
+            assertEquals("Denmark", table.get("DK")[1]);
+            assertNull(table.get("# comment"));
+            assertNull(table.get("SE"));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void largeTableMatchesHashTable() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            StringBuilder csv = new StringBuilder("id,value\n");
+            for (int i = 0; i < 100_000; i++) csv.append("key").append(i).append(",value").append(i * 7).append("\n");
+            Files.writeString(file, csv);
+
+            LookupTable mapped = new MappedLookupTable(file, StandardCharsets.UTF_8, ',');
+            LookupTable hashed = HashLookupTable.read(file, StandardCharsets.UTF_8, ',');
+            assertEquals(hashed.size(), mapped.size());
+            for (int i = 0; i < 100_000; i += 97) assertArrayEquals(hashed.get("key" + i), mapped.get("key" + i));
+            assertNull(mapped.get("key100000"));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void unsupportedCharsetIsRejected() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            assertThrows(IllegalArgumentException.class, () -> new MappedLookupTable(file, StandardCharsets.UTF_16, ','));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.metrics;
+
+import com.atomgraph.etl.csv.stream.CSVStreamRDFOutput;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConversionMetricsTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?name } WHERE { ?row <#name> ?name }", BASE);
+
+    @Test
+    void writeUpdatesMetrics()
+    {
+        String csv = "name,age\nAlice,30\nBob,25\nCarol,\n";
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv), BASE, QUERY, ',', null);
+        ConversionMetrics metrics = new ConversionMetrics();
+        output.setMetrics(metrics);
+
+        output.write(new StringWriter());
+
+        assertEquals(3, metrics.getRows());
+        assertEquals(3, metrics.getInputTriples()); // the age column is not referenced by the query
+        assertEquals(3, metrics.getOutputTriples());
+        assertEquals(3, metrics.getTransformLatency().getCount());
+    }
+
+    @Test
+    void latencyIsRecordedPerRowInParallel()
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?name } WHERE { ?row <#name> ?name OPTIONAL { ?row <#age> ?age } }", BASE);
+        StringBuilder csv = new StringBuilder("name,age\n");
+        for (int i = 0; i < 1000; i++) csv.append("name").append(i).append(",").append(i).append("\n");
+
+        ConversionMetrics parallel = new ConversionMetrics();
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+        output.setMetrics(parallel);
+        output.setThreads(3);
+        output.write(new StringWriter());
+        assertEquals(1000, parallel.getTransformLatency().getCount()); // one sample per row, not per chunk
+
+        ConversionMetrics batched = new ConversionMetrics();
+        output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+        output.setMetrics(batched);
+        output.setCompiled(false);
+        output.setBatchSize(64);
+        output.write(new StringWriter());
+        assertEquals(0, batched.getTransformLatency().getCount()); // rows of a batch have no latency of their own
+        assertEquals(1000, batched.getRows());
+    }
+
+    @Test
+    void partMetricsUpdateParent()
+    {
+        ConversionMetrics parent = new ConversionMetrics();
+        ConversionMetrics part = new ConversionMetrics(parent);
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader("name\nAlice\nBob\n"), BASE, QUERY, ',', null);
+        output.setMetrics(part);
+
+        output.write(new StringWriter());
+        parent.addRows(1);
+
+        assertEquals(2, part.getRows());
+        assertEquals(3, parent.getRows());
+        assertEquals(2, parent.getOutputTriples());
+    }
+
+    @Test
+    void sharedMetricsAccumulate()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        for (int i = 0; i < 2; i++)
+        {
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader("name\nAlice\n"), BASE, QUERY, ',', null);
+            output.setMetrics(metrics);
+            output.write(new StringWriter());
+        }
+
+        assertEquals(2, metrics.getRows());
+        assertEquals(2, metrics.getOutputTriples());
+    }
+
+    @Test
+    void jsonContainsCounters()
+    {
+        ConversionMetrics metrics = new ConversionMetrics();
+        metrics.addRows(2);
+        metrics.addOutputTriples(6);
+        metrics.addRowTransformTime(1000);
+        metrics.addRowTransformTime(3000);
+        metrics.addTransformTime(50000); // a batch is not a row latency
+
+        JsonObject json = metrics.toJSON();
+
+        assertEquals(2, json.get("rows").getAsNumber().value().longValue());
+        assertEquals(6, json.get("outputTriples").getAsNumber().value().longValue());
+        assertEquals(2, json.get("transformLatency").getAsObject().get("count").getAsNumber().value().longValue());
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.server;
+
+import com.atomgraph.etl.csv.stream.OutputFormat;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSV2RDFServerTest
+{
+
+    private static final String CSV = "id,name\n1,Alice\n2,Bob\n";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Path queryFile;
+    private CSV2RDFServer server;
+
+    @BeforeEach
+    void startServer() throws IOException
+    {
+        queryFile = Files.createTempFile("csv2rdf", ".rq");
+        Files.writeString(queryFile, "CONSTRUCT { ?person <http://schema.org/name> ?name } WHERE { ?row <#id> ?id ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?id)) AS ?person) }");
+
+        server = new CSV2RDFServer();
+        new CommandLine(server).parseArgs("--port", "0", "--base", "http://example.com/", "--query", "people=" + queryFile, "--max-concurrent", "1", "--admission-timeout", "0");
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException
+    {
+        server.stop(0);
+        Files.delete(queryFile);
+    }
+
+    private URI uri(String pathAndQuery)
+    {
+        return URI.create("http://localhost:" + server.getPort() + pathAndQuery);
+    }
+
+    private HttpResponse<String> post(String pathAndQuery, String accept, String body) throws IOException, InterruptedException
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(pathAndQuery)).POST(HttpRequest.BodyPublishers.ofString(body));
+        if (accept != null) builder.header("Accept", accept);
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Model parse(String body, Lang lang)
+    {
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.fromString(body, lang).parse(model);
+        return model;
+    }
+
+    @Test
+    void namedQueryConvertsBody() throws IOException, InterruptedException
+    {
+        HttpResponse<String> response = post("/convert/people", null, CSV);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/n-triples", response.headers().firstValue("Content-Type").orElse(null));
+        Model model = parse(response.body(), Lang.NTRIPLES);
+        assertEquals(2, model.size());
+        assertTrue(model.contains(ResourceFactory.createResource("http://example.com/1"), ResourceFactory.createProperty("http://schema.org/name"), "Alice"));
+    }
+
+    @Test
+    void inlineQueryWithNegotiatedFormat() throws IOException, InterruptedException
+    {
+        String query = URLEncoder.encode("CONSTRUCT { ?row <http://schema.org/name> ?name } WHERE { ?row <#name> ?name }", StandardCharsets.UTF_8);
+        HttpResponse<String> response = post("/convert?base=http://example.org/&query=" + query, "text/turtle", CSV);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("text/turtle", response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(2, parse(response.body(), Lang.TURTLE).size());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() throws IOException, InterruptedException
+    {
+        assertEquals(404, post("/convert/unknown", null, CSV).statusCode());
+        assertEquals(400, post("/convert", null, CSV).statusCode());
+        assertEquals(400, post("/convert?query=" + URLEncoder.encode("SELECT * { ?s ?p ?o }", StandardCharsets.UTF_8), null, CSV).statusCode());
+        assertEquals(406, post("/convert/people", "image/png", CSV).statusCode());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/convert/people")).GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void conversionsAboveTheLimitAreRejected() throws IOException, InterruptedException
+    {
+        try (Socket socket = new Socket("localhost", server.getPort()))
+        {
+            socket.setSoTimeout(10_000);
+            // a conversion whose body is not complete yet holds the only slot
+            OutputStream os = socket.getOutputStream();
+            os.write(("POST /convert/people HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "10\r\nid,name\n1,Alice\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals("HTTP/1.1 200 OK", reader.readLine());
+
+            HttpResponse<String> rejected = post("/convert/people", null, CSV);
+            assertEquals(503, rejected.statusCode());
+            assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+
+            os.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals("0")); // the last chunk is written after the slot is released
+        }
+
+        assertEquals(200, post("/convert/people", null, CSV).statusCode());
+    }
+
+    @Test
+    void acceptHeaderIsNegotiated()
+    {
+        assertEquals(OutputFormat.NTRIPLES, CSV2RDFServer.negotiate(null));
+        assertEquals(OutputFormat.NTRIPLES, CSV2RDFServer.negotiate("*/*"));
+        assertEquals(OutputFormat.THRIFT, CSV2RDFServer.negotiate("application/rdf+thrift;q=0.9, text/turtle"));
+        assertEquals(OutputFormat.TURTLE, CSV2RDFServer.negotiate("image/png, text/turtle"));
+        assertNull(CSV2RDFServer.negotiate("image/png"));
+    }
+
+}
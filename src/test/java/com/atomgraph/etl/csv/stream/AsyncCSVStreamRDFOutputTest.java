@@ -0,0 +1,224 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.metrics.ConversionMetrics;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncCSVStreamRDFOutputTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
+    private static final int ROWS = 2000;
+
+    private static String csv()
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < ROWS; i++) csv.append(i).append(",name").append(i).append("\n");
+        return csv.toString();
+    }
+
+    @Test
+    void triplesArePublishedOnDemand() throws Exception
+    {
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(new StringReader(csv()), BASE, QUERY, ',', null));
+        async.setBufferCapacity(8);
+        RecordingSubscriber<Triple> subscriber = new RecordingSubscriber<>(1);
+        async.publishTriples().subscribe(subscriber);
+
+        ConversionMetrics metrics = async.getResult().get(30, TimeUnit.SECONDS);
+        assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+        assertNull(subscriber.failure);
+        assertEquals(ROWS, subscriber.items.size());
+        assertEquals(ROWS, metrics.getRows());
+    }
+
+    @Test
+    void bytesMatchSynchronousOutput() throws Exception
+    {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new CSVStreamRDFOutput(new StringReader(csv()), BASE, QUERY, ',', null).write(expected, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+
+        SubmissionPublisher<ByteBuffer> input = new SubmissionPublisher<>();
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(AsyncCSVStreamRDFOutput.newReader(input, StandardCharsets.UTF_8), BASE, QUERY, ',', null));
+        async.setChunkSize(1000);
+        RecordingSubscriber<ByteBuffer> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+        async.publish(OutputFormat.NTRIPLES, StandardCharsets.UTF_8).subscribe(subscriber);
+        byte[] bytes = csv().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += 100) input.submit(ByteBuffer.wrap(bytes, i, Math.min(100, bytes.length - i)));
+        input.close();
+
+        async.getResult().get(30, TimeUnit.SECONDS);
+        assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (ByteBuffer chunk : subscriber.items)
+        {
+            assertTrue(chunk.remaining() <= 1000);
+            actual.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        assertEquals(expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void channelInputIsConverted() throws Exception
+    {
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(AsyncCSVStreamRDFOutput.newReader(
+            Channels.newChannel(new ByteArrayInputStream(csv().getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8), BASE, QUERY, ',', null));
+        List<Triple> triples = new ArrayList<>();
+        ConversionMetrics metrics = async.write(new StreamRDFBase()
+        {
+
+            @Override
+            public void triple(Triple triple)
+            {
+                triples.add(triple);
+            }
+
+        }).get(30, TimeUnit.SECONDS);
+
+        assertEquals(ROWS, triples.size());
+        assertEquals(ROWS, metrics.getRows());
+    }
+
+    @Test
+    void cancelledSubscriptionStopsConversion() throws Exception
+    {
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(new StringReader(csv()), BASE, QUERY, ',', null));
+        async.setBufferCapacity(8);
+        RecordingSubscriber<Triple> subscriber = new RecordingSubscriber<>(1)
+        {
+
+            @Override
+            public void onNext(Triple item)
+            {
+                items.add(item);
+                if (items.size() == 10) subscription.cancel();
+                else subscription.request(1);
+            }
+
+        };
+        async.publishTriples().subscribe(subscriber);
+
+        assertInstanceOf(CancellationException.class, failureOf(async.getResult()));
+        assertTrue(async.getCSVStreamRDFOutput().getMetrics().getRows() < ROWS);
+        assertEquals(10, subscriber.items.size());
+    }
+
+    @Test
+    void timeoutStopsBlockedConversion() throws Exception
+    {
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(new StringReader(csv()), BASE, QUERY, ',', null));
+        async.setBufferCapacity(8);
+        RecordingSubscriber<Triple> subscriber = new RecordingSubscriber<>(0); // never requests
+        async.publishTriples().subscribe(subscriber);
+        async.getResult().orTimeout(200, TimeUnit.MILLISECONDS);
+
+        assertInstanceOf(TimeoutException.class, failureOf(async.getResult()));
+        assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, subscriber.failure);
+        assertTrue(async.getCSVStreamRDFOutput().getMetrics().getRows() < ROWS);
+    }
+
+    @Test
+    void secondSubscriberIsRejected() throws Exception
+    {
+        AsyncCSVStreamRDFOutput async = new AsyncCSVStreamRDFOutput(new CSVStreamRDFOutput(new StringReader(csv()), BASE, QUERY, ',', null));
+        Flow.Publisher<Triple> publisher = async.publishTriples();
+        publisher.subscribe(new RecordingSubscriber<>(Long.MAX_VALUE));
+        RecordingSubscriber<Triple> second = new RecordingSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(second);
+
+        assertTrue(second.done.await(30, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, second.failure);
+        async.getResult().get(30, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> result) throws Exception
+    {
+        return result.handle((value, ex) -> ex instanceof CompletionException ? ex.getCause() : ex).get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Requests a fixed number of items upfront and one more for every item received.
+     */
+    private static class RecordingSubscriber<T> implements Flow.Subscriber<T>
+    {
+
+        final List<T> items = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final long initialDemand;
+        Flow.Subscription subscription;
+        volatile Throwable failure;
+
+        RecordingSubscriber(long initialDemand)
+        {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            if (initialDemand > 0) subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(T item)
+        {
+            items.add(item);
+            if (initialDemand < Long.MAX_VALUE) subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            failure = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            done.countDown();
+        }
+
+    }
+
+}
@@ -16,9 +16,12 @@
  */
 package com.atomgraph.etl.csv.stream;
 
+import com.atomgraph.etl.csv.RowSubjects;
 import com.univocity.parsers.common.TextParsingException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
 import org.junit.jupiter.api.Test;
@@ -30,6 +33,7 @@ public class CSVStreamRDFOutputTest
 
     private static final String BASE = "http://example.com/";
     private static final Query IDENTITY_QUERY = QueryFactory.create("CONSTRUCT { ?s ?p ?o } WHERE { ?s ?p ?o }");
+    private static final Query ID_QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
 
     @Test
     void writeProducesNonEmptyRDFOutput()
@@ -90,4 +94,132 @@ public class CSVStreamRDFOutputTest
         assertThrows(TextParsingException.class, () -> output.write(new StringWriter()));
     }
 
+    @Test
+    void parallelOrderedWriteMatchesSequentialWrite()
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 1000; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        StringWriter sequential = new StringWriter();
+        new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, ID_QUERY, ',', null).write(sequential);
+
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, ID_QUERY, ',', null);
+        output.setThreads(4);
+        StringWriter parallel = new StringWriter();
+        output.write(parallel);
+
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(1000, output.getCSVStreamRDFProcessor().getSubjectCount());
+    }
+
+    @Test
+    void parallelUnorderedWriteProducesAllTriples()
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 1000; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, ID_QUERY, ',', null);
+        output.setThreads(4);
+        output.setOrdered(false);
+        StringWriter writer = new StringWriter();
+        output.write(writer);
+
+        assertEquals(1000, writer.toString().lines().count());
+        assertEquals(2000, output.getCSVStreamRDFProcessor().getTripleCount());
+    }
+
+    @Test
+    void batchedWriteMatchesPerRowWrite()
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 1000; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        CSVStreamRDFOutput perRow = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, ID_QUERY, ',', null);
+        perRow.setCompiled(false);
+        StringWriter expected = new StringWriter();
+        perRow.write(expected);
+
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, ID_QUERY, ',', null);
+        output.setCompiled(false);
+        output.setBatchSize(64);
+        StringWriter batched = new StringWriter();
+        output.write(batched);
+
+        assertEquals(expected.toString(), batched.toString());
+        assertEquals(1000, output.getCSVStreamRDFProcessor().getSubjectCount());
+        assertEquals(2000, output.getCSVStreamRDFProcessor().getTripleCount());
+    }
+
+    @Test
+    void deterministicRowSubjectsDoNotDependOnParallelism()
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name }", BASE);
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 1000; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        for (RowSubjects rowSubjects : List.of(new RowSubjects(RowSubjects.Strategy.ROW_IRI, null), new RowSubjects(RowSubjects.Strategy.KEY_BLANK, List.of("id"))))
+        {
+            CSVStreamRDFOutput perRow = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+            perRow.setRowSubjects(rowSubjects);
+            StringWriter expected = new StringWriter();
+            perRow.write(expected);
+
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+            output.setRowSubjects(rowSubjects);
+            output.setCompiled(false);
+            output.setThreads(3);
+            output.setBatchSize(64);
+            StringWriter parallel = new StringWriter();
+            output.write(parallel);
+
+            assertEquals(expected.toString(), parallel.toString());
+        }
+    }
+
+    @Test
+    void repeatedKeySubjectsAreNotBatched()
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?label } WHERE { ?row <#name> ?name OPTIONAL { ?row <#code> ?code } BIND(CONCAT(?name, ?code) AS ?label) }", BASE);
+        String csv = "id,name,code\n1,A,x\n1,B,y\n";
+        List<String> outputs = new ArrayList<>();
+        for (int batchSize : new int[]{ 1, 64 })
+        {
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv), BASE, query, ',', null);
+            output.setRowSubjects(new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("id")));
+            output.setCompiled(false);
+            output.setBatchSize(batchSize);
+            StringWriter writer = new StringWriter();
+            output.write(writer);
+            outputs.add(writer.toString());
+        }
+
+        assertEquals(outputs.get(0), outputs.get(1));
+        assertEquals(2, outputs.get(1).lines().count()); // "Ax" and "By", without labels joined across the rows
+    }
+
+    @Test
+    void projectionDoesNotChangeOutput()
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name ; <http://example.com/#age> ?age } WHERE { ?row <#name> ?name OPTIONAL { ?row <#age> ?age } }", BASE);
+        StringBuilder csv = new StringBuilder("id,name,age,notes,comment\n");
+        for (int i = 0; i < 200; i++) csv.append(i).append(",name").append(i).append(",").append(i % 2 == 0 ? String.valueOf(i) : "").append(",\"a, b\",c").append(i).append("\n");
+
+        for (boolean compiled : new boolean[]{ true, false })
+        {
+            List<String> outputs = new ArrayList<>();
+            for (boolean projected : new boolean[]{ true, false })
+            {
+                CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+                output.setRowSubjects(new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("id"))); // the key column is not referenced by the query
+                output.setCompiled(compiled);
+                output.setProjected(projected);
+                StringWriter writer = new StringWriter();
+                output.write(writer);
+                outputs.add(writer.toString());
+            }
+            assertEquals(outputs.get(1), outputs.get(0));
+            assertTrue(outputs.get(0).contains("#key-"));
+        }
+    }
+
 }
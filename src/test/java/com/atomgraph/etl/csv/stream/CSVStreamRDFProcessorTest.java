@@ -16,15 +16,21 @@
  */
 package com.atomgraph.etl.csv.stream;
 
+import com.atomgraph.etl.csv.ColumnSchema;
 import com.univocity.parsers.common.ParsingContext;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
 import org.apache.jena.riot.system.StreamRDFLib;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -201,4 +207,86 @@ public class CSVStreamRDFProcessorTest
             || lit.getDatatypeURI().equals(XSDDatatype.XSDstring.getURI()));
     }
 
+    @Test
+    void schemaColumnIsTypedLiteral()
+    {
+        when(context.headers()).thenReturn(new String[]{"name", "age"});
+
+        CSVStreamRDFProcessor processor = new CSVStreamRDFProcessor(stream, BASE, QueryFactory.create("CONSTRUCT { ?row <http://example.com/age> ?age } WHERE { ?row <#age> ?age }", BASE));
+        processor.setSchema(new ColumnSchema(Map.of("age", ColumnSchema.Datatype.INTEGER)));
+        processor.processStarted(context);
+
+        Model result = processor.transformRow(new String[]{"Alice", "42"}, context);
+
+        Literal lit = result.listStatements().nextStatement().getLiteral();
+        assertEquals(XSDDatatype.XSDinteger.getURI(), lit.getDatatypeURI());
+        assertEquals(42, lit.getInt());
+    }
+
+    @Test
+    void invalidRowIsSkipped()
+    {
+        when(context.headers()).thenReturn(new String[]{"name", "age"});
+        ColumnSchema schema = new ColumnSchema(Map.of("age", ColumnSchema.Datatype.INTEGER));
+        schema.setRejectPolicy(ColumnSchema.RejectPolicy.SKIP);
+        List<String> rejected = new ArrayList<>();
+        schema.setRejectHandler((headers, row, column, message) -> rejected.add(row[0]));
+
+        CSVStreamRDFProcessor processor = new CSVStreamRDFProcessor(stream, BASE, IDENTITY_QUERY);
+        processor.setSchema(schema);
+        processor.processStarted(context);
+
+        assertTrue(processor.transformRow(new String[]{"Alice", "forty"}, context).isEmpty());
+        assertEquals(2, processor.transformRow(new String[]{"Bob", "40"}, context).size());
+        assertEquals(List.of("Alice"), rejected);
+        assertEquals(1, processor.getMetrics().getRejectedRows());
+    }
+
+    @Test
+    void unreferencedColumnsAreNotTransformed()
+    {
+        when(context.headers()).thenReturn(new String[]{"name", "age", "notes"});
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#label> ?name } WHERE { ?row <#name> ?name }", BASE);
+
+        CSVStreamRDFProcessor processor = new CSVStreamRDFProcessor(stream, BASE, query);
+        processor.setSchema(new ColumnSchema(Map.of("age", ColumnSchema.Datatype.INTEGER, "notes", ColumnSchema.Datatype.STRING)));
+        processor.processStarted(context);
+        processor.transformRow(new String[]{"Alice", "30", "n/a"}, context);
+
+        assertEquals(1, processor.getTripleCount());
+        assertEquals(List.of("name", "age"), processor.getSelectedHeaders());
+        processor.setProjection(null);
+        assertNull(processor.getSelectedHeaders());
+    }
+
+    @Test
+    void duplicateTriplesAreDroppedWithinRow()
+    {
+        when(context.headers()).thenReturn(new String[]{"name", "age"});
+        Query query = QueryFactory.create("CONSTRUCT { ?row a <http://example.com/#Row> } WHERE { ?row ?p ?o }");
+
+        for (boolean distinct : new boolean[]{ true, false })
+        {
+            List<Triple> triples = new ArrayList<>();
+            CSVStreamRDFProcessor processor = new CSVStreamRDFProcessor(new StreamRDFBase()
+            {
+
+                @Override
+                public void triple(Triple triple)
+                {
+                    triples.add(triple);
+                }
+
+            }, BASE, query);
+            processor.setDistinct(distinct);
+            processor.processStarted(context);
+            processor.rowProcessed(new String[]{"Alice", "30"}, context);
+            processor.rowProcessed(new String[]{"Bob", "25"}, context);
+            processor.processEnded(context);
+
+            assertEquals(distinct ? 2 : 4, triples.size());
+            assertEquals(triples.size(), processor.getMetrics().getOutputTriples());
+        }
+    }
+
 }
@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest
+{
+
+    @Test
+    void checkpointIsWrittenAndRead() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("checkpoint.json");
+        try
+        {
+            new Checkpoint(1000, 200, 3000, 10, 40).write(file);
+            new Checkpoint(1000, 400, 6000, 20, 80).write(file);
+
+            Checkpoint checkpoint = Checkpoint.read(file);
+            assertEquals(1000, checkpoint.getInputSize());
+            assertEquals(400, checkpoint.getInputOffset());
+            assertEquals(6000, checkpoint.getOutputLength());
+            assertEquals(20, checkpoint.getRows());
+            assertEquals(80, checkpoint.getOutputTriples());
+            assertFalse(Files.exists(dir.resolve("checkpoint.json.tmp")));
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void invalidCheckpointIsRejected() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".json");
+        try
+        {
+            Files.writeString(file, "{ \"inputOffset\": 10 }");
+
+            assertThrows(IOException.class, () -> Checkpoint.read(file));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+}
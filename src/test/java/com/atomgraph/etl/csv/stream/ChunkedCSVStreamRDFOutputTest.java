@@ -0,0 +1,238 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.RowSubjects;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedCSVStreamRDFOutputTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query ID_QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
+
+    private static String sequential(String csv)
+    {
+        StringWriter writer = new StringWriter();
+        new CSVStreamRDFOutput(new StringReader(csv), BASE, ID_QUERY, ',', null).write(writer);
+        return writer.toString();
+    }
+
+    private static String chunked(String csv, int threads, int chunkSize) throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, ID_QUERY, ',', null);
+            output.setThreads(threads);
+            output.setChunkSize(chunkSize);
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            output.write(os, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+            return os.toString(StandardCharsets.UTF_8);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void chunkedWriteMatchesSequentialWrite() throws IOException
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 1000; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        assertEquals(sequential(csv.toString()), chunked(csv.toString(), 3, 100));
+    }
+
+    @Test
+    void quotedLineBreaksAreNotSplit() throws IOException
+    {
+        StringBuilder csv = new StringBuilder("id,name\r\n");
+        for (int i = 0; i < 200; i++) csv.append(i).append(",\"line\n\"\"quoted\"\"\n").append(i).append("\"\r\n");
+
+        assertEquals(sequential(csv.toString()), chunked(csv.toString(), 2, 10));
+    }
+
+    @Test
+    void headerOnlyProducesEmptyOutput() throws IOException
+    {
+        assertEquals("", chunked("id,name\n", 2, 10));
+    }
+
+    @Test
+    void resumeFromCheckpointCompletesOutput() throws IOException
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 500; i++) csv.append(i).append(",name").append(i).append("\n");
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            List<Checkpoint> checkpoints = new ArrayList<>();
+            ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, ID_QUERY, ',', null);
+            output.setThreads(2);
+            output.setChunkSize(100);
+            output.setCheckpointInterval(0);
+            output.setCheckpointHandler(checkpoints::add);
+            ByteArrayOutputStream full = new ByteArrayOutputStream();
+            output.write(full, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+
+            Checkpoint last = checkpoints.get(checkpoints.size() - 1);
+            assertEquals(Files.size(file), last.getInputOffset());
+            assertEquals(full.size(), last.getOutputLength());
+            assertEquals(500, last.getRows());
+            assertEquals(500, last.getOutputTriples());
+
+            // the output written after the checkpoint is lost, e.g. because the process was killed
+            Checkpoint checkpoint = checkpoints.get(checkpoints.size() / 2);
+            ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+            resumed.write(full.toByteArray(), 0, (int)checkpoint.getOutputLength());
+            List<Checkpoint> resumedCheckpoints = new ArrayList<>();
+            ChunkedCSVStreamRDFOutput resumedOutput = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, ID_QUERY, ',', null);
+            resumedOutput.setThreads(2);
+            resumedOutput.setChunkSize(100);
+            resumedOutput.setResumeFrom(checkpoint);
+            resumedOutput.setCheckpointHandler(resumedCheckpoints::add);
+            resumedOutput.write(resumed, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+
+            assertEquals(full.toString(StandardCharsets.UTF_8), resumed.toString(StandardCharsets.UTF_8));
+            assertEquals(500, resumedCheckpoints.get(resumedCheckpoints.size() - 1).getRows());
+            assertEquals(500 - checkpoint.getRows(), resumedOutput.getMetrics().getRows());
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void resumedBlankNodeLabelsDoNotCollide() throws IOException
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name }", BASE);
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 100; i++) csv.append(i).append(",name").append(i).append("\n");
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            Checkpoint start = new Checkpoint(Files.size(file), "id,name\n".length(), 0, 0, 0);
+            Set<String> labels = new HashSet<>();
+            for (int run = 0; run < 2; run++)
+            {
+                ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, query, ',', null);
+                output.setResumeFrom(start);
+                ByteArrayOutputStream os = new ByteArrayOutputStream();
+                output.write(os, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+                Matcher matcher = Pattern.compile("_:\\S+").matcher(os.toString(StandardCharsets.UTF_8));
+                while (matcher.find()) assertTrue(labels.add(matcher.group()), "blank node label is reused");
+            }
+            assertEquals(200, labels.size());
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void changedInputCannotBeResumed() throws IOException
+    {
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, "id,name\n1,Alice\n", StandardCharsets.UTF_8);
+            ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, ID_QUERY, ',', null);
+            output.setResumeFrom(new Checkpoint(Files.size(file) + 1, 8, 0, 0, 0));
+
+            assertThrows(IllegalStateException.class, () -> output.write(new ByteArrayOutputStream(), OutputFormat.NTRIPLES, StandardCharsets.UTF_8));
+
+            output.setResumeFrom(new Checkpoint(Files.size(file), 8, 0, 0, 0));
+            output.setOrdered(false);
+            assertThrows(IllegalArgumentException.class, () -> output.write(new ByteArrayOutputStream(), OutputFormat.NTRIPLES, StandardCharsets.UTF_8));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void rowNumbersMatchSequentialWrite() throws IOException
+    {
+        Query query = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name } WHERE { ?row <#name> ?name }", BASE);
+        RowSubjects rowSubjects = new RowSubjects(RowSubjects.Strategy.ROW_IRI, null);
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 300; i++)
+        {
+            csv.append(i).append(",\"name\n").append(i).append("\"\n");
+            if (i % 7 == 0) csv.append("# comment, \"not a row\n");
+            if (i % 11 == 0) csv.append(" \t\n");
+        }
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, query, ',', null);
+            output.setThreads(3);
+            output.setChunkSize(50);
+            output.setRowSubjects(rowSubjects);
+            ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+            output.write(chunked, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+
+            CSVStreamRDFOutput sequentialOutput = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, query, ',', null);
+            sequentialOutput.setRowSubjects(rowSubjects);
+            StringWriter sequential = new StringWriter();
+            sequentialOutput.write(sequential);
+
+            assertEquals(sequential.toString(), chunked.toString(StandardCharsets.UTF_8));
+            assertTrue(sequential.toString().endsWith("<" + BASE + "#row-300> <http://example.com/#name> \"name\\n299\" .\n"));
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void unsupportedCharsetsAreNotSplit()
+    {
+        assertTrue(ChunkedCSVStreamRDFOutput.isSupported(StandardCharsets.UTF_8, ','));
+        assertTrue(ChunkedCSVStreamRDFOutput.isSupported(StandardCharsets.ISO_8859_1, ';'));
+        assertFalse(ChunkedCSVStreamRDFOutput.isSupported(StandardCharsets.UTF_16, ','));
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.FingerprintSet;
+import com.atomgraph.etl.csv.RowSubjects;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DedupStreamRDFTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name ; <http://example.com/#country> ?country . ?country a <http://example.com/#Country> } " +
+        "WHERE { ?row <#name> ?name ; <#country> ?code BIND(URI(CONCAT(STR(<>), ?code)) AS ?country) }", BASE);
+    private static final String CSV = "name,country\nAlice,LT\nBob,LT\nAlice,LT\nCarol,NO\n";
+
+    @Test
+    void sharedEntityTriplesAreWrittenOnce()
+    {
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(CSV), BASE, QUERY, ',', null);
+        output.setFingerprints(new FingerprintSet(FingerprintSet.Mode.EXACT, 64 * 1024, 128));
+        StringWriter writer = new StringWriter();
+        output.write(writer);
+
+        assertEquals(1, writer.toString().lines().filter(line -> line.equals("<" + BASE + "LT> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://example.com/#Country> .")).count());
+        assertEquals(10, writer.toString().lines().count());
+        assertEquals(2, output.getMetrics().getDuplicateTriples());
+    }
+
+    @Test
+    void repeatedRowsWithKeySubjectsAreDropped()
+    {
+        CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(CSV), BASE, QUERY, ',', null);
+        output.setRowSubjects(new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("name", "country")));
+        output.setFingerprints(new FingerprintSet(FingerprintSet.Mode.BLOOM, 64 * 1024, 128));
+        StringWriter writer = new StringWriter();
+        output.write(writer);
+
+        assertEquals(8, writer.toString().lines().count());
+        assertEquals(4, output.getMetrics().getDuplicateTriples());
+    }
+
+    @Test
+    void chunksShareFingerprints() throws IOException
+    {
+        StringBuilder csv = new StringBuilder("name,country\n");
+        for (int i = 0; i < 1000; i++) csv.append("name").append(i).append(',').append(i % 2 == 0 ? "LT" : "NO").append('\n');
+        Path file = Files.createTempFile("csv2rdf", ".csv");
+        try
+        {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            ChunkedCSVStreamRDFOutput output = new ChunkedCSVStreamRDFOutput(file, StandardCharsets.UTF_8, BASE, QUERY, ',', null);
+            output.setThreads(3);
+            output.setChunkSize(100);
+            output.setFingerprints(new FingerprintSet(FingerprintSet.Mode.EXACT, 64 * 1024, 64));
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            output.write(os, OutputFormat.NTRIPLES, StandardCharsets.UTF_8);
+
+            assertEquals(2002, os.toString(StandardCharsets.UTF_8).lines().count());
+            assertEquals(998, output.getMetrics().getDuplicateTriples());
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.atomgraph.etl.csv.DeltaIndex;
+import com.atomgraph.etl.csv.Fingerprint;
+import com.atomgraph.etl.csv.RowSubjects;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaCSVStreamRDFProcessorTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#name> ?name ; <http://example.com/#city> ?city } WHERE { ?row <#name> ?name OPTIONAL { ?row <#city> ?city } }", BASE);
+
+    private static final Query SHARED_QUERY = QueryFactory.create("CONSTRUCT { ?row <http://example.com/#country> ?country . ?country <http://example.com/#label> ?code } " +
+        "WHERE { ?row <#code> ?code BIND(IRI(CONCAT(\"http://example.com/country/\", ?code)) AS ?country) }", BASE);
+
+    private static List<String> convert(String csv, Path file) throws IOException
+    {
+        return convert(csv, file, QUERY);
+    }
+
+    private static List<String> convert(String csv, Path file, Query query) throws IOException
+    {
+        try (DeltaIndex index = new DeltaIndex(file, List.of("id"), query))
+        {
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv), BASE, query, ',', null);
+            output.setRowSubjects(new RowSubjects(RowSubjects.Strategy.KEY_IRI, List.of("id")));
+            output.setThreads(2); // ignored
+            output.setDeltaIndex(index);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            output.write(new RDFPatchStreamRDF(os, index.getId(), index.getPreviousId()));
+            index.commit();
+            return os.toString(StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    @Test
+    void onlyChangesAreWritten() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            List<String> first = convert("id,name,city,ignored\n1,Anna,Vilnius,x\n2,Bob,Oslo,x\n3,Carl,Riga,x\n", file);
+            assertEquals("TX .", first.get(1));
+            assertEquals(6, first.stream().filter(line -> line.startsWith("A ")).count());
+            assertEquals("TC .", first.get(first.size() - 1));
+
+            List<String> second = convert("id,name,city,ignored\n1,Anna,Vilnius,y\n2,Bob,Bergen,x\n4,Dana,,x\n", file);
+            assertTrue(second.get(1).startsWith("H prev <uuid:"));
+            List<String> changes = second.stream().filter(line -> line.startsWith("A ") || line.startsWith("D ")).toList();
+            assertEquals(List.of(
+                "D <http://example.com/#key-" + Fingerprint.of("2") + "> <http://example.com/#city> \"Oslo\" .",
+                "A <http://example.com/#key-" + Fingerprint.of("2") + "> <http://example.com/#city> \"Bergen\" .",
+                "A <http://example.com/#key-" + Fingerprint.of("4") + "> <http://example.com/#name> \"Dana\" .",
+                "D <http://example.com/#key-" + Fingerprint.of("3") + "> <http://example.com/#name> \"Carl\" .",
+                "D <http://example.com/#key-" + Fingerprint.of("3") + "> <http://example.com/#city> \"Riga\" ."), changes); // the unprojected column does not change rows
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static List<String> changes(List<String> patch)
+    {
+        return patch.stream().filter(line -> line.startsWith("A ") || line.startsWith("D ")).toList();
+    }
+
+    @Test
+    void sharedTriplesAreRemovedWithLastRow() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        String row1 = "<http://example.com/#key-" + Fingerprint.of("1") + ">", row2 = "<http://example.com/#key-" + Fingerprint.of("2") + ">";
+        try
+        {
+            assertEquals(List.of(
+                "A " + row1 + " <http://example.com/#country> <http://example.com/country/LT> .",
+                "A <http://example.com/country/LT> <http://example.com/#label> \"LT\" .",
+                "A " + row2 + " <http://example.com/#country> <http://example.com/country/LT> ."), changes(convert("id,code\n1,LT\n2,LT\n", file, SHARED_QUERY)));
+            assertEquals(List.of(
+                "D " + row2 + " <http://example.com/#country> <http://example.com/country/LT> ."), changes(convert("id,code\n1,LT\n", file, SHARED_QUERY))); // row 1 still produces the label
+            assertEquals(List.of(
+                "D " + row1 + " <http://example.com/#country> <http://example.com/country/LT> .",
+                "D <http://example.com/country/LT> <http://example.com/#label> \"LT\" .",
+                "A " + row1 + " <http://example.com/#country> <http://example.com/country/LV> .",
+                "A <http://example.com/country/LV> <http://example.com/#label> \"LV\" ."), changes(convert("id,code\n1,LV\n", file, SHARED_QUERY)));
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void duplicateKeysAreNotCommitted() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try
+        {
+            assertThrows(RuntimeException.class, () -> convert("id,code\n1,LT\n1,LV\n", file, SHARED_QUERY)); // wrapped by the parser
+            assertFalse(Files.exists(file));
+            assertFalse(Files.exists(dir.resolve("delta.idx.tmp")));
+            assertEquals(2, changes(convert("id,code\n1,LT\n", file, SHARED_QUERY)).size());
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void rowSubjectsMustBeKeyed() throws IOException
+    {
+        Path dir = Files.createTempDirectory("csv2rdf");
+        Path file = dir.resolve("delta.idx");
+        try (DeltaIndex index = new DeltaIndex(file, List.of("id"), QUERY))
+        {
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader("id,name\n1,Anna\n"), BASE, QUERY, ',', null);
+            output.setDeltaIndex(index);
+            assertThrows(IllegalStateException.class, () -> output.write(new RDFPatchStreamRDF(new ByteArrayOutputStream(), index.getId(), null)));
+            assertThrows(IllegalArgumentException.class, () -> output.write(new ByteArrayOutputStream()));
+        }
+        finally
+        {
+            Files.delete(dir);
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpStreamRDFTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query ID_QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
+    private static final String CSV = "id,name\n1,Alice\n2,Bob\n3,Carol\n4,Dave\n5,Eve\n";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile int failureStatus = 503;
+    private HttpServer server;
+
+    @BeforeEach
+    void startEndpoint() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ds", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopEndpoint()
+    {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(exchange.getRequestURI() + " " + exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (failures.getAndDecrement() > 0)
+            {
+                exchange.sendResponseHeaders(failureStatus, -1);
+                return;
+            }
+            bodies.add(body);
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private HttpStreamRDF createSink(HttpStreamRDF.Protocol protocol, String graph)
+    {
+        URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort() + "/ds");
+        return new HttpStreamRDF(HttpClient.newHttpClient(), endpoint, protocol, graph != null ? NodeFactory.createURI(graph) : null, BASE + ".well-known/genid/");
+    }
+
+    private Model parseBodies()
+    {
+        Model model = ModelFactory.createDefaultModel();
+        bodies.forEach(body -> RDFParser.fromString(body, Lang.NTRIPLES).parse(model));
+        return model;
+    }
+
+    @Test
+    void graphStoreProtocolBatches()
+    {
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.GSP, null);
+        sink.setBatchSize(2);
+
+        new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(sink);
+
+        assertEquals(3, sink.getSentBatches());
+        assertEquals(3, requests.size());
+        assertTrue(requests.stream().allMatch(request -> request.equals("/ds?default application/n-triples")));
+        assertEquals(5, parseBodies().size());
+    }
+
+    @Test
+    void updateProtocolInsertsIntoNamedGraph()
+    {
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.UPDATE, BASE + "graph");
+
+        new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(sink);
+
+        assertEquals(1, bodies.size());
+        assertEquals("/ds application/sparql-update", requests.get(0));
+        String update = bodies.get(0);
+        assertTrue(update.startsWith("INSERT DATA {\nGRAPH <" + BASE + "graph> {\n"));
+        assertEquals(5, update.lines().filter(line -> line.endsWith(" .")).count());
+    }
+
+    @Test
+    void failedBatchesAreRetried()
+    {
+        failures.set(2);
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.GSP, BASE + "graph");
+
+        new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(sink);
+
+        assertEquals(2, sink.getRetries());
+        assertEquals(1, sink.getSentBatches());
+        assertTrue(requests.get(0).startsWith("/ds?graph=http%3A%2F%2Fexample.com%2Fgraph "));
+        assertEquals(5, parseBodies().size());
+    }
+
+    @Test
+    void exhaustedRetriesFail()
+    {
+        failures.set(Integer.MAX_VALUE);
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.GSP, null);
+        sink.setMaxRetries(1);
+
+        assertThrows(UncheckedIOException.class, () -> new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(sink));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried()
+    {
+        failures.set(Integer.MAX_VALUE);
+        failureStatus = 400;
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.GSP, null);
+
+        assertThrows(UncheckedIOException.class, () -> new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(sink));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void batchIsSentAfterMaxDelay() throws InterruptedException
+    {
+        HttpStreamRDF sink = createSink(HttpStreamRDF.Protocol.GSP, null);
+        sink.setMaxDelay(20);
+        sink.start();
+
+        sink.triple(Triple.create(NodeFactory.createBlankNode("b1"), NodeFactory.createURI(BASE + "#name"), NodeFactory.createLiteralString("Alice")));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bodies.isEmpty() && System.nanoTime() < deadline) Thread.sleep(10);
+        sink.finish();
+
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0).startsWith("<" + BASE + ".well-known/genid/b1> "), "blank nodes are skolemized");
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NTriplesStreamRDFTest
+{
+
+    private static byte[] write(StreamRDF stream, ByteArrayOutputStream os, List<Triple> triples)
+    {
+        stream.start();
+        triples.forEach(stream::triple);
+        stream.finish();
+        return os.toByteArray();
+    }
+
+    private static void assertSameAsJena(List<Triple> triples, int bufferSize)
+    {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream(), actual = new ByteArrayOutputStream();
+        assertArrayEquals(write(StreamRDFLib.writer(expected), expected, triples), write(new NTriplesStreamRDF(actual, bufferSize), actual, triples));
+    }
+
+    @Test
+    void outputMatchesJena()
+    {
+        Node subject = NodeFactory.createBlankNode("a-b_c:1éĀ");
+        Node predicate = NodeFactory.createURI("http://example.com/#name é");
+        assertSameAsJena(List.of(
+            Triple.create(subject, predicate, NodeFactory.createLiteralString("plain")),
+            Triple.create(subject, predicate, NodeFactory.createLiteralString("\"quoted\"\\ \t\n\r\f\b é   😀")),
+            Triple.create(subject, predicate, NodeFactory.createLiteralDT("42", XSDDatatype.XSDinteger)),
+            Triple.create(NodeFactory.createURI("http://example.com/{x}|<y>"), predicate, NodeFactory.createBlankNode()),
+            Triple.create(subject, predicate, NodeFactory.createTripleTerm(subject, predicate, NodeFactory.createLiteralString("x")))),
+            1024);
+    }
+
+    @Test
+    void blankNodeLabelsMatchJena()
+    {
+        Node predicate = NodeFactory.createURI("http://example.com/#p");
+        List<Triple> triples = new ArrayList<>();
+        for (String label : List.of("aXb", "X", "XX", "-", "X2D", "x-X"))
+            triples.add(Triple.create(NodeFactory.createBlankNode(label), predicate, NodeFactory.createLiteralString(label)));
+        assertSameAsJena(triples, 1024);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        write(new NTriplesStreamRDF(os), os, triples.subList(3, 5));
+        String[] lines = os.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(NodeFmtLib.strNT(NodeFactory.createBlankNode("-")), lines[0].substring(0, lines[0].indexOf(' ')));
+        assertEquals(NodeFmtLib.strNT(NodeFactory.createBlankNode("X2D")), lines[1].substring(0, lines[1].indexOf(' ')));
+        assertNotEquals(lines[0].substring(0, lines[0].indexOf(' ')), lines[1].substring(0, lines[1].indexOf(' '))); // "-" and "X2D" are distinct
+    }
+
+    @Test
+    void outputLargerThanBufferMatchesJena()
+    {
+        Node predicate = NodeFactory.createURI("http://example.com/#" + "p".repeat(40));
+        List<Triple> triples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) triples.add(Triple.create(NodeFactory.createBlankNode(), predicate, NodeFactory.createLiteralString("value " + i)));
+
+        assertSameAsJena(triples, 64);
+    }
+
+    @Test
+    void iriEscapesMatchJena()
+    {
+        Node predicate = NodeFactory.createURI("http://example.com/#p");
+        List<Triple> triples = new ArrayList<>();
+        triples.add(Triple.create(NodeFactory.createURI("http://example.com/Alice Smith"), predicate, NodeFactory.createLiteralString("Alice Smith"))); // IRI(CONCAT(...)) of a cell value
+        for (char ch : " \"<>\\^`{|}\u007F\u0001\té".toCharArray())
+            triples.add(Triple.create(NodeFactory.createURI("http://example.com/a" + ch + "b"), predicate, NodeFactory.createLiteralString(String.valueOf(ch))));
+        assertSameAsJena(triples, 1024);
+    }
+
+}
@@ -0,0 +1,69 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowGraphTest
+{
+
+    private static final Node NAME = NodeFactory.createURI("http://example.com/#name");
+    private static final Node AGE = NodeFactory.createURI("http://example.com/#age");
+
+    @Test
+    void findByPredicateReturnsCell()
+    {
+        RowGraph graph = new RowGraph();
+        graph.setProperties(new Node[]{ NAME, AGE });
+        Node subject = NodeFactory.createBlankNode();
+        graph.reset(subject, new String[]{ "Alice", "30" });
+
+        assertEquals(2, graph.size());
+        assertEquals(Triple.create(subject, AGE, NodeFactory.createLiteralString("30")), graph.find(Node.ANY, AGE, Node.ANY).next());
+        assertTrue(graph.contains(subject, NAME, NodeFactory.createLiteralString("Alice")));
+        assertFalse(graph.contains(NodeFactory.createBlankNode(), NAME, Node.ANY));
+    }
+
+    @Test
+    void nullCellsAndHeadersAreSkipped()
+    {
+        RowGraph graph = new RowGraph();
+        graph.setProperties(new Node[]{ NAME, null });
+        graph.reset(NodeFactory.createBlankNode(), new String[]{ null, "30" });
+
+        assertEquals(0, graph.size());
+        assertFalse(graph.find().hasNext());
+    }
+
+    @Test
+    void resetReplacesRow()
+    {
+        RowGraph graph = new RowGraph();
+        graph.setProperties(new Node[]{ NAME });
+        graph.reset(NodeFactory.createBlankNode(), new String[]{ "Alice" });
+        graph.reset(NodeFactory.createBlankNode(), new String[]{ "Bob" });
+
+        assertEquals(NodeFactory.createLiteralString("Bob"), graph.find().next().getObject());
+        assertEquals(1, graph.find().toList().size());
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedStreamRDFTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name ; <http://example.com/#row> ?row } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
+
+    private static List<ByteArrayOutputStream> outputs(int count)
+    {
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) outputs.add(new ByteArrayOutputStream());
+        return outputs;
+    }
+
+    private static Model read(ByteArrayOutputStream output)
+    {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(output.toString(StandardCharsets.UTF_8)), BASE, "N-TRIPLES");
+        return model;
+    }
+
+    @Test
+    void triplesOfSubjectAreInSameShard()
+    {
+        List<ByteArrayOutputStream> outputs = outputs(3);
+        ShardedStreamRDF sharder = new ShardedStreamRDF(outputs, OutputFormat.NTRIPLES, StandardCharsets.UTF_8, ShardedStreamRDF.Mode.SUBJECT);
+        sharder.setBatchSize(7);
+        sharder.start();
+        for (int i = 0; i < 300; i++)
+            for (int j = 0; j < 3; j++)
+                sharder.triple(Triple.create(NodeFactory.createURI(BASE + i), NodeFactory.createURI(BASE + "#p" + j), NodeFactory.createLiteralString("v")));
+        sharder.finish();
+
+        long total = 0;
+        List<Resource> subjects = new ArrayList<>();
+        for (int i = 0; i < outputs.size(); i++)
+        {
+            Model shard = read(outputs.get(i));
+            assertEquals(shard.size(), sharder.getTripleCount(i));
+            assertTrue(shard.size() > 0);
+            for (Resource subject : shard.listSubjects().toList())
+            {
+                assertEquals(3, shard.listStatements(subject, null, (String)null).toList().size());
+                subjects.add(subject);
+            }
+            total += shard.size();
+        }
+        assertEquals(900, total);
+        assertEquals(300, subjects.stream().distinct().count()); // no subject is in more than one shard
+    }
+
+    @Test
+    void rowRangesAreRoundRobin()
+    {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 100; i++) csv.append(i).append(",name").append(i).append("\n");
+
+        for (int threads : new int[]{ 1, 3 })
+        {
+            List<ByteArrayOutputStream> outputs = outputs(3);
+            ShardedStreamRDF sharder = new ShardedStreamRDF(outputs, OutputFormat.NTRIPLES, StandardCharsets.UTF_8, ShardedStreamRDF.Mode.ROW_RANGE);
+            sharder.setRangeRows(10);
+            CSVStreamRDFOutput output = new CSVStreamRDFOutput(new StringReader(csv.toString()), BASE, QUERY, ',', null);
+            output.setThreads(threads);
+            output.write(sharder);
+
+            for (int i = 0; i < outputs.size(); i++)
+            {
+                Model shard = read(outputs.get(i));
+                for (Resource subject : shard.listSubjectsWithProperty(shard.createProperty(BASE, "#name")).toList())
+                {
+                    int id = Integer.parseInt(subject.getURI().substring(BASE.length()));
+                    assertEquals(id / 10 % 3, i, subject.getURI());
+                }
+                assertEquals(shard.size(), sharder.getTripleCount(i));
+            }
+            assertEquals(80, sharder.getTripleCount(0)); // rows 0-9, 30-39, 60-69, 90-99
+        }
+    }
+
+    @Test
+    void writerFailureIsThrown()
+    {
+        OutputStream failing = new OutputStream()
+        {
+
+            @Override
+            public void write(int b) throws IOException
+            {
+                throw new IOException("Disk full");
+            }
+
+        };
+        ShardedStreamRDF sharder = new ShardedStreamRDF(List.of(failing), OutputFormat.NTRIPLES, StandardCharsets.UTF_8, ShardedStreamRDF.Mode.SUBJECT);
+        sharder.setBatchSize(1);
+        sharder.start();
+
+        assertThrows(RuntimeException.class, () ->
+        {
+            for (int i = 0; i < 100_000; i++) sharder.triple(Triple.create(NodeFactory.createURI(BASE + i), NodeFactory.createURI(BASE + "#p"), NodeFactory.createLiteralString("v")));
+            sharder.finish();
+        });
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.io.StringReader;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TDB2StreamRDFTest
+{
+
+    private static final String BASE = "http://example.com/";
+    private static final Query ID_QUERY = QueryFactory.create("CONSTRUCT { ?id <http://example.com/#name> ?name } WHERE { ?row <#id> ?idString ; <#name> ?name BIND(URI(CONCAT(STR(<>), ?idString)) AS ?id) }", BASE);
+    private static final String CSV = "id,name\n1,Alice\n2,Bob\n";
+
+    @Test
+    void loadsIntoDefaultGraph()
+    {
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        TDB2StreamRDF loader = new TDB2StreamRDF(dsg, null);
+
+        new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(loader);
+
+        assertEquals(2, loader.getLoadedCount());
+        Txn.executeRead(dsg, () ->
+        {
+            assertEquals(2, dsg.getDefaultGraph().size());
+            assertTrue(dsg.getDefaultGraph().contains(NodeFactory.createURI(BASE + "1"), NodeFactory.createURI(BASE + "#name"), NodeFactory.createLiteralString("Alice")));
+        });
+    }
+
+    @Test
+    void loadsIntoNamedGraph()
+    {
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        Node graphName = NodeFactory.createURI(BASE + "graph");
+        TDB2StreamRDF loader = new TDB2StreamRDF(dsg, graphName);
+
+        new CSVStreamRDFOutput(new StringReader(CSV), BASE, ID_QUERY, ',', null).write(loader);
+
+        Txn.executeRead(dsg, () ->
+        {
+            assertTrue(dsg.getDefaultGraph().isEmpty());
+            assertEquals(2, dsg.getGraph(graphName).size());
+        });
+    }
+
+    @Test
+    void abortedLoadIsNotCommitted()
+    {
+        DatasetGraph dsg = DatabaseMgr.createDatasetGraph();
+        TDB2StreamRDF loader = new TDB2StreamRDF(dsg, null);
+
+        loader.start();
+        loader.triple(Triple.create(NodeFactory.createURI(BASE + "1"), NodeFactory.createURI(BASE + "#name"), NodeFactory.createLiteralString("Alice")));
+        loader.abort(new IllegalStateException("Conversion failed"));
+
+        Txn.executeRead(dsg, () -> assertTrue(dsg.getDefaultGraph().isEmpty()));
+    }
+
+}
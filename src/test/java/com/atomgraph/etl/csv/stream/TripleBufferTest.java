@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2026 Martynas Jusevičius <martynas@atomgraph.com>
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.atomgraph.etl.csv.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TripleBufferTest
+{
+
+    private static final Triple TRIPLE = Triple.create(NodeFactory.createURI("http://example.com/s"),
+        NodeFactory.createURI("http://example.com/p"), NodeFactory.createLiteralString("o"));
+
+    @Test
+    void duplicatesAreDroppedWithinRow()
+    {
+        TripleBuffer buffer = new TripleBuffer(true);
+        buffer.nextRow();
+        buffer.triple(TRIPLE);
+        buffer.triple(TRIPLE);
+        assertEquals(1, buffer.size());
+
+        buffer.nextRow();
+        buffer.triple(TRIPLE); // duplicates across rows are kept
+        assertEquals(2, buffer.size());
+
+        List<Triple> sent = new ArrayList<>();
+        buffer.sendTo(new StreamRDFBase()
+        {
+
+            @Override
+            public void triple(Triple triple)
+            {
+                sent.add(triple);
+            }
+
+        });
+        assertEquals(List.of(TRIPLE, TRIPLE), sent);
+
+        buffer.clear();
+        buffer.triple(TRIPLE);
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void duplicatesAreKeptIfNotDistinct()
+    {
+        TripleBuffer buffer = new TripleBuffer(false);
+        buffer.triple(TRIPLE);
+        buffer.triple(TRIPLE);
+        assertEquals(2, buffer.size());
+        assertFalse(buffer.isDistinct());
+    }
+
+    @Test
+    void rowsAreSignalled()
+    {
+        TripleBuffer buffer = new TripleBuffer(false);
+        buffer.nextRow();
+        buffer.triple(TRIPLE);
+        buffer.nextRow(); // row without triples
+        buffer.nextRow();
+        buffer.triple(TRIPLE);
+        buffer.triple(TRIPLE);
+        buffer.nextRow();
+
+        RowRecorder events = new RowRecorder();
+        buffer.sendTo(events);
+        assertEquals("rtrrttr", events.events.toString());
+        assertEquals(4, buffer.getRowCount());
+    }
+
+    private static class RowRecorder extends StreamRDFBase implements RowStreamRDF
+    {
+
+        final StringBuilder events = new StringBuilder();
+
+        @Override
+        public void row()
+        {
+            events.append('r');
+        }
+
+        @Override
+        public void triple(Triple triple)
+        {
+            events.append('t');
+        }
+
+    }
+
+}